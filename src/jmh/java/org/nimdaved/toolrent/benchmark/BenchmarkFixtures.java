@@ -0,0 +1,149 @@
+package org.nimdaved.toolrent.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import org.nimdaved.toolrent.config.ApplicationProperties;
+import org.nimdaved.toolrent.domain.Charge;
+import org.nimdaved.toolrent.domain.Customer;
+import org.nimdaved.toolrent.domain.Holiday;
+import org.nimdaved.toolrent.domain.Rental;
+import org.nimdaved.toolrent.domain.Tool;
+import org.nimdaved.toolrent.domain.enumeration.HolidayType;
+import org.nimdaved.toolrent.domain.enumeration.RentalStatus;
+import org.nimdaved.toolrent.domain.enumeration.ToolType;
+import org.nimdaved.toolrent.repository.ChargeRepository;
+import org.nimdaved.toolrent.repository.HolidayRepository;
+import org.nimdaved.toolrent.service.CalendarService;
+import org.nimdaved.toolrent.service.ChargeService;
+
+/**
+ * Reference data of the benchmarks, the same as the sample data, and services wired to in-memory repositories.
+ */
+final class BenchmarkFixtures {
+
+    static final List<Holiday> HOLIDAYS = List.of(
+        new Holiday()
+            .name("Labor Day")
+            .holidayType(HolidayType.FIRST_DAY_OF_WEEK_IN_MONTH)
+            .monthNumber(9)
+            .dayNumber(1)
+            .observedOnClosestWeekday(false),
+        new Holiday()
+            .name("Independence Day")
+            .holidayType(HolidayType.EXACT_DAY_OF_MONTH)
+            .monthNumber(7)
+            .dayNumber(4)
+            .observedOnClosestWeekday(true)
+    );
+
+    static final List<Charge> CHARGES = List.of(
+        new Charge()
+            .toolType(ToolType.JACKHUMMER)
+            .dailyCharge(new BigDecimal("2.99"))
+            .weekdayCharge(true)
+            .weekendCharge(false)
+            .holidayCharge(false),
+        new Charge()
+            .toolType(ToolType.CHINSAW)
+            .dailyCharge(new BigDecimal("1.49"))
+            .weekdayCharge(true)
+            .weekendCharge(false)
+            .holidayCharge(true),
+        new Charge()
+            .toolType(ToolType.LADDER)
+            .dailyCharge(new BigDecimal("1.99"))
+            .weekdayCharge(true)
+            .weekendCharge(true)
+            .holidayCharge(false)
+    );
+
+    static final Tool TOOL = new Tool().code("LADW").toolType(ToolType.LADDER).brand("Werner");
+
+    static final Customer CUSTOMER = new Customer().id(1L).fullName("John Doe").email("john.doe@example.com").phoneNumber("555-0100");
+
+    private BenchmarkFixtures() {}
+
+    /**
+     * Check-out date of a benchmarked rental period, relative to the current year
+     * as the precomputed calendar is.
+     */
+    static LocalDate checkOutDate(String period) {
+        int currentYear = Year.now().getValue();
+        return switch (period) {
+            case "MID_YEAR" -> LocalDate.of(currentYear, 7, 2);
+            case "YEAR_BOUNDARY" -> LocalDate.of(currentYear, 12, 30);
+            case "OUT_OF_RANGE" -> LocalDate.of(currentYear + 20, 12, 30);
+            default -> throw new IllegalArgumentException("Unknown period: " + period);
+        };
+    }
+
+    static CalendarService calendarService() {
+        var calendarService = new CalendarService(
+            repository(HolidayRepository.class, Map.of("findAll", args -> HOLIDAYS)),
+            new ApplicationProperties(),
+            new SimpleMeterRegistry()
+        );
+        calendarService.populateHolidays();
+        return calendarService;
+    }
+
+    static ChargeService chargeService(CalendarService calendarService) {
+        var chargeRepository = repository(
+            ChargeRepository.class,
+            Map.of(
+                "findAll",
+                args -> CHARGES,
+                "findFirstByToolTypeOrderByIdAsc",
+                args -> CHARGES.stream().filter(charge -> charge.getToolType() == args[0]).findFirst()
+            )
+        );
+        var chargeService = new ChargeService(chargeRepository, calendarService, event -> {}, new SimpleMeterRegistry());
+        chargeService.populateRates();
+        return chargeService;
+    }
+
+    static Rental rental(ChargeService chargeService, LocalDate checkOutDate, int dayCount) {
+        var charges = chargeService.calculateCharges(TOOL, checkOutDate, dayCount);
+        var rental = new Rental()
+            .id(1L)
+            .checkOutDate(checkOutDate)
+            .dayCount(dayCount)
+            .discountPercent(10)
+            .status(RentalStatus.CREATED)
+            .chargeAmount(charges.chargedAmount())
+            .tool(TOOL)
+            .customer(CUSTOMER);
+        rental.setChargedDaysCount(charges.chargedDays());
+        rental.setDailyCharges(charges.dailyCharges());
+        return rental;
+    }
+
+    /**
+     * In-memory stand-in of a Spring Data repository, answering the named methods only,
+     * and the {@link Object} methods by identity.
+     */
+    private static <T> T repository(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        return type.cast(
+            Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+                if (method.getDeclaringClass() == Object.class) {
+                    return switch (method.getName()) {
+                        case "equals" -> proxy == args[0];
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "toString" -> "In-memory " + type.getSimpleName();
+                        default -> throw new UnsupportedOperationException("Object." + method.getName());
+                    };
+                }
+                return Optional.ofNullable(answers.get(method.getName()))
+                    .orElseThrow(() -> new UnsupportedOperationException(type.getSimpleName() + "." + method.getName()))
+                    .apply(args);
+            })
+        );
+    }
+}
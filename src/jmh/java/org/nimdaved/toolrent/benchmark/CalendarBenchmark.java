@@ -0,0 +1,52 @@
+package org.nimdaved.toolrent.benchmark;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import org.nimdaved.toolrent.domain.Holiday;
+import org.nimdaved.toolrent.service.CalendarService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Day counting of rental periods: within a year, across the year boundary and outside of the precomputed calendar.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CalendarBenchmark {
+
+    @Param({ "MID_YEAR", "YEAR_BOUNDARY", "OUT_OF_RANGE" })
+    private String period;
+
+    @Param({ "1", "5", "30", "90", "365" })
+    private int dayCount;
+
+    private CalendarService calendarService;
+    private LocalDate checkOutDate;
+
+    @Setup
+    public void setup() {
+        calendarService = BenchmarkFixtures.calendarService();
+        checkOutDate = BenchmarkFixtures.checkOutDate(period);
+    }
+
+    @Benchmark
+    public CalendarService.DayCounts getDayCounts() {
+        return calendarService.getDayCounts(checkOutDate, dayCount);
+    }
+
+    @Benchmark
+    public void holidayToLocalDate(Blackhole blackhole) {
+        int year = checkOutDate.getYear();
+        for (Holiday holiday : BenchmarkFixtures.HOLIDAYS) {
+            blackhole.consume(holiday.toLocalDate(year));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.nimdaved.toolrent.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import org.nimdaved.toolrent.domain.Rental;
+import org.nimdaved.toolrent.service.ChargeService;
+import org.nimdaved.toolrent.service.DocumentGeneratorService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Pricing of a rental, from the charge calculation to the rendered agreement, with in-memory reference data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PricingBenchmark {
+
+    @Param({ "MID_YEAR", "YEAR_BOUNDARY", "OUT_OF_RANGE" })
+    private String period;
+
+    @Param({ "1", "5", "30", "90", "365" })
+    private int dayCount;
+
+    private ChargeService chargeService;
+    private DocumentGeneratorService documentGeneratorService;
+    private LocalDate checkOutDate;
+    private Rental rental;
+
+    @Setup
+    public void setup() {
+        chargeService = BenchmarkFixtures.chargeService(BenchmarkFixtures.calendarService());
+        documentGeneratorService = new DocumentGeneratorService();
+        checkOutDate = BenchmarkFixtures.checkOutDate(period);
+        rental = BenchmarkFixtures.rental(chargeService, checkOutDate, dayCount);
+    }
+
+    @Benchmark
+    public ChargeService.Charges calculateCharges() {
+        return chargeService.calculateCharges(BenchmarkFixtures.TOOL, checkOutDate, dayCount);
+    }
+
+    @Benchmark
+    public BigDecimal discountAmount() {
+        return rental.getDiscountAmount();
+    }
+
+    @Benchmark
+    public BigDecimal finalCharge() {
+        return rental.getFinalCharge();
+    }
+
+    @Benchmark
+    public String createRentalAgreement() {
+        return documentGeneratorService.createRentalAgreement(rental);
+    }
+}
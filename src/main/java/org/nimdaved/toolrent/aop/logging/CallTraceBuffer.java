@@ -0,0 +1,80 @@
+package org.nimdaved.toolrent.aop.logging;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free ring buffer of the most recent traced calls.
+ * <p>
+ * Writers claim a slot with one atomic increment and overwrite the oldest trace, they never wait for each other or for readers.
+ * Readers copy the slots, so a snapshot taken under load may miss a trace being written.
+ */
+public class CallTraceBuffer {
+
+    private final AtomicReferenceArray<CallTrace> slots;
+    private final int mask;
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * @param capacity the number of traces kept, rounded up to a power of two.
+     */
+    public CallTraceBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    public void add(CallTrace trace) {
+        slots.lazySet((int) (sequence.getAndIncrement() & mask), trace);
+    }
+
+    /**
+     * @param minDuration the minimum duration of the traces returned.
+     * @param limit the maximum number of traces returned.
+     * @return the most recent traces taking at least the minimum duration, most recent first.
+     */
+    public List<CallTrace> snapshot(Duration minDuration, int limit) {
+        List<CallTrace> traces = new ArrayList<>(slots.length());
+        for (int i = 0; i < slots.length(); i++) {
+            var trace = slots.get(i);
+            if (trace != null && trace.durationNanos() >= minDuration.toNanos()) {
+                traces.add(trace);
+            }
+        }
+        return traces.stream().sorted(Comparator.comparing(CallTrace::start).reversed()).limit(limit).toList();
+    }
+
+    /**
+     * @return the number of traces added since the start, including overwritten ones.
+     */
+    public long getTotal() {
+        return sequence.get();
+    }
+
+    public int getCapacity() {
+        return slots.length();
+    }
+
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, null);
+        }
+    }
+
+    /**
+     * A traced call.
+     *
+     * @param method the declaring class and name of the method.
+     * @param start the time the call started.
+     * @param durationNanos the duration of the call.
+     * @param thread the name of the calling thread.
+     * @param exception the class of the exception thrown, or {@code null}.
+     * @param sampled whether the call was sampled, rather than traced for being slow.
+     */
+    public record CallTrace(String method, Instant start, long durationNanos, String thread, String exception, boolean sampled) {}
+}
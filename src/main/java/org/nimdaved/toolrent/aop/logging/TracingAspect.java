@@ -0,0 +1,110 @@
+package org.nimdaved.toolrent.aop.logging;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.nimdaved.toolrent.config.ApplicationProperties;
+
+/**
+ * Aspect tracing the timings of repository, service and REST calls into a {@link CallTraceBuffer}.
+ * <p>
+ * Unlike {@link LoggingAspect}, it neither formats arguments nor logs: a call costs two clock reads and a random draw,
+ * and the sampled or slow ones an allocation and a slot of the ring buffer. Sample rates are resolved per class once.
+ */
+@Aspect
+public class TracingAspect {
+
+    private final CallTraceBuffer buffer;
+    private final Map<String, Double> sampleRates;
+    private final double defaultSampleRate;
+    private final long slowThresholdNanos;
+
+    private final Map<Class<?>, Double> classSampleRates = new ConcurrentHashMap<>();
+
+    public TracingAspect(ApplicationProperties applicationProperties, CallTraceBuffer buffer) {
+        var properties = applicationProperties.getTracing();
+        this.buffer = buffer;
+        this.sampleRates = Map.copyOf(properties.getSampleRates());
+        this.defaultSampleRate = properties.getDefaultSampleRate();
+        this.slowThresholdNanos = properties.getSlowThreshold().toNanos();
+    }
+
+    /**
+     * Pointcut that matches all repositories, services and Web REST endpoints.
+     */
+    @Pointcut(
+        "within(@org.springframework.stereotype.Repository *)" +
+        " || within(@org.springframework.stereotype.Service *)" +
+        " || within(@org.springframework.web.bind.annotation.RestController *)"
+    )
+    public void springBeanPointcut() {
+        // Method is empty as this is just a Pointcut, the implementations are in the advices.
+    }
+
+    /**
+     * Pointcut that matches all Spring beans in the application's main packages.
+     */
+    @Pointcut(
+        "within(org.nimdaved.toolrent.repository..*)" +
+        " || within(org.nimdaved.toolrent.service..*)" +
+        " || within(org.nimdaved.toolrent.web.rest..*)"
+    )
+    public void applicationPackagePointcut() {
+        // Method is empty as this is just a Pointcut, the implementations are in the advices.
+    }
+
+    /**
+     * Advice that traces sampled and slow calls.
+     *
+     * @param joinPoint join point for advice.
+     * @return result.
+     * @throws Throwable the exception of the call.
+     */
+    @Around("applicationPackagePointcut() && springBeanPointcut()")
+    public Object traceAround(ProceedingJoinPoint joinPoint) throws Throwable {
+        var declaringType = joinPoint.getSignature().getDeclaringType();
+        boolean sampled = ThreadLocalRandom.current().nextDouble() < classSampleRates.computeIfAbsent(declaringType, this::sampleRate);
+        long start = System.nanoTime();
+        Throwable thrown = null;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            thrown = e;
+            throw e;
+        } finally {
+            long duration = System.nanoTime() - start;
+            if (sampled || duration >= slowThresholdNanos) {
+                buffer.add(
+                    new CallTraceBuffer.CallTrace(
+                        joinPoint.getSignature().getDeclaringTypeName() + "." + joinPoint.getSignature().getName(),
+                        Instant.now().minusNanos(duration),
+                        duration,
+                        Thread.currentThread().getName(),
+                        thrown != null ? thrown.getClass().getName() : null,
+                        sampled
+                    )
+                );
+            }
+        }
+    }
+
+    /**
+     * @return the sample rate of the longest package or class name prefix matching the class.
+     */
+    double sampleRate(Class<?> type) {
+        String name = type.getName();
+        String match = null;
+        for (String prefix : sampleRates.keySet()) {
+            boolean matches = name.equals(prefix) || (name.startsWith(prefix) && name.charAt(prefix.length()) == '.');
+            if (matches && (match == null || prefix.length() > match.length())) {
+                match = prefix;
+            }
+        }
+        return match != null ? sampleRates.get(match) : defaultSampleRate;
+    }
+}
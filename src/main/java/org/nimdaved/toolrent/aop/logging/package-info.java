@@ -1,4 +1,4 @@
 /**
- * Logging aspect.
+ * Logging and call tracing aspects.
  */
 package org.nimdaved.toolrent.aop.logging;
@@ -1,5 +1,9 @@
 package org.nimdaved.toolrent.config;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -13,12 +17,84 @@ public class ApplicationProperties {
 
     private final Liquibase liquibase = new Liquibase();
 
+    private final Calendar calendar = new Calendar();
+
+    private final RateTable rateTable = new RateTable();
+
+    private final Quote quote = new Quote();
+
+    private final Reservation reservation = new Reservation();
+
+    private final AgreementPipeline agreementPipeline = new AgreementPipeline();
+
+    private final Outbox outbox = new Outbox();
+
+    private final Cache cache = new Cache();
+
+    private final InventoryAvailability inventoryAvailability = new InventoryAvailability();
+
+    private final Allocation allocation = new Allocation();
+
+    private final RentalExpiry rentalExpiry = new RentalExpiry();
+
+    private final Idempotency idempotency = new Idempotency();
+
+    private final Tracing tracing = new Tracing();
+
     // jhipster-needle-application-properties-property
 
     public Liquibase getLiquibase() {
         return liquibase;
     }
 
+    public Calendar getCalendar() {
+        return calendar;
+    }
+
+    public RateTable getRateTable() {
+        return rateTable;
+    }
+
+    public Quote getQuote() {
+        return quote;
+    }
+
+    public Reservation getReservation() {
+        return reservation;
+    }
+
+    public AgreementPipeline getAgreementPipeline() {
+        return agreementPipeline;
+    }
+
+    public Outbox getOutbox() {
+        return outbox;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public InventoryAvailability getInventoryAvailability() {
+        return inventoryAvailability;
+    }
+
+    public Allocation getAllocation() {
+        return allocation;
+    }
+
+    public RentalExpiry getRentalExpiry() {
+        return rentalExpiry;
+    }
+
+    public Idempotency getIdempotency() {
+        return idempotency;
+    }
+
+    public Tracing getTracing() {
+        return tracing;
+    }
+
     // jhipster-needle-application-properties-property-getter
 
     public static class Liquibase {
@@ -33,5 +109,598 @@ public class ApplicationProperties {
             this.asyncStart = asyncStart;
         }
     }
+
+    public static class Calendar {
+
+        /**
+         * Number of past years covered by the precomputed holiday/weekend calendar.
+         */
+        private int yearsBack = 1;
+
+        /**
+         * Number of future years covered by the precomputed holiday/weekend calendar.
+         */
+        private int yearsAhead = 5;
+
+        /**
+         * Interval between calendar snapshot reloads, picks up holiday changes made through other nodes.
+         */
+        private Duration refreshInterval = Duration.ofMinutes(5);
+
+        public int getYearsBack() {
+            return yearsBack;
+        }
+
+        public void setYearsBack(int yearsBack) {
+            this.yearsBack = yearsBack;
+        }
+
+        public int getYearsAhead() {
+            return yearsAhead;
+        }
+
+        public void setYearsAhead(int yearsAhead) {
+            this.yearsAhead = yearsAhead;
+        }
+
+        public Duration getRefreshInterval() {
+            return refreshInterval;
+        }
+
+        public void setRefreshInterval(Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+        }
+    }
+
+    public static class RateTable {
+
+        /**
+         * Interval between charge rate table reloads, picks up charge changes made through other nodes.
+         */
+        private Duration refreshInterval = Duration.ofMinutes(5);
+
+        public Duration getRefreshInterval() {
+            return refreshInterval;
+        }
+
+        public void setRefreshInterval(Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+        }
+    }
+
+    public static class Quote {
+
+        /**
+         * Maximum number of rental requests priced in one bulk quote call.
+         */
+        private int maxBatchSize = 10_000;
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+    }
+
+    public static class Reservation {
+
+        /**
+         * Enables in-process admission control of tool reservations.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Number of lock stripes tool codes are mapped onto.
+         */
+        private int stripes = 64;
+
+        /**
+         * Number of reservation transactions of one stripe in flight at the same time.
+         */
+        private int permitsPerStripe = 1;
+
+        /**
+         * Maximum time a reservation waits for admission before it is rejected.
+         */
+        private Duration waitTimeout = Duration.ofMillis(500);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getStripes() {
+            return stripes;
+        }
+
+        public void setStripes(int stripes) {
+            this.stripes = stripes;
+        }
+
+        public int getPermitsPerStripe() {
+            return permitsPerStripe;
+        }
+
+        public void setPermitsPerStripe(int permitsPerStripe) {
+            this.permitsPerStripe = permitsPerStripe;
+        }
+
+        public Duration getWaitTimeout() {
+            return waitTimeout;
+        }
+
+        public void setWaitTimeout(Duration waitTimeout) {
+            this.waitTimeout = waitTimeout;
+        }
+    }
+
+    public static class AgreementPipeline {
+
+        /**
+         * Generate rental agreements asynchronously, otherwise on the thread committing the rental.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Number of rentals waiting for generation before producers generate on their own thread.
+         */
+        private int queueCapacity = 1000;
+
+        /**
+         * Number of worker threads rendering and saving agreements in parallel.
+         */
+        private int workers = 2;
+
+        /**
+         * Maximum number of agreements saved in one transaction, aligned with hibernate.jdbc.batch_size.
+         */
+        private int batchSize = 25;
+
+        /**
+         * Maximum time a worker waits for a batch to fill up.
+         */
+        private Duration maxLinger = Duration.ofMillis(20);
+
+        /**
+         * Number of attempts to save a batch before it is left to the outbox dispatcher.
+         */
+        private int maxAttempts = 3;
+
+        /**
+         * Delay before retrying a failed batch, multiplied by the attempt number.
+         */
+        private Duration retryBackoff = Duration.ofMillis(200);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getWorkers() {
+            return workers;
+        }
+
+        public void setWorkers(int workers) {
+            this.workers = workers;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getMaxLinger() {
+            return maxLinger;
+        }
+
+        public void setMaxLinger(Duration maxLinger) {
+            this.maxLinger = maxLinger;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public Duration getRetryBackoff() {
+            return retryBackoff;
+        }
+
+        public void setRetryBackoff(Duration retryBackoff) {
+            this.retryBackoff = retryBackoff;
+        }
+    }
+
+    public static class Outbox {
+
+        /**
+         * Interval between polls of the outbox.
+         */
+        private Duration pollInterval = Duration.ofSeconds(1);
+
+        /**
+         * Time an event is left to in-process delivery after commit, before the dispatcher picks it up.
+         */
+        private Duration dispatchDelay = Duration.ofSeconds(10);
+
+        /**
+         * Time an event claimed by a dispatcher is hidden from other dispatchers, before it is delivered again.
+         */
+        private Duration lease = Duration.ofMinutes(1);
+
+        /**
+         * Maximum number of events claimed and delivered at once.
+         */
+        private int batchSize = 100;
+
+        /**
+         * Number of deliveries of an event before it is parked in the outbox for manual inspection.
+         */
+        private int maxAttempts = 10;
+
+        public Duration getPollInterval() {
+            return pollInterval;
+        }
+
+        public void setPollInterval(Duration pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+
+        public Duration getDispatchDelay() {
+            return dispatchDelay;
+        }
+
+        public void setDispatchDelay(Duration dispatchDelay) {
+            this.dispatchDelay = dispatchDelay;
+        }
+
+        public Duration getLease() {
+            return lease;
+        }
+
+        public void setLease(Duration lease) {
+            this.lease = lease;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+    }
+
+    public static class Cache {
+
+        /**
+         * Settings of regions which are not configured in {@code regions}.
+         */
+        private final Region defaults = new Region();
+
+        /**
+         * Settings per second-level cache region, by entity name, e.g. {@code tool}.
+         */
+        private final Map<String, Region> regions = new HashMap<>();
+
+        public Region getDefaults() {
+            return defaults;
+        }
+
+        public Map<String, Region> getRegions() {
+            return regions;
+        }
+
+        public Region getRegion(String name) {
+            return regions.getOrDefault(name, defaults);
+        }
+
+        public static class Region {
+
+            /**
+             * Time an entry is kept after it was written, bounds the staleness of changes made by other instances.
+             */
+            private Duration timeToLive = Duration.ofHours(1);
+
+            /**
+             * Maximum number of entries of the region.
+             */
+            private long maxEntries = 1000;
+
+            public Duration getTimeToLive() {
+                return timeToLive;
+            }
+
+            public void setTimeToLive(Duration timeToLive) {
+                this.timeToLive = timeToLive;
+            }
+
+            public long getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(long maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+        }
+    }
+
+    public static class InventoryAvailability {
+
+        /**
+         * Interval between reconciliations of the in-memory availability view with the database.
+         */
+        private Duration reconcileInterval = Duration.ofMinutes(1);
+
+        public Duration getReconcileInterval() {
+            return reconcileInterval;
+        }
+
+        public void setReconcileInterval(Duration reconcileInterval) {
+            this.reconcileInterval = reconcileInterval;
+        }
+    }
+
+    public static class Allocation {
+
+        /**
+         * Order in which tools of the requested type are tried when a rental names a tool type instead of a tool code.
+         */
+        private Strategy strategy = Strategy.LEAST_LOADED;
+
+        /**
+         * Maximum number of candidate tools loaded and tried per attempt.
+         */
+        private int candidateLimit = 16;
+
+        /**
+         * Number of candidate queries before the allocation fails, when all candidates were taken concurrently.
+         */
+        private int maxAttempts = 3;
+
+        public Strategy getStrategy() {
+            return strategy;
+        }
+
+        public void setStrategy(Strategy strategy) {
+            this.strategy = strategy;
+        }
+
+        public int getCandidateLimit() {
+            return candidateLimit;
+        }
+
+        public void setCandidateLimit(int candidateLimit) {
+            this.candidateLimit = candidateLimit;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public enum Strategy {
+            /**
+             * Tools of inventories with the most available items first, at the requested location if any.
+             */
+            LEAST_LOADED,
+            /**
+             * Tools at the requested location first, then at any other location.
+             */
+            NEAREST_LOCATION,
+            /**
+             * Tools in turn by code, at the requested location if any, so concurrent rentals spread over the inventories.
+             */
+            ROUND_ROBIN,
+        }
+    }
+
+    public static class RentalExpiry {
+
+        /**
+         * Time after which a rental still {@code CREATED}, and its {@code PENDING} agreement, expire.
+         */
+        private Duration timeout = Duration.ofHours(24);
+
+        /**
+         * Interval between sweeps for expired rentals.
+         */
+        private Duration sweepInterval = Duration.ofMinutes(5);
+
+        /**
+         * Number of rentals expired per transaction.
+         */
+        private int chunkSize = 100;
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public Duration getSweepInterval() {
+            return sweepInterval;
+        }
+
+        public void setSweepInterval(Duration sweepInterval) {
+            this.sweepInterval = sweepInterval;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    public static class Idempotency {
+
+        /**
+         * Path patterns of the POST endpoints which honour the {@code Idempotency-Key} header.
+         */
+        private List<String> paths = List.of("/api/rentals", "/api/rental-agreements/*/accept", "/api/rental-agreements/*/reject");
+
+        /**
+         * Maximum number of responses kept in memory, older ones are read from the database.
+         */
+        private long maxEntries = 10000;
+
+        /**
+         * Time a response is replayed to retries of the request.
+         */
+        private Duration retention = Duration.ofHours(24);
+
+        /**
+         * Time after which a request still in progress, e.g. of a stopped instance, may be run again.
+         * A request which takes longer can no longer store its response and is rolled back.
+         */
+        private Duration lease = Duration.ofMinutes(1);
+
+        /**
+         * Interval between deletions of expired requests from the database.
+         */
+        private Duration purgeInterval = Duration.ofHours(1);
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public void setPaths(List<String> paths) {
+            this.paths = paths;
+        }
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public Duration getRetention() {
+            return retention;
+        }
+
+        public void setRetention(Duration retention) {
+            this.retention = retention;
+        }
+
+        public Duration getLease() {
+            return lease;
+        }
+
+        public void setLease(Duration lease) {
+            this.lease = lease;
+        }
+
+        public Duration getPurgeInterval() {
+            return purgeInterval;
+        }
+
+        public void setPurgeInterval(Duration purgeInterval) {
+            this.purgeInterval = purgeInterval;
+        }
+    }
+
+    public static class Tracing {
+
+        /**
+         * Whether calls of repositories, services and REST controllers are traced into the {@code calltraces} endpoint.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Number of most recent calls kept, rounded up to a power of two.
+         */
+        private int bufferSize = 1024;
+
+        /**
+         * Share of the calls traced, of classes not matched by {@code sample-rates}.
+         */
+        private double defaultSampleRate = 0.0;
+
+        /**
+         * Share of the calls traced, by package or class name prefix, the longest matching prefix applies.
+         */
+        private final Map<String, Double> sampleRates = new HashMap<>();
+
+        /**
+         * Calls taking at least this long are traced whether sampled or not.
+         */
+        private Duration slowThreshold = Duration.ofMillis(500);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        public double getDefaultSampleRate() {
+            return defaultSampleRate;
+        }
+
+        public void setDefaultSampleRate(double defaultSampleRate) {
+            this.defaultSampleRate = defaultSampleRate;
+        }
+
+        public Map<String, Double> getSampleRates() {
+            return sampleRates;
+        }
+
+        public Duration getSlowThreshold() {
+            return slowThreshold;
+        }
+
+        public void setSlowThreshold(Duration slowThreshold) {
+            this.slowThreshold = slowThreshold;
+        }
+    }
     // jhipster-needle-application-properties-property-class
 }
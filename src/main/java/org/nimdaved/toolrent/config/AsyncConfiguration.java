@@ -6,15 +6,25 @@ import org.slf4j.LoggerFactory;
 import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
 import org.springframework.aop.interceptor.SimpleAsyncUncaughtExceptionHandler;
 import org.springframework.boot.autoconfigure.task.TaskExecutionProperties;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import tech.jhipster.async.ExceptionHandlingAsyncTaskExecutor;
 
+/**
+ * Executors of {@code @Async} methods and {@code @Scheduled} tasks.
+ * <p>
+ * With {@code spring.threads.virtual.enabled}, {@code @Async} methods run on a virtual thread each, bounded by
+ * {@code spring.task.execution.simple.concurrency-limit} if set, and Spring Boot configures the task scheduler
+ * to run scheduled tasks on virtual threads.
+ */
 @Configuration
 @EnableAsync
 @EnableScheduling
@@ -25,13 +35,26 @@ public class AsyncConfiguration implements AsyncConfigurer {
 
     private final TaskExecutionProperties taskExecutionProperties;
 
-    public AsyncConfiguration(TaskExecutionProperties taskExecutionProperties) {
+    private final Environment env;
+
+    public AsyncConfiguration(TaskExecutionProperties taskExecutionProperties, Environment env) {
         this.taskExecutionProperties = taskExecutionProperties;
+        this.env = env;
     }
 
     @Override
     @Bean(name = "taskExecutor")
     public Executor getAsyncExecutor() {
+        if (Threading.VIRTUAL.isActive(env)) {
+            LOG.debug("Creating Async Task Executor with virtual threads");
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(taskExecutionProperties.getThreadNamePrefix());
+            executor.setVirtualThreads(true);
+            Integer concurrencyLimit = taskExecutionProperties.getSimple().getConcurrencyLimit();
+            if (concurrencyLimit != null) {
+                executor.setConcurrencyLimit(concurrencyLimit);
+            }
+            return new ExceptionHandlingAsyncTaskExecutor(executor);
+        }
         LOG.debug("Creating Async Task Executor");
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(taskExecutionProperties.getPool().getCoreSize());
@@ -0,0 +1,68 @@
+package org.nimdaved.toolrent.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import java.util.List;
+import java.util.OptionalLong;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.nimdaved.toolrent.domain.Tool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Caffeine backed JCache regions of the Hibernate second-level cache.
+ * <p>
+ * Only rarely modified reference data which is looked up by id is cached. Entity writes through JPA update the regions in the writing transaction,
+ * changes made by other instances are picked up once the entry expires. Region statistics are enabled,
+ * so hit and miss counts are exported as {@code cache.gets} meters.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfiguration {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CacheConfiguration.class);
+
+    /**
+     * Cached entities. {@code ToolInventory} counters are changed by bulk updates on every reservation,
+     * which evict the whole region, so it is not cached. {@code Charge} and {@code Holiday} are read as a whole
+     * into the in-memory rate table and calendar snapshot, which an entity cache would not serve.
+     */
+    private static final List<Class<?>> CACHED_ENTITIES = List.of(Tool.class);
+
+    private final ApplicationProperties.Cache properties;
+
+    public CacheConfiguration(ApplicationProperties applicationProperties) {
+        this.properties = applicationProperties.getCache();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernatePropertiesCustomizer(javax.cache.CacheManager cacheManager) {
+        return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+    }
+
+    @Bean
+    public JCacheManagerCustomizer cacheManagerCustomizer() {
+        return cm -> CACHED_ENTITIES.forEach(entity -> createCache(cm, entity));
+    }
+
+    private void createCache(javax.cache.CacheManager cm, Class<?> entity) {
+        var region = properties.getRegion(entity.getSimpleName().toLowerCase());
+        LOG.debug("Creating cache region {}: {} entries for {}", entity.getName(), region.getMaxEntries(), region.getTimeToLive());
+
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(region.getMaxEntries()));
+        configuration.setExpireAfterWrite(OptionalLong.of(region.getTimeToLive().toNanos()));
+        configuration.setStatisticsEnabled(true);
+
+        javax.cache.Cache<Object, Object> cache = cm.getCache(entity.getName());
+        if (cache != null) {
+            cache.clear();
+        } else {
+            cm.createCache(entity.getName(), configuration);
+        }
+    }
+}
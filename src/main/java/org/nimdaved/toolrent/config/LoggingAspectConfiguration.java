@@ -1,6 +1,10 @@
 package org.nimdaved.toolrent.config;
 
+import org.nimdaved.toolrent.aop.logging.CallTraceBuffer;
 import org.nimdaved.toolrent.aop.logging.LoggingAspect;
+import org.nimdaved.toolrent.aop.logging.TracingAspect;
+import org.nimdaved.toolrent.management.CallTraceEndpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.*;
 import org.springframework.core.env.Environment;
 import tech.jhipster.config.JHipsterConstants;
@@ -14,4 +18,27 @@ public class LoggingAspectConfiguration {
     public LoggingAspect loggingAspect(Environment env) {
         return new LoggingAspect(env);
     }
+
+    /**
+     * Sampled call tracing, in any profile, see {@link ApplicationProperties.Tracing}.
+     */
+    @Configuration
+    @ConditionalOnProperty(prefix = "application.tracing", name = "enabled", havingValue = "true")
+    static class TracingConfiguration {
+
+        @Bean
+        public CallTraceBuffer callTraceBuffer(ApplicationProperties applicationProperties) {
+            return new CallTraceBuffer(applicationProperties.getTracing().getBufferSize());
+        }
+
+        @Bean
+        public TracingAspect tracingAspect(ApplicationProperties applicationProperties, CallTraceBuffer callTraceBuffer) {
+            return new TracingAspect(applicationProperties, callTraceBuffer);
+        }
+
+        @Bean
+        public CallTraceEndpoint callTraceEndpoint(CallTraceBuffer callTraceBuffer) {
+            return new CallTraceEndpoint(callTraceBuffer);
+        }
+    }
 }
@@ -0,0 +1,19 @@
+package org.nimdaved.toolrent.config;
+
+import org.nimdaved.toolrent.management.FlightRecordingEndpoint;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Management endpoints of the application, exposed under {@code /management} when listed in
+ * {@code management.endpoints.web.exposure.include}. The call trace endpoint comes with the tracing,
+ * see {@link LoggingAspectConfiguration}.
+ */
+@Configuration
+public class ManagementConfiguration {
+
+    @Bean
+    public FlightRecordingEndpoint flightRecordingEndpoint() {
+        return new FlightRecordingEndpoint();
+    }
+}
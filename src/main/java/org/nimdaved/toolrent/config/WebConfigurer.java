@@ -8,6 +8,8 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.embedded.undertow.UndertowServletWebServerFactory;
 import org.springframework.boot.web.server.*;
 import org.springframework.boot.web.servlet.ServletContextInitializer;
 import org.springframework.boot.web.servlet.server.ConfigurableServletWebServerFactory;
@@ -15,6 +17,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.Profiles;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -59,6 +62,22 @@ public class WebConfigurer implements ServletContextInitializer, WebServerFactor
     public void customize(WebServerFactory server) {
         // When running in an IDE or with ./gradlew bootRun, set location of the static web assets.
         setLocationForStaticAssets(server);
+        setVirtualThreadExecutor(server);
+    }
+
+    /**
+     * With {@code spring.threads.virtual.enabled}, dispatch blocking requests to a virtual thread per request
+     * instead of the fixed Undertow worker pool, so requests waiting on the database do not exhaust the workers.
+     */
+    private void setVirtualThreadExecutor(WebServerFactory server) {
+        if (server instanceof UndertowServletWebServerFactory undertow && Threading.VIRTUAL.isActive(env)) {
+            LOG.info("Dispatching requests to virtual threads");
+            undertow.addDeploymentInfoCustomizers(deploymentInfo -> {
+                var executor = new VirtualThreadTaskExecutor("toolrent-http-");
+                deploymentInfo.setExecutor(executor);
+                deploymentInfo.setAsyncExecutor(executor);
+            });
+        }
     }
 
     private void setLocationForStaticAssets(WebServerFactory server) {
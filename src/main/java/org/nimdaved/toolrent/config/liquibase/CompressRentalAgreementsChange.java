@@ -0,0 +1,113 @@
+package org.nimdaved.toolrent.config.liquibase;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.DatabaseException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+import org.nimdaved.toolrent.domain.CompressedTextConverter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Copies the rendered agreements of {@code rental_agreement.agreement} into {@code agreement_data}, compressed by
+ * {@link CompressedTextConverter}.
+ * <p>
+ * Rows are compressed in chunks of {@code chunkSize} by id, each committed on its own, so the memory and the locks held stay
+ * bounded and an interrupted migration resumes with the rows not compressed yet. The change set must not run in a transaction.
+ */
+public class CompressRentalAgreementsChange implements CustomTaskChange {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CompressRentalAgreementsChange.class);
+
+    private static final String SELECT_CHUNK =
+        "SELECT id, agreement FROM rental_agreement WHERE agreement_data IS NULL AND id > ? ORDER BY id";
+    private static final String UPDATE_ROW = "UPDATE rental_agreement SET agreement_data = ? WHERE id = ?";
+
+    private final CompressedTextConverter converter = new CompressedTextConverter();
+
+    private int chunkSize = 500;
+    private long rowCount;
+
+    public void setChunkSize(String chunkSize) {
+        this.chunkSize = Integer.parseInt(chunkSize);
+    }
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        var connection = (JdbcConnection) database.getConnection();
+        try {
+            long lastId = 0;
+            Map<Long, byte[]> chunk;
+            do {
+                chunk = readChunk(connection, lastId);
+                writeChunk(connection, chunk);
+                connection.commit();
+                rowCount += chunk.size();
+                for (Long id : chunk.keySet()) {
+                    lastId = id;
+                }
+                LOG.debug("Compressed {} rental agreements", rowCount);
+            } while (chunk.size() == chunkSize);
+        } catch (SQLException | DatabaseException e) {
+            throw new CustomChangeException("Could not compress rental agreements", e);
+        }
+    }
+
+    private Map<Long, byte[]> readChunk(JdbcConnection connection, long lastId) throws SQLException, DatabaseException {
+        Map<Long, byte[]> chunk = new LinkedHashMap<>();
+        try (var select = connection.prepareStatement(SELECT_CHUNK)) {
+            select.setMaxRows(chunkSize);
+            select.setLong(1, lastId);
+            try (var rows = select.executeQuery()) {
+                while (rows.next()) {
+                    chunk.put(rows.getLong("id"), converter.convertToDatabaseColumn(rows.getString("agreement")));
+                }
+            }
+        }
+        return chunk;
+    }
+
+    private void writeChunk(JdbcConnection connection, Map<Long, byte[]> chunk) throws SQLException, DatabaseException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try (var update = connection.prepareStatement(UPDATE_ROW)) {
+            for (var row : chunk.entrySet()) {
+                update.setBytes(1, row.getValue());
+                update.setLong(2, row.getKey());
+                update.addBatch();
+            }
+            update.executeBatch();
+        }
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "Compressed " + rowCount + " rental agreements";
+    }
+
+    @Override
+    public void setUp() {
+        // Nothing to set up
+    }
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {
+        // No resources used
+    }
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        var errors = new ValidationErrors();
+        if (chunkSize <= 0) {
+            errors.addError("chunkSize must be positive");
+        }
+        return errors;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Liquibase custom changes migrating data which SQL alone cannot.
+ */
+package org.nimdaved.toolrent.config.liquibase;
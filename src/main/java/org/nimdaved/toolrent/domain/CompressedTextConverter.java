@@ -0,0 +1,109 @@
+package org.nimdaved.toolrent.domain;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Stores a text column as Deflate compressed UTF-8 bytes.
+ * <p>
+ * The first byte is a format marker: {@link #PLAIN} for texts which do not compress, followed by their UTF-8 bytes,
+ * or {@link #DEFLATE}, followed by the length of the text in UTF-8 bytes and the raw Deflate stream. The marker lets
+ * a later format coexist with the rows already written.
+ * <p>
+ * The stored length is checked against the size of the compressed data before allocating, so a corrupted row cannot
+ * exhaust the heap. Texts longer than {@link #MAX_INFLATED_LENGTH} bytes are stored plain.
+ */
+@Converter
+public class CompressedTextConverter implements AttributeConverter<String, byte[]> {
+
+    public static final byte PLAIN = 0;
+    public static final byte DEFLATE = 1;
+
+    /** Longest text stored compressed, in UTF-8 bytes */
+    public static final int MAX_INFLATED_LENGTH = 16 * 1024 * 1024;
+
+    /** Maximum compression ratio of Deflate */
+    private static final int MAX_DEFLATE_RATIO = 1032;
+
+    @Override
+    public byte[] convertToDatabaseColumn(String text) {
+        if (text == null) {
+            return null;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = deflate(bytes);
+        if (bytes.length <= MAX_INFLATED_LENGTH && compressed.length + Integer.BYTES < bytes.length) {
+            return ByteBuffer.allocate(1 + Integer.BYTES + compressed.length).put(DEFLATE).putInt(bytes.length).put(compressed).array();
+        }
+        return ByteBuffer.allocate(1 + bytes.length).put(PLAIN).put(bytes).array();
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (data.length == 0) {
+            throw new IllegalStateException("Missing format marker of compressed text");
+        }
+        return switch (data[0]) {
+            case PLAIN -> new String(data, 1, data.length - 1, StandardCharsets.UTF_8);
+            case DEFLATE -> new String(inflate(data), StandardCharsets.UTF_8);
+            default -> throw new IllegalStateException("Unknown format marker of compressed text: " + data[0]);
+        };
+    }
+
+    private static byte[] deflate(byte[] bytes) {
+        var deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            var out = new ByteArrayOutputStream(bytes.length / 2 + 16);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data) {
+        int offset = 1 + Integer.BYTES;
+        if (data.length < offset) {
+            throw new IllegalStateException("Truncated compressed text: missing length");
+        }
+        int length = ByteBuffer.wrap(data, 1, Integer.BYTES).getInt();
+        if (length < 0 || length > MAX_INFLATED_LENGTH || length > (long) (data.length - offset) * MAX_DEFLATE_RATIO) {
+            throw new IllegalStateException("Invalid length of compressed text: " + length + " bytes from " + data.length);
+        }
+        var inflater = new Inflater(true);
+        try {
+            inflater.setInput(data, offset, data.length - offset);
+            byte[] bytes = new byte[length];
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                int n = inflater.inflate(bytes, read, length - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != length) {
+                throw new IllegalStateException("Truncated compressed text: " + read + " of " + length + " bytes");
+            }
+            return bytes;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupted compressed text", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package org.nimdaved.toolrent.domain;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A request sent with an {@code Idempotency-Key} header and its response, replayed to retries of the request
+ * until it expires.
+ */
+@Entity
+@Table(name = "idempotent_request")
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class IdempotentRequest implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
+    @Column(name = "id")
+    private Long id;
+
+    /**
+     * Key sent by the client, prefixed by the principal, so keys of different users do not collide
+     */
+    @NotNull
+    @Size(max = 255)
+    @Column(name = "idempotency_key", length = 255, nullable = false, unique = true)
+    private String idempotencyKey;
+
+    /**
+     * Hash of the method, path and body of the request, a key is not reused for a different request
+     */
+    @NotNull
+    @Column(name = "fingerprint", length = 64, nullable = false)
+    private String fingerprint;
+
+    /**
+     * Status of the stored response, {@code null} while the request is in progress
+     */
+    @Column(name = "response_status")
+    private Integer responseStatus;
+
+    @Column(name = "response_content_type")
+    private String responseContentType;
+
+    @Column(name = "response_location", length = 2048)
+    private String responseLocation;
+
+    @Lob
+    @Column(name = "response_body")
+    private String responseBody;
+
+    @NotNull
+    @Column(name = "created_date", nullable = false)
+    private Instant createdDate;
+
+    @NotNull
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public IdempotentRequest id(Long id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getIdempotencyKey() {
+        return this.idempotencyKey;
+    }
+
+    public IdempotentRequest idempotencyKey(String idempotencyKey) {
+        this.setIdempotencyKey(idempotencyKey);
+        return this;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public String getFingerprint() {
+        return this.fingerprint;
+    }
+
+    public IdempotentRequest fingerprint(String fingerprint) {
+        this.setFingerprint(fingerprint);
+        return this;
+    }
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public Integer getResponseStatus() {
+        return this.responseStatus;
+    }
+
+    public IdempotentRequest responseStatus(Integer responseStatus) {
+        this.setResponseStatus(responseStatus);
+        return this;
+    }
+
+    public void setResponseStatus(Integer responseStatus) {
+        this.responseStatus = responseStatus;
+    }
+
+    public String getResponseContentType() {
+        return this.responseContentType;
+    }
+
+    public IdempotentRequest responseContentType(String responseContentType) {
+        this.setResponseContentType(responseContentType);
+        return this;
+    }
+
+    public void setResponseContentType(String responseContentType) {
+        this.responseContentType = responseContentType;
+    }
+
+    public String getResponseLocation() {
+        return this.responseLocation;
+    }
+
+    public IdempotentRequest responseLocation(String responseLocation) {
+        this.setResponseLocation(responseLocation);
+        return this;
+    }
+
+    public void setResponseLocation(String responseLocation) {
+        this.responseLocation = responseLocation;
+    }
+
+    public String getResponseBody() {
+        return this.responseBody;
+    }
+
+    public IdempotentRequest responseBody(String responseBody) {
+        this.setResponseBody(responseBody);
+        return this;
+    }
+
+    public void setResponseBody(String responseBody) {
+        this.responseBody = responseBody;
+    }
+
+    public Instant getCreatedDate() {
+        return this.createdDate;
+    }
+
+    public IdempotentRequest createdDate(Instant createdDate) {
+        this.setCreatedDate(createdDate);
+        return this;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    public Instant getExpiresAt() {
+        return this.expiresAt;
+    }
+
+    public IdempotentRequest expiresAt(Instant expiresAt) {
+        this.setExpiresAt(expiresAt);
+        return this;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IdempotentRequest)) {
+            return false;
+        }
+        return getId() != null && getId().equals(((IdempotentRequest) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "IdempotentRequest{" +
+            "id=" + getId() +
+            ", idempotencyKey='" + getIdempotencyKey() + "'" +
+            ", fingerprint='" + getFingerprint() + "'" +
+            ", responseStatus=" + getResponseStatus() +
+            ", createdDate='" + getCreatedDate() + "'" +
+            ", expiresAt='" + getExpiresAt() + "'" +
+            "}";
+    }
+}
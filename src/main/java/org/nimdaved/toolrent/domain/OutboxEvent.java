@@ -0,0 +1,154 @@
+package org.nimdaved.toolrent.domain;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import java.io.Serializable;
+import java.time.Instant;
+import org.nimdaved.toolrent.domain.enumeration.OutboxEventType;
+
+/**
+ * An event recorded in the same transaction as the state change it describes,
+ * deleted once its effects are applied.
+ */
+@Entity
+@Table(name = "outbox_event")
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class OutboxEvent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
+    @Column(name = "id")
+    private Long id;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false)
+    private OutboxEventType eventType;
+
+    @NotNull
+    @Column(name = "rental_id", nullable = false)
+    private Long rentalId;
+
+    @NotNull
+    @Column(name = "created_date", nullable = false)
+    private Instant createdDate;
+
+    @NotNull
+    @Column(name = "available_at", nullable = false)
+    private Instant availableAt;
+
+    @NotNull
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public OutboxEvent id(Long id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public OutboxEventType getEventType() {
+        return this.eventType;
+    }
+
+    public OutboxEvent eventType(OutboxEventType eventType) {
+        this.setEventType(eventType);
+        return this;
+    }
+
+    public void setEventType(OutboxEventType eventType) {
+        this.eventType = eventType;
+    }
+
+    public Long getRentalId() {
+        return this.rentalId;
+    }
+
+    public OutboxEvent rentalId(Long rentalId) {
+        this.setRentalId(rentalId);
+        return this;
+    }
+
+    public void setRentalId(Long rentalId) {
+        this.rentalId = rentalId;
+    }
+
+    public Instant getCreatedDate() {
+        return this.createdDate;
+    }
+
+    public OutboxEvent createdDate(Instant createdDate) {
+        this.setCreatedDate(createdDate);
+        return this;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    public Instant getAvailableAt() {
+        return this.availableAt;
+    }
+
+    public OutboxEvent availableAt(Instant availableAt) {
+        this.setAvailableAt(availableAt);
+        return this;
+    }
+
+    public void setAvailableAt(Instant availableAt) {
+        this.availableAt = availableAt;
+    }
+
+    public Integer getAttempts() {
+        return this.attempts;
+    }
+
+    public OutboxEvent attempts(Integer attempts) {
+        this.setAttempts(attempts);
+        return this;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof OutboxEvent)) {
+            return false;
+        }
+        return getId() != null && getId().equals(((OutboxEvent) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "OutboxEvent{" +
+            "id=" + getId() +
+            ", eventType='" + getEventType() + "'" +
+            ", rentalId=" + getRentalId() +
+            ", createdDate='" + getCreatedDate() + "'" +
+            ", availableAt='" + getAvailableAt() + "'" +
+            ", attempts=" + getAttempts() +
+            "}";
+    }
+}
@@ -1,26 +1,37 @@
 package org.nimdaved.toolrent.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.Optional;
 import org.nimdaved.toolrent.domain.enumeration.RentalStatus;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 /**
  * A Rental.
  */
 @Entity
 @Table(name = "rental")
+@NamedEntityGraph(name = Rental.WITH_TOOL_AND_CUSTOMER, attributeNodes = { @NamedAttributeNode("tool"), @NamedAttributeNode("customer") })
+@EntityListeners(AuditingEntityListener.class)
 @SuppressWarnings("common-java:DuplicatedBlocks")
 public class Rental implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Fetch plan of the rental list and detail views, which render the tool and the customer of each rental.
+     */
+    public static final String WITH_TOOL_AND_CUSTOMER = "Rental.withToolAndCustomer";
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
     @SequenceGenerator(name = "sequenceGenerator")
@@ -66,15 +77,34 @@ public class Rental implements Serializable {
     @JsonIgnoreProperties(value = { "toolInventory" }, allowSetters = true)
     private Tool tool;
 
-    //TODO: add next to fields to the entity model
-    transient int chargedDaysCount;
-    transient BigDecimal dailyCharges;
+    /**
+     * Time of the last status change, stale {@code CREATED} rentals and {@code PENDING} agreements expire after a timeout
+     */
+    @LastModifiedDate
+    @Column(name = "last_modified_at", nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Instant lastModifiedAt;
+
+    /**
+     * Number of charged days priced when the rental was created, printed on the agreement
+     */
+    @Column(name = "charged_days")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Integer chargedDaysCount;
+
+    /**
+     * Daily charge of the tool type when the rental was created, printed on the agreement
+     */
+    @DecimalMin(value = "0")
+    @Column(name = "daily_charge", precision = 21, scale = 2)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private BigDecimal dailyCharges;
 
-    public int getChargedDaysCount() {
+    public Integer getChargedDaysCount() {
         return chargedDaysCount;
     }
 
-    public void setChargedDaysCount(int chargedDaysCount) {
+    public void setChargedDaysCount(Integer chargedDaysCount) {
         this.chargedDaysCount = chargedDaysCount;
     }
 
@@ -192,6 +222,14 @@ public class Rental implements Serializable {
         return this;
     }
 
+    public Instant getLastModifiedAt() {
+        return this.lastModifiedAt;
+    }
+
+    public void setLastModifiedAt(Instant lastModifiedAt) {
+        this.lastModifiedAt = lastModifiedAt;
+    }
+
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
     @Override
@@ -230,7 +268,10 @@ public class Rental implements Serializable {
             ", dayCount=" + getDayCount() +
             ", discountPercent=" + getDiscountPercent() +
             ", status='" + getStatus() + "'" +
+            ", lastModifiedAt='" + getLastModifiedAt() + "'" +
             ", chargeAmount=" + getChargeAmount() +
+            ", chargedDaysCount=" + getChargedDaysCount() +
+            ", dailyCharges=" + getDailyCharges() +
             "}";
     }
 }
@@ -2,28 +2,42 @@ package org.nimdaved.toolrent.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import java.io.Serializable;
+import java.time.Instant;
 import org.nimdaved.toolrent.domain.enumeration.RentalAgreementStatus;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 /**
  * A RentalAgreement.
  */
 @Entity
 @Table(name = "rental_agreement")
+@NamedEntityGraph(name = RentalAgreement.WITH_RENTAL, attributeNodes = @NamedAttributeNode("rental"))
+@EntityListeners(AuditingEntityListener.class)
 @SuppressWarnings("common-java:DuplicatedBlocks")
 public class RentalAgreement implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Fetch plan of the agreement list and detail views, which render the rental of each agreement.
+     */
+    public static final String WITH_RENTAL = "RentalAgreement.withRental";
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
     @SequenceGenerator(name = "sequenceGenerator")
     @Column(name = "id")
     private Long id;
 
-    @Lob
+    /**
+     * Rendered agreement, stored compressed by {@link CompressedTextConverter}
+     */
+    @Convert(converter = CompressedTextConverter.class)
     @Column(name = "agreement", nullable = false)
     private String agreement;
 
@@ -37,6 +51,14 @@ public class RentalAgreement implements Serializable {
     @JoinColumn(name = "rental_id", referencedColumnName = "id", unique = true)
     private Rental rental;
 
+    /**
+     * Time of the last status change, stale {@code CREATED} rentals and {@code PENDING} agreements expire after a timeout
+     */
+    @LastModifiedDate
+    @Column(name = "last_modified_at", nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Instant lastModifiedAt;
+
     // jhipster-needle-entity-add-field - JHipster will add fields here
 
     public Long getId() {
@@ -91,6 +113,14 @@ public class RentalAgreement implements Serializable {
         return this;
     }
 
+    public Instant getLastModifiedAt() {
+        return this.lastModifiedAt;
+    }
+
+    public void setLastModifiedAt(Instant lastModifiedAt) {
+        this.lastModifiedAt = lastModifiedAt;
+    }
+
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
     @Override
@@ -117,6 +147,7 @@ public class RentalAgreement implements Serializable {
             "id=" + getId() +
             ", agreement='" + getAgreement() + "'" +
             ", status='" + getStatus() + "'" +
+            ", lastModifiedAt='" + getLastModifiedAt() + "'" +
             "}";
     }
 }
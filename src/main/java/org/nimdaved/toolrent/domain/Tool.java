@@ -4,6 +4,8 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import java.io.Serializable;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.nimdaved.toolrent.domain.enumeration.ToolType;
 import org.springframework.data.domain.Persistable;
 
@@ -12,6 +14,7 @@ import org.springframework.data.domain.Persistable;
  */
 @Entity
 @Table(name = "tool")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @JsonIgnoreProperties(value = { "new", "id" })
 @SuppressWarnings("common-java:DuplicatedBlocks")
 public class Tool implements Serializable, Persistable<String> {
@@ -1,12 +1,15 @@
 package org.nimdaved.toolrent.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import java.io.Serializable;
 import java.util.HashSet;
 import java.util.Set;
+import org.hibernate.annotations.Generated;
+import org.hibernate.generator.EventType;
 
 /**
  * The concept of ToolInventory is not specified in the requirents.
@@ -52,6 +55,14 @@ public class ToolInventory implements Serializable {
     @Column(name = "on_hold_count", nullable = false)
     private Integer onHoldCount;
 
+    /**
+     * stockCount - checkedOutCount - onHoldCount, computed by the database so it can be indexed
+     */
+    @Generated(event = { EventType.INSERT, EventType.UPDATE })
+    @Column(name = "available_count", insertable = false, updatable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Integer availableCount;
+
     @OneToMany(fetch = FetchType.LAZY, mappedBy = "toolInventory")
     @JsonIgnoreProperties(value = { "toolInventory" }, allowSetters = true)
     private Set<Tool> tools = new HashSet<>();
@@ -123,6 +134,10 @@ public class ToolInventory implements Serializable {
         this.onHoldCount = onHoldCount;
     }
 
+    public Integer getAvailableCount() {
+        return this.availableCount;
+    }
+
     public Set<Tool> getTools() {
         return this.tools;
     }
@@ -182,6 +197,7 @@ public class ToolInventory implements Serializable {
             ", stockCount=" + getStockCount() +
             ", checkedOutCount=" + getCheckedOutCount() +
             ", onHoldCount=" + getOnHoldCount() +
+            ", availableCount=" + getAvailableCount() +
             "}";
     }
 }
@@ -0,0 +1,8 @@
+package org.nimdaved.toolrent.domain.enumeration;
+
+/**
+ * The OutboxEventType enumeration, events with effects applied after the recording transaction commits.
+ */
+public enum OutboxEventType {
+    RENTAL_CREATED,
+}
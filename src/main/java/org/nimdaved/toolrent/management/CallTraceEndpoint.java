@@ -0,0 +1,61 @@
+package org.nimdaved.toolrent.management;
+
+import java.time.Duration;
+import java.util.List;
+import org.nimdaved.toolrent.aop.logging.CallTraceBuffer;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+
+/**
+ * {@code /management/calltraces}: the most recent sampled and slow calls traced by the
+ * {@link org.nimdaved.toolrent.aop.logging.TracingAspect}, most recent first.
+ * <p>
+ * {@code ?minDuration=100} returns the calls which took at least 100 ms, {@code ?limit=} bounds the number of calls.
+ */
+@Endpoint(id = "calltraces")
+public class CallTraceEndpoint {
+
+    private static final int DEFAULT_LIMIT = 100;
+
+    private final CallTraceBuffer buffer;
+
+    public CallTraceEndpoint(CallTraceBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @ReadOperation
+    public CallTraces traces(@Nullable Long minDuration, @Nullable Integer limit) {
+        var traces = buffer.snapshot(
+            Duration.ofMillis(minDuration != null ? minDuration : 0),
+            limit != null ? Math.max(0, limit) : DEFAULT_LIMIT
+        );
+        return new CallTraces(buffer.getCapacity(), buffer.getTotal(), traces.stream().map(CallTrace::of).toList());
+    }
+
+    @DeleteOperation
+    public void clear() {
+        buffer.clear();
+    }
+
+    /**
+     * @param capacity the number of calls kept.
+     * @param total the number of calls traced since the start.
+     * @param traces the calls returned.
+     */
+    public record CallTraces(int capacity, long total, List<CallTrace> traces) {}
+
+    public record CallTrace(String method, String start, double durationMs, String thread, String exception, boolean sampled) {
+        static CallTrace of(CallTraceBuffer.CallTrace trace) {
+            return new CallTrace(
+                trace.method(),
+                trace.start().toString(),
+                trace.durationNanos() / 1_000_000.0,
+                trace.thread(),
+                trace.exception(),
+                trace.sampled()
+            );
+        }
+    }
+}
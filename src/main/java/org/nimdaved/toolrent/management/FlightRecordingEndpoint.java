@@ -0,0 +1,131 @@
+package org.nimdaved.toolrent.management;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+
+/**
+ * {@code /management/jfr}: Java Flight Recorder recordings started on demand, which include the rental lifecycle events
+ * of {@link org.nimdaved.toolrent.service.jfr} along with the GC, lock and I/O events of the JVM.
+ * <ul>
+ * <li>{@code GET /management/jfr}: the recordings started through the endpoint.</li>
+ * <li>{@code POST /management/jfr}: start a recording, with the optional {@code settings} ({@code default} or {@code profile}),
+ * {@code maxAge} (30 minutes by default) and {@code maxSize} (250 MB by default) of the data kept.</li>
+ * <li>{@code POST /management/jfr/{id}}: stop the recording.</li>
+ * <li>{@code GET /management/jfr/{id}}: download the data of the recording so far as a {@code .jfr} file.</li>
+ * <li>{@code DELETE /management/jfr/{id}}: stop the recording and discard its data.</li>
+ * </ul>
+ * The data is dumped to a temporary file which is deleted once downloaded. Recordings still open are closed on shutdown.
+ */
+@Endpoint(id = "jfr")
+public class FlightRecordingEndpoint {
+
+    private static final String DEFAULT_SETTINGS = "default";
+    private static final Duration DEFAULT_MAX_AGE = Duration.ofMinutes(30);
+    private static final long DEFAULT_MAX_SIZE = 250L * 1024 * 1024;
+
+    private final Map<Long, Recording> recordings = new ConcurrentHashMap<>();
+
+    @ReadOperation
+    public List<RecordingDescriptor> recordings() {
+        return recordings.values().stream().map(RecordingDescriptor::of).toList();
+    }
+
+    @WriteOperation
+    public RecordingDescriptor start(@Nullable String settings, @Nullable Duration maxAge, @Nullable Long maxSize) {
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settings != null ? settings : DEFAULT_SETTINGS);
+        } catch (IOException | ParseException e) {
+            throw new IllegalArgumentException("Unknown recording settings: " + settings, e);
+        }
+
+        var recording = new Recording(configuration);
+        recording.setName("toolrent-" + recording.getId());
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge != null ? maxAge : DEFAULT_MAX_AGE);
+        recording.setMaxSize(maxSize != null ? maxSize : DEFAULT_MAX_SIZE);
+        recording.start();
+        recordings.put(recording.getId(), recording);
+        return RecordingDescriptor.of(recording);
+    }
+
+    @WriteOperation
+    public RecordingDescriptor stop(@Selector long id) {
+        var recording = recordings.get(id);
+        if (recording == null) {
+            return null;
+        }
+        if (recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+        }
+        return RecordingDescriptor.of(recording);
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> dump(@Selector long id) {
+        var recording = recordings.get(id);
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        try {
+            var file = Files.createTempFile(recording.getName() + "-", ".jfr");
+            try {
+                recording.dump(file);
+                // removed once the response is written
+                return new WebEndpointResponse<>(new InputStreamResource(Files.newInputStream(file, StandardOpenOption.DELETE_ON_CLOSE)));
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(file);
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DeleteOperation
+    public void close(@Selector long id) {
+        var recording = recordings.remove(id);
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        recordings.keySet().forEach(this::close);
+    }
+
+    public record RecordingDescriptor(long id, String name, String state, String startTime, Duration maxAge, long maxSize, long size) {
+        static RecordingDescriptor of(Recording recording) {
+            return new RecordingDescriptor(
+                recording.getId(),
+                recording.getName(),
+                recording.getState().name(),
+                recording.getStartTime() != null ? recording.getStartTime().toString() : null,
+                recording.getMaxAge(),
+                recording.getMaxSize(),
+                recording.getSize()
+            );
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.nimdaved.toolrent.management;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.stream.Collectors;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+/**
+ * Reports virtual threads pinned to their carrier thread, e.g. blocking inside a {@code synchronized} block,
+ * from the {@code jdk.VirtualThreadPinned} JFR event: the pinned time is recorded in {@code jvm.threads.virtual.pinned}
+ * and the top frames of the pinning stack are logged.
+ * <p>
+ * Only active with {@code spring.threads.virtual.enabled}.
+ */
+@Service
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    public static final String PINNED_METER_NAME = "jvm.threads.virtual.pinned";
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final Duration PINNED_THRESHOLD = Duration.ofMillis(20);
+    private static final int LOGGED_FRAMES = 8;
+
+    private final Timer pinnedTimer;
+
+    private RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry registry) {
+        this.pinnedTimer = Timer.builder(PINNED_METER_NAME)
+            .description("Time virtual threads were pinned to their carrier thread, longer than " + PINNED_THRESHOLD.toMillis() + " ms")
+            .register(registry);
+    }
+
+    @Override
+    public synchronized void start() {
+        recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT).withThreshold(PINNED_THRESHOLD).withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+        recordingStream.startAsync();
+        LOG.info("Monitoring virtual threads pinned for longer than {}", PINNED_THRESHOLD);
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedTimer.record(event.getDuration());
+        LOG.warn(
+            "Virtual thread {} pinned for {} ms at:\n\t{}",
+            event.getThread() != null ? event.getThread().getJavaName() : "?",
+            event.getDuration().toMillis(),
+            topFrames(event)
+        );
+    }
+
+    private static String topFrames(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "(no stack trace)";
+        }
+        return event
+            .getStackTrace()
+            .getFrames()
+            .stream()
+            .filter(RecordedFrame::isJavaFrame)
+            .limit(LOGGED_FRAMES)
+            .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber())
+            .collect(Collectors.joining("\n\t"));
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (recordingStream != null) {
+            recordingStream.close();
+            recordingStream = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return recordingStream != null;
+    }
+}
@@ -12,5 +12,5 @@ import org.springframework.stereotype.Repository;
 @SuppressWarnings("unused")
 @Repository
 public interface ChargeRepository extends JpaRepository<Charge, Long> {
-    Optional<Charge> findOneByToolType(ToolType toolType);
+    Optional<Charge> findFirstByToolTypeOrderByIdAsc(ToolType toolType);
 }
@@ -0,0 +1,53 @@
+package org.nimdaved.toolrent.repository;
+
+import java.time.Instant;
+import java.util.Optional;
+import org.nimdaved.toolrent.domain.IdempotentRequest;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Spring Data JPA repository for the IdempotentRequest entity.
+ * <p>
+ * Deletes are transactional on their own, as the repository is used outside of service transactions.
+ * Responses are stored in the transaction of the request.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface IdempotentRequestRepository extends JpaRepository<IdempotentRequest, Long> {
+    Optional<IdempotentRequest> findByIdempotencyKey(String idempotencyKey);
+
+    @Modifying
+    @Query(
+        "UPDATE IdempotentRequest ir SET ir.responseStatus = :status, ir.responseContentType = :contentType, " +
+        "ir.responseLocation = :location, ir.responseBody = :body, ir.expiresAt = :expiresAt " +
+        "WHERE ir.id = :id AND ir.responseStatus IS NULL"
+    )
+    int complete(
+        @Param("id") Long id,
+        @Param("status") int status,
+        @Param("contentType") String contentType,
+        @Param("location") String location,
+        @Param("body") String body,
+        @Param("expiresAt") Instant expiresAt
+    );
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotentRequest ir WHERE ir.id = :id AND ir.responseStatus IS NULL")
+    int deleteInProgress(@Param("id") Long id);
+
+    @Modifying
+    @Transactional
+    @Query(
+        "DELETE FROM IdempotentRequest ir WHERE ir.idempotencyKey = :idempotencyKey AND ir.responseStatus IS NULL AND ir.expiresAt < :now"
+    )
+    int deleteExpiredInProgress(@Param("idempotencyKey") String idempotencyKey, @Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotentRequest ir WHERE ir.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
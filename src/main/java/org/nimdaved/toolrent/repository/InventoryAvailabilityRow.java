@@ -0,0 +1,17 @@
+package org.nimdaved.toolrent.repository;
+
+import org.nimdaved.toolrent.domain.enumeration.ToolType;
+
+/**
+ * Unmanaged projection of a {@link org.nimdaved.toolrent.domain.Tool} and the counts of its
+ * {@link org.nimdaved.toolrent.domain.ToolInventory}, for the availability view.
+ */
+public record InventoryAvailabilityRow(
+    Long inventoryId,
+    String location,
+    Integer stockCount,
+    Integer checkedOutCount,
+    Integer onHoldCount,
+    String toolCode,
+    ToolType toolType
+) {}
@@ -0,0 +1,32 @@
+package org.nimdaved.toolrent.repository;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import org.nimdaved.toolrent.domain.OutboxEvent;
+import org.nimdaved.toolrent.domain.enumeration.OutboxEventType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data JPA repository for the OutboxEvent entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    /**
+     * Events due for delivery, in the order they were recorded. Rows locked by another dispatcher are skipped.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM OutboxEvent e WHERE e.availableAt <= :now AND e.attempts < :maxAttempts ORDER BY e.id")
+    List<OutboxEvent> findDue(@Param("now") Instant now, @Param("maxAttempts") int maxAttempts, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.eventType = :eventType AND e.rentalId IN :rentalIds")
+    int deleteByEventTypeAndRentalIdIn(@Param("eventType") OutboxEventType eventType, @Param("rentalIds") Collection<Long> rentalIds);
+}
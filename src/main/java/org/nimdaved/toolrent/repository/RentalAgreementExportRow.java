@@ -0,0 +1,9 @@
+package org.nimdaved.toolrent.repository;
+
+import java.time.LocalDate;
+import org.nimdaved.toolrent.domain.enumeration.RentalAgreementStatus;
+
+/**
+ * Unmanaged projection of a {@link org.nimdaved.toolrent.domain.RentalAgreement} for exports.
+ */
+public record RentalAgreementExportRow(Long id, RentalAgreementStatus status, Long rentalId, LocalDate checkOutDate, String agreement) {}
@@ -1,7 +1,17 @@
 package org.nimdaved.toolrent.repository;
 
+import jakarta.persistence.QueryHint;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
 import org.nimdaved.toolrent.domain.RentalAgreement;
+import org.nimdaved.toolrent.domain.enumeration.RentalAgreementStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -15,5 +25,56 @@ public interface RentalAgreementRepository extends JpaRepository<RentalAgreement
     @Query("SELECT ra.id FROM RentalAgreement ra WHERE ra.rental.id = :rentalId")
     Optional<Long> findIdByRentalId(@Param("rentalId") Long rentalId);
 
+    @EntityGraph(RentalAgreement.WITH_RENTAL)
     Optional<RentalAgreement> findByRentalId(Long rentalId);
+
+    /**
+     * A page of agreements with their rental, fetched in the same query.
+     */
+    @EntityGraph(RentalAgreement.WITH_RENTAL)
+    @Query(value = "SELECT ra FROM RentalAgreement ra", countQuery = "SELECT count(ra) FROM RentalAgreement ra")
+    Page<RentalAgreement> findAllWithRental(Pageable pageable);
+
+    @EntityGraph(RentalAgreement.WITH_RENTAL)
+    Optional<RentalAgreement> findWithRentalById(Long id);
+
+    @Query("SELECT ra.rental.id FROM RentalAgreement ra WHERE ra.id = :id")
+    Optional<Long> findRentalIdById(@Param("id") Long id);
+
+    /**
+     * Keyset pagination by id: the first {@code pageable.pageSize} agreements after the given id, without counting.
+     */
+    @EntityGraph(RentalAgreement.WITH_RENTAL)
+    @Query("SELECT ra FROM RentalAgreement ra WHERE ra.id > :id ORDER BY ra.id")
+    List<RentalAgreement> findPageAfterId(@Param("id") Long id, Pageable pageable);
+
+    /**
+     * Forward-only stream of agreements of rentals with check-out date in [from, to), unbounded if {@code null}, for exports.
+     * Rows are fetched in chunks and not attached to the persistence context.
+     */
+    @QueryHints(
+        {
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        }
+    )
+    @Query(
+        "SELECT new org.nimdaved.toolrent.repository.RentalAgreementExportRow(ra.id, ra.status, r.id, r.checkOutDate, ra.agreement) " +
+        "FROM RentalAgreement ra LEFT JOIN ra.rental r " +
+        "WHERE (:from IS NULL OR r.checkOutDate >= :from) AND (:to IS NULL OR r.checkOutDate < :to) " +
+        "ORDER BY ra.id"
+    )
+    Stream<RentalAgreementExportRow> streamForExport(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT ra.rental.id FROM RentalAgreement ra WHERE ra.rental.id IN :rentalIds")
+    List<Long> findRentalIdsByRentalIdIn(@Param("rentalIds") Collection<Long> rentalIds);
+
+    @Modifying
+    @Query("UPDATE RentalAgreement ra SET ra.status = :to, ra.lastModifiedAt = :now WHERE ra.rental.id IN :rentalIds AND ra.status = :from")
+    int updateStatusByRentalIdIn(
+        @Param("rentalIds") Collection<Long> rentalIds,
+        @Param("from") RentalAgreementStatus from,
+        @Param("to") RentalAgreementStatus to,
+        @Param("now") Instant now
+    );
 }
@@ -0,0 +1,19 @@
+package org.nimdaved.toolrent.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import org.nimdaved.toolrent.domain.enumeration.RentalStatus;
+
+/**
+ * Unmanaged projection of a {@link org.nimdaved.toolrent.domain.Rental} for exports.
+ */
+public record RentalExportRow(
+    Long id,
+    LocalDate checkOutDate,
+    Integer dayCount,
+    Integer discountPercent,
+    RentalStatus status,
+    BigDecimal chargeAmount,
+    String toolCode,
+    Long customerId
+) {}
@@ -1,7 +1,20 @@
 package org.nimdaved.toolrent.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
 import org.nimdaved.toolrent.domain.Rental;
+import org.nimdaved.toolrent.domain.enumeration.RentalStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -9,4 +22,97 @@ import org.springframework.stereotype.Repository;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface RentalRepository extends JpaRepository<Rental, Long> {}
+public interface RentalRepository extends JpaRepository<Rental, Long> {
+    String PENDING_AGREEMENT =
+        "SELECT r FROM Rental r JOIN FETCH r.tool LEFT JOIN FETCH r.customer " +
+        "WHERE r.status = :status AND NOT EXISTS (SELECT ra.id FROM RentalAgreement ra WHERE ra.rental = r)";
+
+    @Query(PENDING_AGREEMENT + " AND r.id IN :ids ORDER BY r.id")
+    List<Rental> findPendingAgreementByIdIn(@Param("ids") Collection<Long> ids, @Param("status") RentalStatus status);
+
+    /**
+     * A page of rentals with their tool and customer, fetched in the same query.
+     */
+    @EntityGraph(Rental.WITH_TOOL_AND_CUSTOMER)
+    @Query(value = "SELECT r FROM Rental r", countQuery = "SELECT count(r) FROM Rental r")
+    Page<Rental> findAllWithToolAndCustomer(Pageable pageable);
+
+    @EntityGraph(Rental.WITH_TOOL_AND_CUSTOMER)
+    Optional<Rental> findWithToolAndCustomerById(Long id);
+
+    /**
+     * Keyset pagination by id: the first {@code pageable.pageSize} rentals after the given id, without counting.
+     */
+    @EntityGraph(Rental.WITH_TOOL_AND_CUSTOMER)
+    @Query("SELECT r FROM Rental r WHERE r.id > :id ORDER BY r.id")
+    List<Rental> findPageAfterId(@Param("id") Long id, Pageable pageable);
+
+    @EntityGraph(Rental.WITH_TOOL_AND_CUSTOMER)
+    @Query("SELECT r FROM Rental r ORDER BY r.checkOutDate, r.id")
+    List<Rental> findFirstPageByCheckOutDate(Pageable pageable);
+
+    /**
+     * Keyset pagination by (checkOutDate, id): the first {@code pageable.pageSize} rentals after the given key, without counting.
+     * <p>
+     * The redundant {@code checkOutDate >= :checkOutDate} bound is the index condition of the
+     * {@code (check_out_date, id)} index: the plan is an index scan starting at the key and stopping after the page,
+     * whatever the depth, instead of a scan from the first rental filtering the rows before the key.
+     */
+    @EntityGraph(Rental.WITH_TOOL_AND_CUSTOMER)
+    @Query(
+        "SELECT r FROM Rental r WHERE r.checkOutDate >= :checkOutDate " +
+        "AND (r.checkOutDate > :checkOutDate OR r.id > :id) " +
+        "ORDER BY r.checkOutDate, r.id"
+    )
+    List<Rental> findPageAfterCheckOutDate(@Param("checkOutDate") LocalDate checkOutDate, @Param("id") Long id, Pageable pageable);
+
+    /**
+     * Forward-only stream of rentals with check-out date in [from, to), unbounded if {@code null}, for exports.
+     * Rows are fetched in chunks and not attached to the persistence context.
+     */
+    @QueryHints(
+        {
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        }
+    )
+    @Query(
+        "SELECT new org.nimdaved.toolrent.repository.RentalExportRow(" +
+        "r.id, r.checkOutDate, r.dayCount, r.discountPercent, r.status, r.chargeAmount, t.code, c.id) " +
+        "FROM Rental r LEFT JOIN r.tool t LEFT JOIN r.customer c " +
+        "WHERE (:from IS NULL OR r.checkOutDate >= :from) AND (:to IS NULL OR r.checkOutDate < :to) " +
+        "ORDER BY r.id"
+    )
+    Stream<RentalExportRow> streamForExport(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query(PENDING_AGREEMENT + " AND r.id = :id")
+    Optional<Rental> findPendingAgreementById(@Param("id") Long id, @Param("status") RentalStatus status);
+
+    /**
+     * The rental, locked until the end of the transaction, to change its status and the status of its agreement.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Rental> findLockedById(Long id);
+
+    /**
+     * Rentals in the status since before the cutoff, whose agreement, if any, was not modified since either,
+     * oldest first. Rows locked by another sweeper or by a status change in progress are skipped.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query(
+        "SELECT r FROM Rental r WHERE r.status = :status AND r.lastModifiedAt < :cutoff " +
+        "AND NOT EXISTS (SELECT ra.id FROM RentalAgreement ra WHERE ra.rental = r AND ra.lastModifiedAt >= :cutoff) " +
+        "ORDER BY r.lastModifiedAt, r.id"
+    )
+    List<Rental> findStale(@Param("status") RentalStatus status, @Param("cutoff") Instant cutoff, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Rental r SET r.status = :to, r.lastModifiedAt = :now WHERE r.id IN :ids AND r.status = :from")
+    int updateStatusByIdIn(
+        @Param("ids") Collection<Long> ids,
+        @Param("from") RentalStatus from,
+        @Param("to") RentalStatus to,
+        @Param("now") Instant now
+    );
+}
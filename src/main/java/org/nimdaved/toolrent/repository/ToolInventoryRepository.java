@@ -1,12 +1,69 @@
 package org.nimdaved.toolrent.repository;
 
+import java.util.Collection;
+import java.util.List;
 import org.nimdaved.toolrent.domain.ToolInventory;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
  * Spring Data JPA repository for the ToolInventory entity.
+ * <p>
+ * Counter updates are single conditional statements, evaluated by the database against the current row,
+ * and return the number of affected rows: {@code 0} means the condition did not hold and nothing changed.
  */
 @SuppressWarnings("unused")
 @Repository
-public interface ToolInventoryRepository extends JpaRepository<ToolInventory, Long> {}
+public interface ToolInventoryRepository extends JpaRepository<ToolInventory, Long> {
+    String INVENTORY_OF_TOOL = "ti.id = (SELECT t.toolInventory.id FROM Tool t WHERE t.code = :toolCode)";
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(
+        "UPDATE ToolInventory ti SET ti.onHoldCount = ti.onHoldCount + 1 " +
+        "WHERE " +
+        INVENTORY_OF_TOOL +
+        " AND (ti.stockCount - ti.checkedOutCount - ti.onHoldCount) > 0"
+    )
+    int incrementOnHoldCountIfAvailable(@Param("toolCode") String toolCode);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ToolInventory ti SET ti.onHoldCount = ti.onHoldCount - 1 WHERE " + INVENTORY_OF_TOOL + " AND ti.onHoldCount > 0")
+    int decrementOnHoldCount(@Param("toolCode") String toolCode);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(
+        "UPDATE ToolInventory ti SET ti.onHoldCount = ti.onHoldCount - 1, ti.checkedOutCount = ti.checkedOutCount + 1 " +
+        "WHERE " +
+        INVENTORY_OF_TOOL +
+        " AND ti.onHoldCount > 0"
+    )
+    int moveOnHoldToCheckedOut(@Param("toolCode") String toolCode);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(
+        "UPDATE ToolInventory ti SET ti.checkedOutCount = ti.checkedOutCount - 1 WHERE " + INVENTORY_OF_TOOL + " AND ti.checkedOutCount > 0"
+    )
+    int decrementCheckedOutCount(@Param("toolCode") String toolCode);
+
+    /**
+     * Release the holds of the rentals, one per rental, with one statement for all inventories.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(
+        "UPDATE ToolInventory ti SET ti.onHoldCount = ti.onHoldCount - " +
+        "(SELECT cast(count(r) as Integer) FROM Rental r WHERE r.id IN :rentalIds AND r.tool.toolInventory = ti) " +
+        "WHERE ti.id IN (SELECT r.tool.toolInventory.id FROM Rental r WHERE r.id IN :rentalIds)"
+    )
+    int releaseHolds(@Param("rentalIds") Collection<Long> rentalIds);
+
+    /**
+     * Counts of all inventories, one row per tool.
+     */
+    @Query(
+        "SELECT new org.nimdaved.toolrent.repository.InventoryAvailabilityRow(" +
+        "ti.id, ti.location, ti.stockCount, ti.checkedOutCount, ti.onHoldCount, t.code, t.toolType) " +
+        "FROM Tool t JOIN t.toolInventory ti"
+    )
+    List<InventoryAvailabilityRow> findAvailabilityRows();
+}
@@ -1,7 +1,9 @@
 package org.nimdaved.toolrent.repository;
 
-import java.util.Optional;
+import java.util.List;
 import org.nimdaved.toolrent.domain.Tool;
+import org.nimdaved.toolrent.domain.enumeration.ToolType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -11,11 +13,34 @@ import org.springframework.stereotype.Repository;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface ToolRepository extends JpaRepository<Tool, String> {
-    @Query(
-        "SELECT t FROM Tool t " +
-        "JOIN ToolInventory ti ON t.toolInventory.id = ti.id " +
-        "WHERE t.code = :toolCode AND (ti.stockCount - ti.checkedOutCount - ti.onHoldCount) > 0"
-    )
-    Optional<Tool> findByToolCodeWithStockCountInInventory(@Param("toolCode") String toolCode);
+public interface ToolRepository extends JpaRepository<Tool, String>, JpaSpecificationExecutor<Tool> {
+    String AVAILABLE_OF_TYPE = "SELECT t FROM Tool t JOIN t.toolInventory ti WHERE t.toolType = :toolType AND ti.availableCount > 0";
+    String AT_LOCATION = " AND (:location IS NULL OR ti.location = :location)";
+
+    /**
+     * Available tools of the type, at the location unless {@code null}, inventories with the most available items first.
+     */
+    @Query(AVAILABLE_OF_TYPE + AT_LOCATION + " ORDER BY ti.availableCount DESC, t.code")
+    List<Tool> findAvailableMostAvailableFirst(
+        @Param("toolType") ToolType toolType,
+        @Param("location") String location,
+        Pageable pageable
+    );
+
+    /**
+     * Available tools of the type at any location, tools at the given location first.
+     */
+    @Query(AVAILABLE_OF_TYPE + " ORDER BY CASE WHEN ti.location = :location THEN 0 ELSE 1 END, ti.availableCount DESC, t.code")
+    List<Tool> findAvailableAtLocationFirst(@Param("toolType") ToolType toolType, @Param("location") String location, Pageable pageable);
+
+    /**
+     * Available tools of the type, at the location unless {@code null}, with code after the given one, ordered by code.
+     */
+    @Query(AVAILABLE_OF_TYPE + AT_LOCATION + " AND t.code > :code ORDER BY t.code")
+    List<Tool> findAvailableAfterCode(
+        @Param("toolType") ToolType toolType,
+        @Param("location") String location,
+        @Param("code") String code,
+        Pageable pageable
+    );
 }
@@ -0,0 +1,171 @@
+package org.nimdaved.toolrent.service;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import org.nimdaved.toolrent.domain.Holiday;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Immutable bitmap calendar covering the years {@code [firstYear, lastYear]}.
+ * <p>
+ * Every day of the covered range is one bit, counted from January 1st of {@code firstYear}.
+ * Weekends, holidays and weekend-holidays are kept in separate bitmaps, so day counts for a rental
+ * period are answered with a handful of {@link Long#bitCount(long)} calls and no allocations.
+ */
+public final class CalendarIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CalendarIndex.class);
+
+    private final int firstYear;
+    private final int lastYear;
+    private final long firstEpochDay;
+    private final int dayCount;
+
+    private final long[] weekends;
+    private final long[] holidays;
+    private final long[] weekendHolidays;
+
+    private CalendarIndex(int firstYear, int lastYear) {
+        this.firstYear = firstYear;
+        this.lastYear = lastYear;
+        this.firstEpochDay = LocalDate.of(firstYear, 1, 1).toEpochDay();
+        this.dayCount = (int) (LocalDate.of(lastYear + 1, 1, 1).toEpochDay() - firstEpochDay);
+
+        int words = (dayCount + Long.SIZE - 1) / Long.SIZE;
+        this.weekends = new long[words];
+        this.holidays = new long[words];
+        this.weekendHolidays = new long[words];
+    }
+
+    /**
+     * Builds the index for the given holidays and years. Holidays without a date in a year (e.g. February 30th,
+     * or a day of week out of range) are skipped for that year.
+     *
+     * @param holidays holiday definitions.
+     * @param firstYear first covered year (inclusive).
+     * @param lastYear last covered year (inclusive).
+     * @return the index.
+     */
+    public static CalendarIndex build(Collection<Holiday> holidays, int firstYear, int lastYear) {
+        if (lastYear < firstYear) {
+            throw new IllegalArgumentException("Invalid calendar range: " + firstYear + ".." + lastYear);
+        }
+
+        var index = new CalendarIndex(firstYear, lastYear);
+
+        for (int day = 0; day < index.dayCount; day++) {
+            var dayOfWeek = DayOfWeek.from(LocalDate.ofEpochDay(index.firstEpochDay + day));
+            if (dayOfWeek == DayOfWeek.SATURDAY || dayOfWeek == DayOfWeek.SUNDAY) {
+                set(index.weekends, day);
+            }
+        }
+
+        // Observed holidays may move across the year boundary (e.g. Jan 1st observed on Dec 31st),
+        // hence the neighbouring years are evaluated as well
+        Set<Holiday> skipped = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int year = firstYear - 1; year <= lastYear + 1; year++) {
+            for (Holiday holiday : holidays) {
+                LocalDate date;
+                try {
+                    date = holiday.toLocalDate(year);
+                } catch (DateTimeException e) {
+                    if (skipped.add(holiday)) {
+                        LOG.warn("Skipping holiday {} in {}: {}", holiday, year, e.getMessage());
+                    }
+                    continue;
+                }
+                long day = date.toEpochDay() - index.firstEpochDay;
+                if (day >= 0 && day < index.dayCount) {
+                    set(index.holidays, (int) day);
+                }
+            }
+        }
+
+        for (int i = 0; i < index.weekends.length; i++) {
+            index.weekendHolidays[i] = index.weekends[i] & index.holidays[i];
+        }
+
+        return index;
+    }
+
+    /**
+     * @param startDate rental check out date.
+     * @param dayCount rental day count.
+     * @return {@code true} when all charged days of the rental are covered by this index.
+     */
+    public boolean covers(LocalDate startDate, int dayCount) {
+        long from = startDate.toEpochDay() + 1 - firstEpochDay;
+        return from >= 0 && from + dayCount <= this.dayCount;
+    }
+
+    /**
+     * Counts the charged days of a rental, i.e. days after the check out date up to and including the due date.
+     *
+     * @param startDate rental check out date.
+     * @param dayCount rental day count.
+     * @return the day counts.
+     * @throws IllegalArgumentException if the rental period is not covered by this index.
+     */
+    public CalendarService.DayCounts getDayCounts(LocalDate startDate, int dayCount) {
+        if (!covers(startDate, dayCount)) {
+            throw new IllegalArgumentException(
+                "Rental period " + startDate + " + " + dayCount + " days is out of calendar range " + firstYear + ".." + lastYear
+            );
+        }
+
+        int from = (int) (startDate.toEpochDay() + 1 - firstEpochDay);
+        int to = from + dayCount;
+
+        int weekendCount = count(weekends, from, to);
+        int holidayCount = count(holidays, from, to);
+        int weekendsAndHolidays = count(weekendHolidays, from, to);
+
+        int weekendsNonHolidays = weekendCount - weekendsAndHolidays;
+        int holidaysNonWeekends = holidayCount - weekendsAndHolidays;
+        int weekdays = dayCount - weekendsNonHolidays - holidaysNonWeekends - weekendsAndHolidays;
+
+        return new CalendarService.DayCounts(weekdays, weekendsNonHolidays, holidaysNonWeekends, weekendsAndHolidays);
+    }
+
+    public int getFirstYear() {
+        return firstYear;
+    }
+
+    public int getLastYear() {
+        return lastYear;
+    }
+
+    private static void set(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    /**
+     * Counts set bits in {@code [from, to)}.
+     */
+    private static int count(long[] bits, int from, int to) {
+        if (from >= to) {
+            return 0;
+        }
+
+        int fromWord = from >>> 6;
+        int toWord = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+
+        if (fromWord == toWord) {
+            return Long.bitCount(bits[fromWord] & firstMask & lastMask);
+        }
+
+        int result = Long.bitCount(bits[fromWord] & firstMask);
+        for (int i = fromWord + 1; i < toWord; i++) {
+            result += Long.bitCount(bits[i]);
+        }
+        return result + Long.bitCount(bits[toWord] & lastMask);
+    }
+}
@@ -1,76 +1,131 @@
 package org.nimdaved.toolrent.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
-import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.Year;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
-import org.apache.commons.collections4.CollectionUtils;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.nimdaved.toolrent.config.ApplicationProperties;
 import org.nimdaved.toolrent.domain.Holiday;
 import org.nimdaved.toolrent.repository.HolidayRepository;
+import org.nimdaved.toolrent.service.dto.ReferenceDataEvents;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+/**
+ * Holiday and weekend calendar.
+ * <p>
+ * Readers work with an immutable, versioned {@link Snapshot} which is replaced as a whole (copy-on-write)
+ * when holidays change, so no locking is needed on the read path.
+ */
 @Service
 public class CalendarService {
 
+    private static final Logger LOG = LoggerFactory.getLogger(CalendarService.class);
+
+    public static final String DAY_COUNTS_METER_NAME = "rental.calendar.day-counts";
+
     private final HolidayRepository holidayRepository;
+    private final ApplicationProperties.Calendar properties;
+    private final RentalMeters.TimerTable dayCountsTimers;
 
-    List<Holiday> holidays;
+    private final AtomicLong versions = new AtomicLong();
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
 
-    public CalendarService(HolidayRepository holidayRepository) {
+    public CalendarService(HolidayRepository holidayRepository, ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
         this.holidayRepository = holidayRepository;
+        this.properties = applicationProperties.getCalendar();
+        this.dayCountsTimers = new RentalMeters.TimerTable(
+            Timer.builder(DAY_COUNTS_METER_NAME)
+                .description("Counting of weekdays, weekends and holidays of rental periods")
+                .withRegistry(meterRegistry),
+            false
+        );
     }
 
     public DayCounts getDayCounts(@NonNull LocalDate startDate, int dayCount) {
-        var weekends = getWeekends(startDate, dayCount);
-        var holidays = getHolidays(startDate, dayCount);
-        var intersection = CollectionUtils.intersection(weekends, holidays);
-
-        int weekendsAndHolidays = intersection.size();
-        int weekendsNonHolidays = weekends.size() - intersection.size();
-        int holidaysNonWeekends = holidays.size() - intersection.size();
-        int weekdays = dayCount - weekendsNonHolidays - holidaysNonWeekends + weekendsAndHolidays;
+        long start = System.nanoTime();
+        int outcome = RentalMeters.ERROR_OUTCOME;
+        try {
+            var counts = getSnapshot().getDayCounts(startDate, dayCount);
+            outcome = RentalMeters.SUCCESS_OUTCOME;
+            return counts;
+        } finally {
+            dayCountsTimers.record(null, dayCount, outcome, start);
+        }
+    }
 
-        return new DayCounts(weekdays, weekendsNonHolidays, holidaysNonWeekends, weekendsAndHolidays);
+    /**
+     * @return the current calendar snapshot.
+     */
+    public Snapshot getSnapshot() {
+        return snapshot.get();
     }
 
     @PostConstruct
     public void populateHolidays() {
-        holidays = holidayRepository.findAll();
-    }
+        // version is taken before reading, so a slow reload can never replace a snapshot read later
+        long version = versions.incrementAndGet();
+        var holidays = List.copyOf(holidayRepository.findAll());
 
-    private Set<LocalDate> getHolidays(LocalDate startDate, int dayCount) {
-        var firstDay = startDate.plusDays(1);
-        var lastDay = startDate.plusDays(dayCount);
-
-        return Stream.of(firstDay, lastDay)
-            .map(LocalDate::getYear)
-            .distinct()
-            .flatMap(year -> holidays.stream().map(h -> h.toLocalDate(year)))
-            .filter(
-                holiday ->
-                    holiday.isEqual(firstDay) || holiday.isEqual(lastDay) || (holiday.isAfter(startDate) && holiday.isBefore(lastDay))
-            )
-            .collect(Collectors.toSet());
-    }
+        int currentYear = Year.now().getValue();
+        var index = CalendarIndex.build(holidays, currentYear - properties.getYearsBack(), currentYear + properties.getYearsAhead());
 
-    private Set<LocalDate> getWeekends(LocalDate startDate, int dayCount) {
-        int fistDay = startDate.getDayOfWeek().getValue() + 1;
-        int afterLastDay = fistDay + dayCount;
+        var current = snapshot.accumulateAndGet(new Snapshot(version, holidays, index), (previous, next) ->
+            previous == null || next.version() > previous.version() ? next : previous
+        );
+        LOG.debug("Calendar snapshot version {} with {} holidays", current.version(), current.holidays().size());
+    }
 
-        return IntStream.range(fistDay, afterLastDay)
-            .filter(CalendarService::isWeekend)
-            .mapToObj(i -> startDate.plusDays(i))
-            .collect(Collectors.toSet());
+    /**
+     * Rebuilds the snapshot once a holiday change is committed.
+     *
+     * @param event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onEvent(ReferenceDataEvents.HolidaysChanged event) {
+        LOG.debug("Received event : {}", event);
+        populateHolidays();
     }
 
-    private static boolean isWeekend(int day) {
-        return day % DayOfWeek.SATURDAY.getValue() == 0 || day % DayOfWeek.SUNDAY.getValue() == 0;
+    /**
+     * Picks up holiday changes made through other nodes.
+     */
+    @Scheduled(
+        fixedDelayString = "${application.calendar.refresh-interval:PT5M}",
+        initialDelayString = "${application.calendar.refresh-interval:PT5M}"
+    )
+    @Transactional(readOnly = true)
+    public void refresh() {
+        populateHolidays();
     }
 
     public record DayCounts(int weekdays, int weekendsNonHolidays, int holidaysNonWeekends, int weekendsAndHolidays) {}
+
+    /**
+     * Immutable view of the holidays and the precomputed calendar built from them.
+     */
+    public record Snapshot(long version, List<Holiday> holidays, CalendarIndex index) {
+        public DayCounts getDayCounts(@NonNull LocalDate startDate, int dayCount) {
+            if (index.covers(startDate, dayCount)) {
+                return index.getDayCounts(startDate, dayCount);
+            }
+
+            LOG.debug("Rental period {} + {} days is out of precomputed calendar range", startDate, dayCount);
+            return CalendarIndex.build(holidays, startDate.getYear(), startDate.plusDays(dayCount).getYear()).getDayCounts(
+                startDate,
+                dayCount
+            );
+        }
+    }
 }
@@ -1,18 +1,34 @@
 package org.nimdaved.toolrent.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 import org.nimdaved.toolrent.domain.Charge;
 import org.nimdaved.toolrent.domain.Tool;
+import org.nimdaved.toolrent.domain.enumeration.ToolType;
 import org.nimdaved.toolrent.repository.ChargeRepository;
+import org.nimdaved.toolrent.service.dto.ReferenceDataEvents;
+import org.nimdaved.toolrent.service.jfr.RentalPricingEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 /**
  * Service Implementation for managing {@link org.nimdaved.toolrent.domain.Charge}.
@@ -23,12 +39,50 @@ public class ChargeService {
 
     private static final Logger LOG = LoggerFactory.getLogger(ChargeService.class);
 
+    public static final String RATE_TABLE_LOOKUPS_METER_NAME = "charge.rate-table.lookups";
+    public static final String RATE_TABLE_REFRESHES_METER_NAME = "charge.rate-table.refreshes";
+    public static final String PRICING_METER_NAME = "rental.pricing";
+
     private final ChargeRepository chargeRepository;
     private final CalendarService calendarService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Counter rateTableHitCounter;
+    private final Counter rateTableMissCounter;
+    private final Counter rateTableRefreshCounter;
+    private final RentalMeters.TimerTable pricingTimers;
+
+    private final AtomicLong versions = new AtomicLong();
+
+    /**
+     * Immutable rate table, replaced as a whole on refresh.
+     */
+    private final AtomicReference<RateTable> rateTable = new AtomicReference<>(new RateTable(0, Collections.emptyMap()));
 
-    public ChargeService(ChargeRepository chargeRepository, CalendarService calendarService) {
+    public ChargeService(
+        ChargeRepository chargeRepository,
+        CalendarService calendarService,
+        ApplicationEventPublisher eventPublisher,
+        MeterRegistry meterRegistry
+    ) {
         this.chargeRepository = chargeRepository;
         this.calendarService = calendarService;
+        this.eventPublisher = eventPublisher;
+        this.rateTableHitCounter = rateTableLookupsCounterBuilder("hit").register(meterRegistry);
+        this.rateTableMissCounter = rateTableLookupsCounterBuilder("miss").register(meterRegistry);
+        this.rateTableRefreshCounter = Counter.builder(RATE_TABLE_REFRESHES_METER_NAME)
+            .description("Number of charge rate table reloads")
+            .register(meterRegistry);
+        this.pricingTimers = new RentalMeters.TimerTable(
+            Timer.builder(PRICING_METER_NAME)
+                .description("Calculation of rental charges, including the day counts of the calendar")
+                .withRegistry(meterRegistry),
+            true
+        );
+    }
+
+    private Counter.Builder rateTableLookupsCounterBuilder(String result) {
+        return Counter.builder(RATE_TABLE_LOOKUPS_METER_NAME).description("Charge rate table lookups").tag("result", result);
     }
 
     /**
@@ -39,7 +93,7 @@ public class ChargeService {
      */
     public Charge save(Charge charge) {
         LOG.debug("Request to save Charge : {}", charge);
-        return chargeRepository.save(charge);
+        return publishChange(chargeRepository.save(charge));
     }
 
     /**
@@ -50,7 +104,7 @@ public class ChargeService {
      */
     public Charge update(Charge charge) {
         LOG.debug("Request to update Charge : {}", charge);
-        return chargeRepository.save(charge);
+        return publishChange(chargeRepository.save(charge));
     }
 
     /**
@@ -83,7 +137,8 @@ public class ChargeService {
 
                 return existingCharge;
             })
-            .map(chargeRepository::save);
+            .map(chargeRepository::save)
+            .map(this::publishChange);
     }
 
     /**
@@ -117,6 +172,87 @@ public class ChargeService {
     public void delete(Long id) {
         LOG.debug("Request to delete Charge : {}", id);
         chargeRepository.deleteById(id);
+        eventPublisher.publishEvent(new ReferenceDataEvents.ChargesChanged(id));
+    }
+
+    private Charge publishChange(Charge charge) {
+        eventPublisher.publishEvent(new ReferenceDataEvents.ChargesChanged(charge.getId()));
+        return charge;
+    }
+
+    /**
+     * @return the current rate table.
+     */
+    public RateTable getRateTable() {
+        return rateTable.get();
+    }
+
+    @PostConstruct
+    public void populateRates() {
+        // version is taken before reading, so a slow reload can never replace a rate table read later
+        long version = versions.incrementAndGet();
+        Map<ToolType, Charge> charges = new EnumMap<>(ToolType.class);
+        for (Charge charge : chargeRepository.findAll()) {
+            if (charge.getToolType() == null) {
+                LOG.warn("Charge {} has no tool type, left out of the rate table", charge.getId());
+            } else {
+                // of several charges of a tool type, the first one saved applies, as for lookups outside of the table
+                charges.merge(charge.getToolType(), charge, (first, other) -> first.getId() <= other.getId() ? first : other);
+            }
+        }
+        Map<ToolType, Rate> loaded = new EnumMap<>(ToolType.class);
+        charges.forEach((toolType, charge) -> loaded.put(toolType, Rate.of(charge)));
+
+        var current = rateTable.accumulateAndGet(new RateTable(version, Collections.unmodifiableMap(loaded)), (previous, next) ->
+            next.version() > previous.version() ? next : previous
+        );
+        rateTableRefreshCounter.increment();
+        LOG.debug("Rate table version {} with tool types {}", current.version(), current.rates().keySet());
+    }
+
+    /**
+     * Refreshes the rate table once a charge change is committed.
+     *
+     * @param event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onEvent(ReferenceDataEvents.ChargesChanged event) {
+        LOG.debug("Received event : {}", event);
+        populateRates();
+    }
+
+    /**
+     * Picks up charge changes made through other nodes.
+     */
+    @Scheduled(
+        fixedDelayString = "${application.rate-table.refresh-interval:PT5M}",
+        initialDelayString = "${application.rate-table.refresh-interval:PT5M}"
+    )
+    @Transactional(readOnly = true)
+    public void refresh() {
+        populateRates();
+    }
+
+    /**
+     * Get charge rate of the tool type, served from the in-memory rate table.
+     *
+     * @param toolType the tool type.
+     * @return the rate.
+     */
+    @Transactional(readOnly = true)
+    public Rate getRate(ToolType toolType) {
+        var rate = rateTable.get().rates().get(toolType);
+        if (rate != null) {
+            rateTableHitCounter.increment();
+            return rate;
+        }
+
+        rateTableMissCounter.increment();
+        return chargeRepository
+            .findFirstByToolTypeOrderByIdAsc(toolType)
+            .map(Rate::of)
+            .orElseThrow(() -> new IllegalArgumentException("Charge not found for tool type: " + toolType));
     }
 
     /**
@@ -128,17 +264,40 @@ public class ChargeService {
      * @return
      */
     public Charges calculateCharges(Tool tool, LocalDate checkOutDate, Integer rentalDayCount) {
-        var counts = calendarService.getDayCounts(checkOutDate, rentalDayCount);
+        long start = System.nanoTime();
+        int outcome = RentalMeters.ERROR_OUTCOME;
+        try {
+            var charges = new RentalPricingEvent()
+                .tool(tool)
+                .dayCount(rentalDayCount)
+                .record(() -> {
+                    var counts = calendarService.getDayCounts(checkOutDate, rentalDayCount);
 
-        Charge charge = chargeRepository
-            .findOneByToolType(tool.getToolType())
-            .orElseThrow(() -> new IllegalArgumentException("Charge not found for tool type: " + tool.getToolType()));
+                    return calculateCharges(getRate(tool.getToolType()), counts);
+                });
+            outcome = RentalMeters.SUCCESS_OUTCOME;
+            return charges;
+        } catch (RuntimeException e) {
+            outcome = RentalMeters.outcome(e);
+            throw e;
+        } finally {
+            pricingTimers.record(tool.getToolType(), rentalDayCount != null ? rentalDayCount : 0, outcome, start);
+        }
+    }
 
-        var dailyCharge = charge.getDailyCharge();
+    /**
+     * Calculate rental charges for already resolved rate and day counts
+     *
+     * @param rate
+     * @param counts
+     * @return
+     */
+    public Charges calculateCharges(Rate rate, CalendarService.DayCounts counts) {
+        var dailyCharge = rate.dailyCharge();
 
-        boolean chargedOnWeekends = charge.getWeekendCharge();
-        boolean chargedOnHolidays = charge.getHolidayCharge();
-        boolean chargedOnWeekdays = charge.getWeekdayCharge();
+        boolean chargedOnWeekends = rate.weekendCharge();
+        boolean chargedOnHolidays = rate.holidayCharge();
+        boolean chargedOnWeekdays = rate.weekdayCharge();
 
         int chargedDays =
             getChargedDays(chargedOnWeekdays, counts::weekdays) +
@@ -155,5 +314,16 @@ public class ChargeService {
         return chargeable ? dayCountSupplier.get() : 0;
     }
 
+    /**
+     * Immutable rates by tool type, with the version of the reload which read them.
+     */
+    public record RateTable(long version, Map<ToolType, Rate> rates) {}
+
     public record Charges(BigDecimal dailyCharges, int chargedDays, BigDecimal chargedAmount) {}
+
+    public record Rate(BigDecimal dailyCharge, boolean weekdayCharge, boolean weekendCharge, boolean holidayCharge) {
+        static Rate of(Charge charge) {
+            return new Rate(charge.getDailyCharge(), charge.getWeekdayCharge(), charge.getWeekendCharge(), charge.getHolidayCharge());
+        }
+    }
 }
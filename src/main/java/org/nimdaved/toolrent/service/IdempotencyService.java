@@ -0,0 +1,238 @@
+package org.nimdaved.toolrent.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import org.nimdaved.toolrent.config.ApplicationProperties;
+import org.nimdaved.toolrent.domain.IdempotentRequest;
+import org.nimdaved.toolrent.repository.IdempotentRequestRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Store of responses to requests sent with an {@code Idempotency-Key}, replayed to retries of the request.
+ * <p>
+ * The first request with a key claims it by inserting a row, which the unique key constraint admits once across
+ * instances, and stores its response when done. Responses are also kept in a size-bounded in-memory cache,
+ * so most retries are answered without a database round trip; evicted ones are read from the database.
+ * Claims are inserted in their own transactions, so a lost race on a key does not roll back the caller.
+ * <p>
+ * The response is stored in the transaction of the request, so a request is either committed together with its
+ * response, or not at all. A claim left without response after the lease, e.g. by a stopped instance, was therefore
+ * not committed and may be run again; the original request can no longer complete the claim and is rolled back.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final String REQUESTS_METER_NAME = "idempotency.requests";
+
+    private final IdempotentRequestRepository idempotentRequestRepository;
+    private final ApplicationProperties.Idempotency properties;
+    private final Cache<String, StoredResponse> responses;
+    private final Map<Decision, Counter> requestCounters = new EnumMap<>(Decision.class);
+
+    public IdempotencyService(
+        IdempotentRequestRepository idempotentRequestRepository,
+        ApplicationProperties applicationProperties,
+        MeterRegistry registry
+    ) {
+        this.idempotentRequestRepository = idempotentRequestRepository;
+        this.properties = applicationProperties.getIdempotency();
+        this.responses = Caffeine.newBuilder()
+            .maximumSize(properties.getMaxEntries())
+            .expireAfterWrite(properties.getRetention())
+            .build();
+
+        for (Decision decision : Decision.values()) {
+            requestCounters.put(
+                decision,
+                Counter.builder(REQUESTS_METER_NAME)
+                    .description("Requests with an Idempotency-Key, by how they were handled")
+                    .tag("decision", decision.name().toLowerCase())
+                    .register(registry)
+            );
+        }
+    }
+
+    /**
+     * Decide how to handle a request with the key: run it, or replay the response to an earlier request with the key.
+     *
+     * @param key the idempotency key, scoped by the client.
+     * @param fingerprint the fingerprint of the request.
+     * @return the decision, with the response to replay if any.
+     */
+    public Outcome begin(String key, String fingerprint) {
+        var outcome = decide(key, fingerprint);
+        requestCounters.get(outcome.decision()).increment();
+        return outcome;
+    }
+
+    private Outcome decide(String key, String fingerprint) {
+        var cached = responses.getIfPresent(key);
+        if (cached != null) {
+            return replay(cached, fingerprint);
+        }
+
+        var now = Instant.now();
+        var claimId = claim(key, fingerprint, now);
+        if (claimId != null) {
+            return Outcome.proceed(claimId);
+        }
+
+        var existing = idempotentRequestRepository.findByIdempotencyKey(key);
+        if (existing.isEmpty()) {
+            // abandoned or purged meanwhile
+            claimId = claim(key, fingerprint, now);
+            return claimId != null ? Outcome.proceed(claimId) : new Outcome(Decision.IN_PROGRESS, null, null);
+        }
+
+        var request = existing.orElseThrow();
+        if (request.getResponseStatus() != null) {
+            var stored = StoredResponse.of(request);
+            responses.put(key, stored);
+            return replay(stored, fingerprint);
+        }
+        if (!request.getFingerprint().equals(fingerprint)) {
+            return new Outcome(Decision.MISMATCH, null, null);
+        }
+        if (idempotentRequestRepository.deleteExpiredInProgress(key, now) > 0) {
+            claimId = claim(key, fingerprint, now);
+            if (claimId != null) {
+                LOG.warn("Request with idempotency key {} was not completed within {}, running it again", key, properties.getLease());
+                return Outcome.proceed(claimId);
+            }
+        }
+        return new Outcome(Decision.IN_PROGRESS, null, null);
+    }
+
+    private static Outcome replay(StoredResponse response, String fingerprint) {
+        return response.fingerprint().equals(fingerprint)
+            ? new Outcome(Decision.REPLAY, response, null)
+            : new Outcome(Decision.MISMATCH, null, null);
+    }
+
+    /**
+     * @return the id of the claim, or {@code null} if the key is claimed already.
+     */
+    private Long claim(String key, String fingerprint, Instant now) {
+        try {
+            var claim = new IdempotentRequest()
+                .idempotencyKey(key)
+                .fingerprint(fingerprint)
+                .createdDate(now)
+                .expiresAt(now.plus(properties.getLease()));
+            return idempotentRequestRepository.saveAndFlush(claim).getId();
+        } catch (DataIntegrityViolationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Store the response of a request which claimed the key, in the transaction of the request.
+     *
+     * @param key the idempotency key, scoped by the client.
+     * @param claimId the id of the claim of the request.
+     * @param response the response.
+     * @return {@code false} if the claim was taken over by a retry after the lease expired, the transaction of the
+     * request must be rolled back then.
+     */
+    @Transactional
+    public boolean complete(String key, Long claimId, StoredResponse response) {
+        int completed = idempotentRequestRepository.complete(
+            claimId,
+            response.status(),
+            response.contentType(),
+            response.location(),
+            response.body(),
+            Instant.now().plus(properties.getRetention())
+        );
+        if (completed == 0) {
+            LOG.warn("Request with idempotency key {} was taken over after {}, rolling it back", key, properties.getLease());
+            return false;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    responses.put(key, response);
+                }
+            }
+        );
+        return true;
+    }
+
+    /**
+     * Release the key of a request which failed or was not stored, so a retry runs it again.
+     * Only the claim of the request is deleted, not the one of a retry which took over the key after the lease.
+     *
+     * @param claimId the id of the claim of the request.
+     */
+    public void abandon(Long claimId) {
+        idempotentRequestRepository.deleteInProgress(claimId);
+    }
+
+    /**
+     * Delete expired requests from the database, the in-memory cache expires them by itself.
+     */
+    @Scheduled(fixedDelayString = "${application.idempotency.purge-interval:PT1H}")
+    @Transactional
+    public void purge() {
+        int deleted = idempotentRequestRepository.deleteExpired(Instant.now());
+        LOG.debug("Deleted {} expired idempotent requests", deleted);
+    }
+
+    public enum Decision {
+        /**
+         * First request with the key, to be run and completed or abandoned.
+         */
+        PROCEED,
+        /**
+         * Retry of a completed request, answered with its response.
+         */
+        REPLAY,
+        /**
+         * Retry of a request still in progress.
+         */
+        IN_PROGRESS,
+        /**
+         * A different request with the key of an earlier one.
+         */
+        MISMATCH,
+    }
+
+    /**
+     * @param decision how to handle the request.
+     * @param response the response to replay, if any.
+     * @param claimId the id of the claim of a request to run, to complete it with.
+     */
+    public record Outcome(Decision decision, StoredResponse response, Long claimId) {
+        static Outcome proceed(Long claimId) {
+            return new Outcome(Decision.PROCEED, null, claimId);
+        }
+    }
+
+    public record StoredResponse(String fingerprint, int status, String contentType, String location, String body) {
+        static StoredResponse of(IdempotentRequest request) {
+            return new StoredResponse(
+                request.getFingerprint(),
+                request.getResponseStatus(),
+                request.getResponseContentType(),
+                request.getResponseLocation(),
+                request.getResponseBody()
+            );
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package org.nimdaved.toolrent.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import org.nimdaved.toolrent.domain.enumeration.ToolType;
+import org.nimdaved.toolrent.repository.InventoryAvailabilityRow;
+import org.nimdaved.toolrent.repository.ToolInventoryRepository;
+import org.nimdaved.toolrent.service.dto.ReferenceDataEvents;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-memory view of tool availability per location and tool type.
+ * <p>
+ * Inventory count changes are applied to the view once their transaction commits, so a client sees its own changes
+ * on the next read. The view is periodically reconciled with the database: inventories changed since the reconciliation
+ * started keep their in-memory counts and are reconciled in the next round, so a reconciliation never reverts a newer change.
+ * Inventories with a change committing meanwhile are skipped as well: the reconciliation may have read the change already,
+ * which would then be counted twice once applied.
+ */
+@Service
+public class InventoryAvailabilityService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(InventoryAvailabilityService.class);
+
+    public static final String DRIFT_METER_NAME = "inventory.availability.drift";
+
+    private final ToolInventoryRepository toolInventoryRepository;
+    private final Counter driftCounter;
+
+    /**
+     * Source of stamps, which order count changes and reconciliations.
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Map<Long, Counts> counts = new ConcurrentHashMap<>();
+
+    /**
+     * Number of changes per inventory which are committing, from before the commit until they are applied.
+     */
+    private final Map<Long, Integer> committing = new ConcurrentHashMap<>();
+
+    /**
+     * Serializes reconciliations. A lock rather than a monitor, so a virtual thread is not pinned while it waits on the query.
+     */
+    private final ReentrantLock reconcileLock = new ReentrantLock();
+
+    /**
+     * Immutable location and tools of the inventories, replaced as a whole on reconciliation.
+     */
+    private volatile Layout layout = new Layout(Map.of(), Map.of());
+
+    public InventoryAvailabilityService(ToolInventoryRepository toolInventoryRepository, MeterRegistry meterRegistry) {
+        this.toolInventoryRepository = toolInventoryRepository;
+        this.driftCounter = Counter.builder(DRIFT_METER_NAME)
+            .description("Number of inventories with in-memory counts corrected by reconciliation")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Get the availability per location and tool type, ordered by location and tool type.
+     * An inventory shared by tools of several types is counted for each of the types.
+     *
+     * @param location the location, all locations if {@code null}.
+     * @param toolType the tool type, all tool types if {@code null}.
+     * @return the availability.
+     */
+    public List<Availability> getAvailability(String location, ToolType toolType) {
+        Map<String, Map<ToolType, Availability>> byLocation = new TreeMap<>();
+        layout
+            .inventories()
+            .forEach((inventoryId, inventory) -> {
+                var current = counts.get(inventoryId);
+                if (current == null || (location != null && !location.equals(inventory.location()))) {
+                    return;
+                }
+                for (ToolType type : inventory.toolTypes()) {
+                    if (toolType == null || toolType == type) {
+                        byLocation
+                            .computeIfAbsent(inventory.location(), l -> new EnumMap<>(ToolType.class))
+                            .merge(type, Availability.of(inventory.location(), type, current), Availability::plus);
+                    }
+                }
+            });
+
+        List<Availability> availability = new ArrayList<>();
+        byLocation.values().forEach(byType -> availability.addAll(byType.values()));
+        return availability;
+    }
+
+    /**
+     * Apply a change of the inventory counts of a tool once the surrounding transaction commits.
+     *
+     * @param toolCode the code of the tool.
+     * @param checkedOutDelta the change of the checked out count.
+     * @param onHoldDelta the change of the on hold count.
+     */
+    public void recordChange(String toolCode, int checkedOutDelta, int onHoldDelta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(toolCode, checkedOutDelta, onHoldDelta);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                private Long inventoryId;
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    inventoryId = layout.inventoryIdsByToolCode().get(toolCode);
+                    if (inventoryId != null) {
+                        committing.merge(inventoryId, 1, Integer::sum);
+                    }
+                }
+
+                @Override
+                public void afterCommit() {
+                    apply(toolCode, checkedOutDelta, onHoldDelta);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (inventoryId != null) {
+                        committing.computeIfPresent(inventoryId, (id, count) -> count > 1 ? count - 1 : null);
+                    }
+                }
+            }
+        );
+    }
+
+    private void apply(String toolCode, int checkedOutDelta, int onHoldDelta) {
+        var inventoryId = layout.inventoryIdsByToolCode().get(toolCode);
+        if (inventoryId == null) {
+            LOG.debug("Tool {} is not in the availability view yet, left to reconciliation", toolCode);
+            return;
+        }
+
+        long stamp = sequence.incrementAndGet();
+        counts.computeIfPresent(inventoryId, (id, current) ->
+            new Counts(current.stockCount(), current.checkedOutCount() + checkedOutDelta, current.onHoldCount() + onHoldDelta, stamp)
+        );
+    }
+
+    @PostConstruct
+    public void populate() {
+        reconcile();
+    }
+
+    /**
+     * Reconciles the view once an inventory change made outside of rentals, e.g. a stock change, is committed.
+     *
+     * @param event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onEvent(ReferenceDataEvents.InventoriesChanged event) {
+        LOG.debug("Received event : {}", event);
+        reconcile();
+    }
+
+    /**
+     * Reloads the location and tools of the inventories once a tool is committed, so changes of the tool are applied.
+     *
+     * @param event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onEvent(ReferenceDataEvents.ToolsChanged event) {
+        LOG.debug("Received event : {}", event);
+        reconcile();
+    }
+
+    /**
+     * Reload the inventories and correct the counts which were not changed since the reload started.
+     */
+    @Scheduled(
+        fixedDelayString = "${application.inventory-availability.reconcile-interval:PT1M}",
+        initialDelayString = "${application.inventory-availability.reconcile-interval:PT1M}"
+    )
+    @Transactional(readOnly = true)
+    public void reconcile() {
+        reconcileLock.lock();
+        try {
+            long start = sequence.get();
+            var rows = toolInventoryRepository.findAvailabilityRows();
+
+            Map<Long, Inventory> inventories = new HashMap<>();
+            Map<String, Long> inventoryIdsByToolCode = new HashMap<>();
+            Map<Long, Counts> loaded = new HashMap<>();
+            for (InventoryAvailabilityRow row : rows) {
+                inventoryIdsByToolCode.put(row.toolCode(), row.inventoryId());
+                inventories
+                    .computeIfAbsent(row.inventoryId(), id -> new Inventory(row.location(), EnumSet.noneOf(ToolType.class)))
+                    .toolTypes()
+                    .add(row.toolType());
+                loaded.putIfAbsent(row.inventoryId(), new Counts(row.stockCount(), row.checkedOutCount(), row.onHoldCount(), start));
+            }
+            layout = new Layout(Map.copyOf(inventories), Map.copyOf(inventoryIdsByToolCode));
+
+            int drift = 0;
+            for (var entry : loaded.entrySet()) {
+                var current = counts.get(entry.getKey());
+                // a change committing now may be in the rows read, it is reconciled in the next round
+                if (current != null && (current.stamp() > start || committing.containsKey(entry.getKey()))) {
+                    continue;
+                }
+                if (current != null && !current.sameCounts(entry.getValue())) {
+                    drift++;
+                }
+                // a change applied meanwhile wins, it is reconciled in the next round
+                counts.merge(entry.getKey(), entry.getValue(), (existing, reloaded) -> existing.stamp() > start ? existing : reloaded);
+            }
+            counts.entrySet().removeIf(entry -> !loaded.containsKey(entry.getKey()) && entry.getValue().stamp() <= start);
+
+            driftCounter.increment(drift);
+            LOG.debug("Reconciled availability of {} inventories, {} corrected", loaded.size(), drift);
+        } finally {
+            reconcileLock.unlock();
+        }
+    }
+
+    private record Counts(int stockCount, int checkedOutCount, int onHoldCount, long stamp) {
+        boolean sameCounts(Counts other) {
+            return stockCount == other.stockCount && checkedOutCount == other.checkedOutCount && onHoldCount == other.onHoldCount;
+        }
+    }
+
+    private record Inventory(String location, Set<ToolType> toolTypes) {}
+
+    private record Layout(Map<Long, Inventory> inventories, Map<String, Long> inventoryIdsByToolCode) {}
+
+    public record Availability(String location, ToolType toolType, int stockCount, int checkedOutCount, int onHoldCount) {
+        static Availability of(String location, ToolType toolType, Counts counts) {
+            return new Availability(location, toolType, counts.stockCount(), counts.checkedOutCount(), counts.onHoldCount());
+        }
+
+        Availability plus(Availability other) {
+            return new Availability(
+                location,
+                toolType,
+                stockCount + other.stockCount,
+                checkedOutCount + other.checkedOutCount,
+                onHoldCount + other.onHoldCount
+            );
+        }
+
+        public int getAvailableCount() {
+            return stockCount - checkedOutCount - onHoldCount;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package org.nimdaved.toolrent.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.nimdaved.toolrent.config.ApplicationProperties;
+import org.nimdaved.toolrent.domain.OutboxEvent;
+import org.nimdaved.toolrent.domain.enumeration.OutboxEventType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Delivers events recorded in the outbox which were not applied in-process, e.g. because the application stopped
+ * between commit and the after-commit listener.
+ * <p>
+ * Due events are claimed in batches by short transactions, so several instances can dispatch concurrently and
+ * no lock is held while events are handled. Events are handled in the order they were recorded and handlers
+ * are idempotent: an event is delivered again after its lease expires until it is deleted on success.
+ */
+@Service
+public class OutboxDispatcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    public static final String LAG_METER_NAME = "outbox.lag";
+    public static final String DISPATCHED_METER_NAME = "outbox.dispatched";
+    public static final String EVENT_TYPE_DIMENSION = "eventType";
+
+    private final OutboxService outboxService;
+    private final RentalAgreementPipeline rentalAgreementPipeline;
+    private final ApplicationProperties.Outbox properties;
+
+    private final Map<OutboxEventType, Timer> lagTimers = new EnumMap<>(OutboxEventType.class);
+    private final Map<OutboxEventType, Counter> deliveredCounters = new EnumMap<>(OutboxEventType.class);
+    private final Map<OutboxEventType, Counter> failedCounters = new EnumMap<>(OutboxEventType.class);
+
+    public OutboxDispatcher(
+        OutboxService outboxService,
+        RentalAgreementPipeline rentalAgreementPipeline,
+        ApplicationProperties applicationProperties,
+        MeterRegistry registry
+    ) {
+        this.outboxService = outboxService;
+        this.rentalAgreementPipeline = rentalAgreementPipeline;
+        this.properties = applicationProperties.getOutbox();
+
+        for (OutboxEventType eventType : OutboxEventType.values()) {
+            lagTimers.put(
+                eventType,
+                Timer.builder(LAG_METER_NAME)
+                    .description("Time between recording of an outbox event and its delivery by the dispatcher")
+                    .tag(EVENT_TYPE_DIMENSION, eventType.name())
+                    .register(registry)
+            );
+            deliveredCounters.put(eventType, dispatchedCounter(eventType, "delivered").register(registry));
+            failedCounters.put(eventType, dispatchedCounter(eventType, "failed").register(registry));
+        }
+    }
+
+    private static Counter.Builder dispatchedCounter(OutboxEventType eventType, String outcome) {
+        return Counter.builder(DISPATCHED_METER_NAME)
+            .description("Outbox events delivered by the dispatcher")
+            .tag(EVENT_TYPE_DIMENSION, eventType.name())
+            .tag("outcome", outcome);
+    }
+
+    /**
+     * Deliver due events, batch by batch, until the outbox is drained.
+     */
+    @Scheduled(fixedDelayString = "${application.outbox.poll-interval:PT1S}")
+    public void dispatch() {
+        int claimed;
+        do {
+            var now = Instant.now();
+            var events = outboxService.claim(now);
+            claimed = events.size();
+            if (claimed > 0) {
+                LOG.debug("Dispatching {} outbox events", claimed);
+                deliver(events, now);
+            }
+        } while (claimed >= properties.getBatchSize());
+    }
+
+    private void deliver(List<OutboxEvent> events, Instant now) {
+        // events of a type are handled in bulk, types in the order of their first event
+        Map<OutboxEventType, List<OutboxEvent>> byType = events
+            .stream()
+            .collect(Collectors.groupingBy(OutboxEvent::getEventType, LinkedHashMap::new, Collectors.toList()));
+
+        byType.forEach((eventType, batch) -> {
+            for (OutboxEvent event : batch) {
+                lagTimers.get(eventType).record(Duration.between(event.getCreatedDate(), now));
+            }
+            try {
+                handle(eventType, batch.stream().map(OutboxEvent::getRentalId).toList());
+                outboxService.complete(batch.stream().map(OutboxEvent::getId).toList());
+                deliveredCounters.get(eventType).increment(batch.size());
+            } catch (RuntimeException e) {
+                // left in the outbox, delivered again once the lease expires
+                LOG.warn("Delivery of {} {} outbox events failed: {}", batch.size(), eventType, e.getMessage());
+                failedCounters.get(eventType).increment(batch.size());
+            }
+        });
+    }
+
+    private void handle(OutboxEventType eventType, List<Long> rentalIds) {
+        switch (eventType) {
+            case RENTAL_CREATED -> rentalAgreementPipeline.generatePending(rentalIds);
+        }
+    }
+}
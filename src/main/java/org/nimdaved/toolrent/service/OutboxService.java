@@ -0,0 +1,95 @@
+package org.nimdaved.toolrent.service;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import org.nimdaved.toolrent.config.ApplicationProperties;
+import org.nimdaved.toolrent.domain.OutboxEvent;
+import org.nimdaved.toolrent.domain.enumeration.OutboxEventType;
+import org.nimdaved.toolrent.repository.OutboxEventRepository;
+import org.nimdaved.toolrent.service.dto.ToolRentalEvents;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service Implementation for managing {@link org.nimdaved.toolrent.domain.OutboxEvent}.
+ * <p>
+ * Events are recorded by synchronous listeners, i.e. in the transaction of the state change, and
+ * become due for the {@link OutboxDispatcher} after the dispatch delay, which leaves time for in-process delivery.
+ */
+@Service
+@Transactional
+public class OutboxService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OutboxService.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ApplicationProperties.Outbox properties;
+
+    public OutboxService(OutboxEventRepository outboxEventRepository, ApplicationProperties applicationProperties) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.properties = applicationProperties.getOutbox();
+    }
+
+    @EventListener
+    public void onEvent(ToolRentalEvents.RentalCreated event) {
+        record(OutboxEventType.RENTAL_CREATED, event.rental().getId());
+    }
+
+    private void record(OutboxEventType eventType, Long rentalId) {
+        var now = Instant.now();
+        var outboxEvent = new OutboxEvent()
+            .eventType(eventType)
+            .rentalId(rentalId)
+            .createdDate(now)
+            .availableAt(now.plus(properties.getDispatchDelay()))
+            .attempts(0);
+        LOG.debug("Request to save OutboxEvent : {}", outboxEvent);
+        outboxEventRepository.save(outboxEvent);
+    }
+
+    /**
+     * Claim due events for delivery: each claimed event counts an attempt and is hidden from other dispatchers for the lease.
+     *
+     * @param now the current time.
+     * @return the claimed events, in the order they were recorded.
+     */
+    public List<OutboxEvent> claim(Instant now) {
+        var events = outboxEventRepository.findDue(now, properties.getMaxAttempts(), PageRequest.ofSize(properties.getBatchSize()));
+        var leasedUntil = now.plus(properties.getLease());
+        for (OutboxEvent event : events) {
+            event.setAvailableAt(leasedUntil);
+            event.setAttempts(event.getAttempts() + 1);
+            if (event.getAttempts() >= properties.getMaxAttempts()) {
+                LOG.warn("Last delivery attempt of {}, the event is parked if it fails", event);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Delete events whose effects are applied.
+     *
+     * @param ids the ids of the events.
+     */
+    public void complete(Collection<Long> ids) {
+        LOG.debug("Request to delete OutboxEvents : {}", ids);
+        outboxEventRepository.deleteAllByIdInBatch(ids);
+    }
+
+    /**
+     * Delete events of the rentals, as part of the transaction which applies their effects.
+     *
+     * @param eventType the type of the events.
+     * @param rentalIds the ids of the rentals.
+     */
+    public void complete(OutboxEventType eventType, Collection<Long> rentalIds) {
+        if (!rentalIds.isEmpty()) {
+            outboxEventRepository.deleteByEventTypeAndRentalIdIn(eventType, rentalIds);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package org.nimdaved.toolrent.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.nimdaved.toolrent.config.ApplicationProperties;
+import org.nimdaved.toolrent.domain.Rental;
+import org.nimdaved.toolrent.domain.RentalAgreement;
+import org.nimdaved.toolrent.domain.enumeration.RentalStatus;
+import org.nimdaved.toolrent.repository.RentalAgreementRepository;
+import org.nimdaved.toolrent.repository.RentalRepository;
+import org.nimdaved.toolrent.service.dto.ToolRentalEvents;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Asynchronous, micro-batched generation of rental agreements.
+ * <p>
+ * Created rentals are queued after commit and picked up by workers, which collect batches of up to
+ * {@code batch-size} rentals (waiting at most {@code max-linger} for a batch to fill up), render the agreements
+ * and insert them in one transaction, so inserts are grouped into JDBC batches.
+ * <p>
+ * The creation of a rental is recorded in the outbox, which is cleared together with saving the agreement,
+ * so rentals lost from the in-memory queue (exhausted retries, restart) are delivered again by the {@link OutboxDispatcher}.
+ * When the queue is full the agreement is generated on the caller thread, which slows down producers instead of dropping work.
+ * <p>
+ * Workers run on a {@link SimpleAsyncTaskExecutor} built by Spring Boot, i.e. on virtual threads with
+ * {@code spring.threads.virtual.enabled}, and are stopped with the application context.
+ */
+@Service
+public class RentalAgreementPipeline {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RentalAgreementPipeline.class);
+
+    public static final String QUEUE_METER_NAME = "rental.agreement.pipeline.queue";
+    public static final String PROCESSED_METER_NAME = "rental.agreement.pipeline.processed";
+
+    private static final Duration WORKER_TERMINATION_TIMEOUT = Duration.ofSeconds(5);
+
+    private final RentalAgreementService rentalAgreementService;
+    private final RentalRepository rentalRepository;
+    private final RentalAgreementRepository rentalAgreementRepository;
+    private final ChargeService chargeService;
+    private final ApplicationProperties.AgreementPipeline properties;
+
+    private final BlockingQueue<Rental> queue;
+    private final SimpleAsyncTaskExecutor workerExecutor;
+    private volatile boolean running;
+
+    private final Counter generatedCounter;
+    private final Counter callerRunsCounter;
+    private final Counter failedCounter;
+
+    public RentalAgreementPipeline(
+        RentalAgreementService rentalAgreementService,
+        RentalRepository rentalRepository,
+        RentalAgreementRepository rentalAgreementRepository,
+        ChargeService chargeService,
+        ApplicationProperties applicationProperties,
+        SimpleAsyncTaskExecutorBuilder taskExecutorBuilder,
+        MeterRegistry registry
+    ) {
+        this.rentalAgreementService = rentalAgreementService;
+        this.rentalRepository = rentalRepository;
+        this.rentalAgreementRepository = rentalAgreementRepository;
+        this.chargeService = chargeService;
+        this.properties = applicationProperties.getAgreementPipeline();
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity()));
+        // one thread per worker, regardless of the concurrency limit of @Async methods
+        this.workerExecutor = taskExecutorBuilder
+            .threadNamePrefix("rental-agreement-pipeline-")
+            .concurrencyLimit(null)
+            .taskTerminationTimeout(WORKER_TERMINATION_TIMEOUT)
+            .build();
+
+        Gauge.builder(QUEUE_METER_NAME, queue, BlockingQueue::size)
+            .description("Number of rentals waiting for agreement generation")
+            .register(registry);
+        this.generatedCounter = processedCounterBuilder("generated").register(registry);
+        this.callerRunsCounter = processedCounterBuilder("caller-runs").register(registry);
+        this.failedCounter = processedCounterBuilder("failed").register(registry);
+    }
+
+    private Counter.Builder processedCounterBuilder(String outcome) {
+        return Counter.builder(PROCESSED_METER_NAME).description("Rentals processed by the agreement pipeline").tag("outcome", outcome);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        running = true;
+        for (int i = 0; i < Math.max(1, properties.getWorkers()); i++) {
+            workerExecutor.execute(this::work);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        // interrupts the workers waiting for rentals and waits for the batches in progress up to the termination timeout
+        workerExecutor.close();
+        // rentals still queued stay in the outbox and are delivered by the dispatcher
+        LOG.debug("Agreement pipeline stopped with {} rentals queued", queue.size());
+    }
+
+    /**
+     * Processes ToolRentalEvents.RentalCreated event once the rental is committed
+     *
+     * @param event
+     */
+    @TransactionalEventListener
+    public void onEvent(ToolRentalEvents.RentalCreated event) {
+        LOG.debug("Received event : {}", event);
+        submit(event.rental());
+    }
+
+    /**
+     * Queue rental for agreement generation, generate on the caller thread when disabled or queue is full.
+     * The caller makes a single attempt, without backing off: a failed rental is left to the outbox dispatcher.
+     *
+     * @param rental the created rental.
+     */
+    public void submit(Rental rental) {
+        if (running && queue.offer(rental)) {
+            return;
+        }
+
+        if (running) {
+            callerRunsCounter.increment();
+        }
+        process(List.of(rental), 1);
+    }
+
+    /**
+     * Generate the agreement of a rental pending generation right away, e.g. when it is requested before the pipeline got to it.
+     *
+     * @param rentalId the id of the rental.
+     * @return the generated agreement, or empty if the rental is not pending generation.
+     */
+    public Optional<RentalAgreement> generatePending(Long rentalId) {
+        try {
+            return rentalRepository
+                .findPendingAgreementById(rentalId, RentalStatus.CREATED)
+                .map(this::withCharges)
+                .flatMap(rental -> rentalAgreementService.createAgreements(List.of(rental)).stream().findFirst());
+        } catch (DataIntegrityViolationException e) {
+            // a worker saved the agreement of the rental at the same time
+            LOG.debug("Agreement of rental {} was generated concurrently", rentalId);
+            return rentalAgreementRepository.findByRentalId(rentalId);
+        }
+    }
+
+    /**
+     * Generate the agreements of rentals pending generation on the caller thread.
+     * Rentals which already have an agreement, or are no longer {@link RentalStatus#CREATED}, are skipped.
+     *
+     * @param rentalIds the ids of the rentals.
+     * @return the generated agreements.
+     */
+    public List<RentalAgreement> generatePending(Collection<Long> rentalIds) {
+        var rentals = rentalRepository.findPendingAgreementByIdIn(rentalIds, RentalStatus.CREATED);
+        return rentalAgreementService.createAgreements(rentals.stream().map(this::withCharges).toList());
+    }
+
+    /**
+     * Prices rentals created before their charge details were stored with them, at the current rates.
+     */
+    private Rental withCharges(Rental rental) {
+        if (rental.getChargedDaysCount() != null && rental.getDailyCharges() != null) {
+            return rental;
+        }
+        var charges = chargeService.calculateCharges(rental.getTool(), rental.getCheckOutDate(), rental.getDayCount());
+        rental.setChargedDaysCount(charges.chargedDays());
+        rental.setDailyCharges(charges.dailyCharges());
+        return rental;
+    }
+
+    private void work() {
+        int batchSize = Math.max(1, properties.getBatchSize());
+        long lingerNanos = properties.getMaxLinger().toNanos();
+
+        while (running) {
+            List<Rental> batch = new ArrayList<>(batchSize);
+            try {
+                var first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    var next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            process(batch, Math.max(1, properties.getMaxAttempts()));
+        }
+    }
+
+    private void process(List<Rental> batch, int maxAttempts) {
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                rentalAgreementService.createAgreements(batch);
+                generatedCounter.increment(batch.size());
+                return;
+            } catch (RuntimeException e) {
+                LOG.warn(
+                    "Agreement generation of {} rentals failed, attempt {} of {}: {}",
+                    batch.size(),
+                    attempt,
+                    maxAttempts,
+                    e.getMessage()
+                );
+                if (attempt < maxAttempts && !backOff(attempt)) {
+                    break;
+                }
+            }
+        }
+
+        // rentals stay in the outbox and are delivered again by the dispatcher
+        failedCounter.increment(batch.size());
+    }
+
+    private boolean backOff(int attempt) {
+        try {
+            Thread.sleep(properties.getRetryBackoff().multipliedBy(attempt).toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -1,21 +1,32 @@
 package org.nimdaved.toolrent.service;
 
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
+import org.nimdaved.toolrent.domain.Rental;
 import org.nimdaved.toolrent.domain.RentalAgreement;
+import org.nimdaved.toolrent.domain.enumeration.OutboxEventType;
 import org.nimdaved.toolrent.domain.enumeration.RentalAgreementStatus;
 import org.nimdaved.toolrent.repository.RentalAgreementRepository;
+import org.nimdaved.toolrent.repository.RentalRepository;
+import org.nimdaved.toolrent.service.dto.KeysetCursor;
 import org.nimdaved.toolrent.service.dto.ToolRentalEvents;
+import org.nimdaved.toolrent.service.jfr.AgreementGenerationEvent;
+import org.nimdaved.toolrent.service.jfr.RentalEventDispatchEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.transaction.event.TransactionalEventListener;
 import org.springframework.web.server.ResponseStatusException;
 
 /**
@@ -27,19 +38,33 @@ public class RentalAgreementService {
 
     private static final Logger LOG = LoggerFactory.getLogger(RentalAgreementService.class);
 
+    public static final String GENERATION_METER_NAME = "rental.agreement.generation";
+
     private final RentalAgreementRepository rentalAgreementRepository;
+    private final RentalRepository rentalRepository;
     private final DocumentGeneratorService documentGeneratorService;
+    private final OutboxService outboxService;
 
     private final ApplicationEventPublisher eventPublisher;
 
+    private final Meter.MeterProvider<Timer> generationTimers;
+
     public RentalAgreementService(
         RentalAgreementRepository rentalAgreementRepository,
+        RentalRepository rentalRepository,
         DocumentGeneratorService documentGeneratorService,
-        ApplicationEventPublisher eventPublisher
+        OutboxService outboxService,
+        ApplicationEventPublisher eventPublisher,
+        MeterRegistry meterRegistry
     ) {
         this.rentalAgreementRepository = rentalAgreementRepository;
+        this.rentalRepository = rentalRepository;
         this.documentGeneratorService = documentGeneratorService;
+        this.outboxService = outboxService;
         this.eventPublisher = eventPublisher;
+        this.generationTimers = Timer.builder(GENERATION_METER_NAME)
+            .description("Rendering of rental agreements, per rental")
+            .withRegistry(meterRegistry);
     }
 
     /**
@@ -54,7 +79,7 @@ public class RentalAgreementService {
     }
 
     /**
-     * Get all the rentalAgreements.
+     * Get all the rentalAgreements, with their rental.
      *
      * @param pageable the pagination information.
      * @return the list of entities.
@@ -62,11 +87,27 @@ public class RentalAgreementService {
     @Transactional(readOnly = true)
     public Page<RentalAgreement> findAll(Pageable pageable) {
         LOG.debug("Request to get all RentalAgreements");
-        return rentalAgreementRepository.findAll(pageable);
+        return rentalAgreementRepository.findAllWithRental(pageable);
+    }
+
+    /**
+     * Get the page of rentalAgreements following the cursor, with their rental, without counting the rentalAgreements.
+     *
+     * @param cursor the position after the last rentalAgreement of the previous page.
+     * @param size the page size.
+     * @return the list of entities.
+     */
+    @Transactional(readOnly = true)
+    public List<RentalAgreement> findAll(KeysetCursor cursor, int size) {
+        LOG.debug("Request to get RentalAgreements after {}", cursor);
+        if (cursor.order() != KeysetCursor.Order.ID) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "RentalAgreements can only be paged by id");
+        }
+        return rentalAgreementRepository.findPageAfterId(cursor.isFirst() ? Long.MIN_VALUE : cursor.id(), PageRequest.ofSize(size));
     }
 
     /**
-     * Get one rentalAgreement by id.
+     * Get one rentalAgreement by id, with its rental.
      *
      * @param id the id of the entity.
      * @return the entity.
@@ -74,7 +115,7 @@ public class RentalAgreementService {
     @Transactional(readOnly = true)
     public Optional<RentalAgreement> findOne(Long id) {
         LOG.debug("Request to get RentalAgreement : {}", id);
-        return rentalAgreementRepository.findById(id);
+        return rentalAgreementRepository.findWithRentalById(id);
     }
 
     /**
@@ -121,14 +162,16 @@ public class RentalAgreementService {
         RentalAgreementStatus targetStatus,
         Function<RentalAgreement, R> function
     ) {
+        // the rental is locked before the agreement is read, as by the expiry of stale rentals, so a concurrent expiry
+        // is either skipped or committed before the status is checked
+        rentalAgreementRepository.findRentalIdById(rentalAgreementId).ifPresent(rentalRepository::findLockedById);
         findOne(rentalAgreementId)
             .filter(ra -> sourceStatus == ra.getStatus())
             .ifPresentOrElse(
                 rentalAgreement -> {
                     rentalAgreement.setStatus(targetStatus);
                     var saved = save(rentalAgreement);
-                    rentalAgreement.getRental();
-                    eventPublisher.publishEvent(function.apply(saved));
+                    publish(function.apply(saved), rentalAgreement.getRental());
                 },
                 () -> {
                     throw new ResponseStatusException(
@@ -140,21 +183,62 @@ public class RentalAgreementService {
     }
 
     /**
-     * Processes ToolRentalEvents.RentalCreated event
+     * Generate and save agreements of created rentals, skipping rentals which already have one.
+     * Agreements are saved in one transaction, so inserts are grouped into JDBC batches,
+     * together with the completion of the rentals' outbox events.
      *
-     * @param event
+     * @param rentals the created rentals.
+     * @return the persisted agreements.
      */
-    @TransactionalEventListener
     @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void onEvent(ToolRentalEvents.RentalCreated event) {
-        LOG.debug("Received event : {}", event);
+    public List<RentalAgreement> createAgreements(List<Rental> rentals) {
+        LOG.debug("Request to create RentalAgreements for {} rentals", rentals.size());
+        if (rentals.isEmpty()) {
+            return List.of();
+        }
+
+        var rentalIds = rentals.stream().map(Rental::getId).toList();
+        var existing = Set.copyOf(rentalAgreementRepository.findRentalIdsByRentalIdIn(rentalIds));
+
+        var agreements = rentals
+            .stream()
+            .filter(rental -> !existing.contains(rental.getId()))
+            .distinct()
+            .map(rental ->
+                new RentalAgreement()
+                    .rental(rental)
+                    .agreement(render(rental))
+                    //PENDING until accepted by customer
+                    .status(RentalAgreementStatus.PENDING)
+            )
+            .toList();
+
+        outboxService.complete(OutboxEventType.RENTAL_CREATED, rentalIds);
+        return rentalAgreementRepository.saveAll(agreements);
+    }
 
-        RentalAgreement rentalAgreement = new RentalAgreement()
-            .rental(event.rental())
-            .agreement(documentGeneratorService.createRentalAgreement(event.rental()))
-            //PENDING until accepted by customer
-            .status(RentalAgreementStatus.PENDING);
+    /**
+     * Publish the event within a {@link RentalEventDispatchEvent}, which covers the {@code @EventListener} listeners only:
+     * {@code @TransactionalEventListener} listeners are deferred to the completion of the transaction, outside of it.
+     */
+    private void publish(Object event, Rental rental) {
+        new RentalEventDispatchEvent()
+            .eventType(event)
+            .rental(rental)
+            .record(() -> {
+                eventPublisher.publishEvent(event);
+                return event;
+            });
+    }
 
-        save(rentalAgreement);
+    private String render(Rental rental) {
+        return RentalMeters.record(
+            generationTimers,
+            () -> new AgreementGenerationEvent().rental(rental).record(() -> documentGeneratorService.createRentalAgreement(rental)),
+            RentalMeters.TOOL_TYPE_TAG,
+            RentalMeters.toolType(rental.getTool() != null ? rental.getTool().getToolType() : null),
+            RentalMeters.RENTAL_LENGTH_TAG,
+            RentalMeters.rentalLength(rental.getDayCount())
+        );
     }
 }
@@ -0,0 +1,90 @@
+package org.nimdaved.toolrent.service;
+
+import java.time.Instant;
+import org.nimdaved.toolrent.domain.Rental;
+import org.nimdaved.toolrent.domain.enumeration.OutboxEventType;
+import org.nimdaved.toolrent.domain.enumeration.RentalAgreementStatus;
+import org.nimdaved.toolrent.domain.enumeration.RentalStatus;
+import org.nimdaved.toolrent.repository.RentalAgreementRepository;
+import org.nimdaved.toolrent.repository.RentalRepository;
+import org.nimdaved.toolrent.repository.ToolInventoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Expiry of rentals left {@link RentalStatus#CREATED}, e.g. abandoned before the agreement was accepted,
+ * whose holds keep tools from being rented.
+ * <p>
+ * A chunk of stale rentals is expired in one transaction with set-based statements: the agreements are rejected,
+ * the rentals cancelled and the holds released, instead of going through the per-rental status change events.
+ */
+@Service
+@Transactional
+public class RentalExpiryService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RentalExpiryService.class);
+
+    private final RentalRepository rentalRepository;
+    private final RentalAgreementRepository rentalAgreementRepository;
+    private final ToolInventoryRepository toolInventoryRepository;
+    private final InventoryAvailabilityService inventoryAvailabilityService;
+    private final OutboxService outboxService;
+
+    public RentalExpiryService(
+        RentalRepository rentalRepository,
+        RentalAgreementRepository rentalAgreementRepository,
+        ToolInventoryRepository toolInventoryRepository,
+        InventoryAvailabilityService inventoryAvailabilityService,
+        OutboxService outboxService
+    ) {
+        this.rentalRepository = rentalRepository;
+        this.rentalAgreementRepository = rentalAgreementRepository;
+        this.toolInventoryRepository = toolInventoryRepository;
+        this.inventoryAvailabilityService = inventoryAvailabilityService;
+        this.outboxService = outboxService;
+    }
+
+    /**
+     * Expire the oldest rentals created, and with agreements pending, since before the cutoff.
+     *
+     * @param cutoff the time of the last modification before which rentals expire.
+     * @param limit the maximum number of rentals.
+     * @return the numbers of expired rentals and agreements.
+     */
+    public Expired expire(Instant cutoff, int limit) {
+        var rentals = rentalRepository.findStale(RentalStatus.CREATED, cutoff, PageRequest.ofSize(limit));
+        if (rentals.isEmpty()) {
+            return new Expired(0, 0);
+        }
+
+        var ids = rentals.stream().map(Rental::getId).toList();
+        var now = Instant.now();
+        // the rentals are locked, and agreements are accepted or rejected under the lock of their rental,
+        // so none of them changed status since they were read
+        int agreements = rentalAgreementRepository.updateStatusByRentalIdIn(
+            ids,
+            RentalAgreementStatus.PENDING,
+            RentalAgreementStatus.REJECTED,
+            now
+        );
+        int cancelled = rentalRepository.updateStatusByIdIn(ids, RentalStatus.CREATED, RentalStatus.CANCELLED, now);
+        toolInventoryRepository.releaseHolds(ids);
+        // agreements are no longer generated for cancelled rentals
+        outboxService.complete(OutboxEventType.RENTAL_CREATED, ids);
+
+        for (Rental rental : rentals) {
+            // the tool code is the identifier of the lazy association, so the tool is not loaded here
+            if (rental.getTool() != null) {
+                inventoryAvailabilityService.recordChange(rental.getTool().getCode(), 0, -1);
+            }
+        }
+
+        LOG.debug("Expired {} rentals and {} agreements modified before {}", cancelled, agreements, cutoff);
+        return new Expired(cancelled, agreements);
+    }
+
+    public record Expired(int rentals, int agreements) {}
+}
@@ -0,0 +1,72 @@
+package org.nimdaved.toolrent.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Instant;
+import org.nimdaved.toolrent.config.ApplicationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Periodically expires stale rentals through {@link RentalExpiryService}, chunk by chunk, one transaction per chunk,
+ * so locks are held briefly and other instances can sweep concurrently.
+ */
+@Service
+public class RentalExpirySweeper {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RentalExpirySweeper.class);
+
+    public static final String EXPIRED_METER_NAME = "rental.expiry.expired";
+    public static final String SWEEP_METER_NAME = "rental.expiry.sweep";
+
+    private final RentalExpiryService rentalExpiryService;
+    private final ApplicationProperties.RentalExpiry properties;
+
+    private final Counter expiredRentalsCounter;
+    private final Counter expiredAgreementsCounter;
+    private final Timer sweepTimer;
+
+    public RentalExpirySweeper(
+        RentalExpiryService rentalExpiryService,
+        ApplicationProperties applicationProperties,
+        MeterRegistry registry
+    ) {
+        this.rentalExpiryService = rentalExpiryService;
+        this.properties = applicationProperties.getRentalExpiry();
+
+        this.expiredRentalsCounter = expiredCounter("rental").register(registry);
+        this.expiredAgreementsCounter = expiredCounter("agreement").register(registry);
+        this.sweepTimer = Timer.builder(SWEEP_METER_NAME).description("Duration of sweeps for expired rentals").register(registry);
+    }
+
+    private static Counter.Builder expiredCounter(String entity) {
+        return Counter.builder(EXPIRED_METER_NAME).description("Rentals cancelled and agreements rejected on expiry").tag("entity", entity);
+    }
+
+    /**
+     * Expire rentals modified before the timeout, chunk by chunk, until none is left.
+     */
+    @Scheduled(
+        fixedDelayString = "${application.rental-expiry.sweep-interval:PT5M}",
+        initialDelayString = "${application.rental-expiry.sweep-interval:PT5M}"
+    )
+    public void sweep() {
+        sweepTimer.record(() -> {
+            var cutoff = Instant.now().minus(properties.getTimeout());
+            int chunkSize = Math.max(1, properties.getChunkSize());
+
+            RentalExpiryService.Expired expired;
+            do {
+                expired = rentalExpiryService.expire(cutoff, chunkSize);
+                expiredRentalsCounter.increment(expired.rentals());
+                expiredAgreementsCounter.increment(expired.agreements());
+                if (expired.rentals() > 0) {
+                    LOG.info("Expired {} rentals and {} agreements modified before {}", expired.rentals(), expired.agreements(), cutoff);
+                }
+            } while (expired.rentals() >= chunkSize);
+        });
+    }
+}
@@ -0,0 +1,184 @@
+package org.nimdaved.toolrent.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.nimdaved.toolrent.repository.RentalAgreementExportRow;
+import org.nimdaved.toolrent.repository.RentalAgreementRepository;
+import org.nimdaved.toolrent.repository.RentalExportRow;
+import org.nimdaved.toolrent.repository.RentalRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Streaming export of rentals and rental agreements.
+ * <p>
+ * Rows are read in one pass from a forward-only, chunked cursor as unmanaged projections and written as they are read,
+ * so memory use does not depend on the number of exported rows.
+ */
+@Service
+@Transactional(readOnly = true)
+public class RentalExportService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RentalExportService.class);
+
+    private static final int FLUSH_INTERVAL_ROWS = 500;
+
+    private static final List<Column<RentalExportRow>> RENTAL_COLUMNS = List.of(
+        new Column<>("id", RentalExportRow::id),
+        new Column<>("checkOutDate", RentalExportRow::checkOutDate),
+        new Column<>("dayCount", RentalExportRow::dayCount),
+        new Column<>("discountPercent", RentalExportRow::discountPercent),
+        new Column<>("status", RentalExportRow::status),
+        new Column<>("chargeAmount", RentalExportRow::chargeAmount),
+        new Column<>("toolCode", RentalExportRow::toolCode),
+        new Column<>("customerId", RentalExportRow::customerId)
+    );
+
+    private static final List<Column<RentalAgreementExportRow>> RENTAL_AGREEMENT_COLUMNS = List.of(
+        new Column<>("id", RentalAgreementExportRow::id),
+        new Column<>("status", RentalAgreementExportRow::status),
+        new Column<>("rentalId", RentalAgreementExportRow::rentalId),
+        new Column<>("checkOutDate", RentalAgreementExportRow::checkOutDate),
+        new Column<>("agreement", RentalAgreementExportRow::agreement)
+    );
+
+    private final RentalRepository rentalRepository;
+    private final RentalAgreementRepository rentalAgreementRepository;
+    private final ObjectMapper objectMapper;
+
+    public RentalExportService(
+        RentalRepository rentalRepository,
+        RentalAgreementRepository rentalAgreementRepository,
+        ObjectMapper objectMapper
+    ) {
+        this.rentalRepository = rentalRepository;
+        this.rentalAgreementRepository = rentalAgreementRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Write rentals with check-out date in [from, to).
+     *
+     * @param format the output format.
+     * @param from the first check-out date, unbounded if {@code null}.
+     * @param to the check-out date after the last one, unbounded if {@code null}.
+     * @param out the output, left open.
+     * @return the number of exported rentals.
+     */
+    public long exportRentals(Format format, LocalDate from, LocalDate to, OutputStream out) throws IOException {
+        LOG.debug("Request to export Rentals from {} to {} as {}", from, to, format);
+        try (var rows = rentalRepository.streamForExport(from, to)) {
+            return export(format, rows, RENTAL_COLUMNS, out);
+        }
+    }
+
+    /**
+     * Write agreements of rentals with check-out date in [from, to).
+     *
+     * @param format the output format.
+     * @param from the first check-out date, unbounded if {@code null}.
+     * @param to the check-out date after the last one, unbounded if {@code null}.
+     * @param out the output, left open.
+     * @return the number of exported rentalAgreements.
+     */
+    public long exportRentalAgreements(Format format, LocalDate from, LocalDate to, OutputStream out) throws IOException {
+        LOG.debug("Request to export RentalAgreements from {} to {} as {}", from, to, format);
+        try (var rows = rentalAgreementRepository.streamForExport(from, to)) {
+            return export(format, rows, RENTAL_AGREEMENT_COLUMNS, out);
+        }
+    }
+
+    private <T> long export(Format format, Stream<T> rows, List<Column<T>> columns, OutputStream out) throws IOException {
+        var writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == Format.CSV) {
+            writer.write(String.join(",", columns.stream().map(Column::name).toList()));
+            writer.newLine();
+        }
+
+        long count = 0;
+        try {
+            for (var iterator = rows.iterator(); iterator.hasNext();) {
+                var row = iterator.next();
+                if (format == Format.CSV) {
+                    writeCsv(writer, row, columns);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(row));
+                }
+                writer.write('\n');
+
+                if (++count % FLUSH_INTERVAL_ROWS == 0) {
+                    writer.flush();
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static <T> void writeCsv(Writer writer, T row, List<Column<T>> columns) throws IOException {
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            var value = columns.get(i).value().apply(row);
+            if (value != null) {
+                writer.write(escapeCsv(value.toString()));
+            }
+        }
+    }
+
+    private static String escapeCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private record Column<T>(String name, Function<T, Object> value) {}
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format of(String value) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format: " + value);
+        }
+    }
+}
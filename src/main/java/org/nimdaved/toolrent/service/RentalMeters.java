@@ -0,0 +1,169 @@
+package org.nimdaved.toolrent.service;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Timer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.nimdaved.toolrent.domain.enumeration.ToolType;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Tags shared by the timers of the rental hot path: pricing, calendar, reservation, inventory updates and agreement generation.
+ * <p>
+ * Tag values come from small fixed sets, rental lengths are bucketed, so the number of time series stays bounded.
+ * The timers of the pricing hot path are registered up front in a {@link TimerTable}, the other calls are timed by
+ * {@link #record}.
+ */
+final class RentalMeters {
+
+    static final String TOOL_TYPE_TAG = "toolType";
+    static final String RENTAL_LENGTH_TAG = "rentalLength";
+    static final String OUTCOME_TAG = "outcome";
+
+    static final String SUCCESS = "success";
+    static final String REJECTED = "rejected";
+    static final String ERROR = "error";
+
+    private static final String UNKNOWN = "unknown";
+
+    /**
+     * Outcomes, by index in a {@link TimerTable}.
+     */
+    private static final String[] OUTCOMES = { SUCCESS, REJECTED, ERROR };
+
+    static final int SUCCESS_OUTCOME = 0;
+    static final int REJECTED_OUTCOME = 1;
+    static final int ERROR_OUTCOME = 2;
+
+    /**
+     * Rental length buckets, by index of {@link #rentalLengthBucket}.
+     */
+    private static final String[] RENTAL_LENGTHS = { UNKNOWN, "1d", "2-7d", "8-30d", "31d+" };
+
+    private static final ToolType[] TOOL_TYPES = ToolType.values();
+
+    private RentalMeters() {}
+
+    static String toolType(ToolType toolType) {
+        return toolType != null ? toolType.name() : UNKNOWN;
+    }
+
+    /**
+     * @param dayCount the number of rental days.
+     * @return the bucket of the rental length: a day, up to a week, up to a month, or longer.
+     */
+    static String rentalLength(Integer dayCount) {
+        return RENTAL_LENGTHS[rentalLengthBucket(dayCount != null ? dayCount : 0)];
+    }
+
+    private static int rentalLengthBucket(int dayCount) {
+        if (dayCount < 1) {
+            return 0;
+        }
+        if (dayCount == 1) {
+            return 1;
+        }
+        if (dayCount <= 7) {
+            return 2;
+        }
+        return dayCount <= 30 ? 3 : 4;
+    }
+
+    /**
+     * @return {@link #REJECTED_OUTCOME} for a client error (e.g. no tool available), {@link #ERROR_OUTCOME} otherwise.
+     */
+    static int outcome(RuntimeException e) {
+        return e instanceof ResponseStatusException status && status.getStatusCode().is4xxClientError() ? REJECTED_OUTCOME : ERROR_OUTCOME;
+    }
+
+    /**
+     * Time the call, with the outcome tag {@link #SUCCESS}, {@link #REJECTED} if it throws a client error
+     * (e.g. no tool available), or {@link #ERROR} if it throws otherwise.
+     *
+     * @param timers the timers, by tags.
+     * @param call the call.
+     * @param tags the tags, other than the outcome.
+     * @return the result of the call.
+     */
+    static <T> T record(Meter.MeterProvider<Timer> timers, Supplier<T> call, String... tags) {
+        var sample = Timer.start();
+        String outcome = ERROR;
+        try {
+            var result = call.get();
+            outcome = SUCCESS;
+            return result;
+        } catch (RuntimeException e) {
+            outcome = OUTCOMES[outcome(e)];
+            throw e;
+        } finally {
+            sample.stop(timers.withTags(withOutcome(tags, outcome)));
+        }
+    }
+
+    static String[] withOutcome(String[] tags, String outcome) {
+        var withOutcome = Arrays.copyOf(tags, tags.length + 2);
+        withOutcome[tags.length] = OUTCOME_TAG;
+        withOutcome[tags.length + 1] = outcome;
+        return withOutcome;
+    }
+
+    /**
+     * Timers of a meter by rental length, tool type if tagged by it, and outcome, registered up front:
+     * recording a call reads its timer from an array, with no tags, samples or lambdas allocated on the hot path.
+     */
+    static final class TimerTable {
+
+        private final boolean byToolType;
+        private final Timer[] timers;
+
+        /**
+         * @param timers the timers, by tags.
+         * @param byToolType whether the timers are tagged by tool type.
+         */
+        TimerTable(Meter.MeterProvider<Timer> timers, boolean byToolType) {
+            this.byToolType = byToolType;
+            int toolTypes = byToolType ? TOOL_TYPES.length + 1 : 1;
+            this.timers = new Timer[toolTypes * RENTAL_LENGTHS.length * OUTCOMES.length];
+            for (int toolType = 0; toolType < toolTypes; toolType++) {
+                for (int length = 0; length < RENTAL_LENGTHS.length; length++) {
+                    for (int outcome = 0; outcome < OUTCOMES.length; outcome++) {
+                        String[] tags = { RENTAL_LENGTH_TAG, RENTAL_LENGTHS[length], OUTCOME_TAG, OUTCOMES[outcome] };
+                        if (byToolType) {
+                            var toolTypeValue = toolType < TOOL_TYPES.length ? TOOL_TYPES[toolType].name() : UNKNOWN;
+                            tags = withToolType(tags, toolTypeValue);
+                        }
+                        this.timers[index(toolType, length, outcome)] = timers.withTags(tags);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Record the duration of a call started at {@code startNanos}, a {@link System#nanoTime()}.
+         *
+         * @param toolType the tool type, ignored if the timers are not tagged by it.
+         * @param dayCount the number of rental days.
+         * @param outcome {@link #SUCCESS_OUTCOME}, {@link #REJECTED_OUTCOME} or {@link #ERROR_OUTCOME}.
+         * @param startNanos the start of the call.
+         */
+        void record(ToolType toolType, int dayCount, int outcome, long startNanos) {
+            int toolTypeIndex = !byToolType ? 0 : toolType != null ? toolType.ordinal() : TOOL_TYPES.length;
+            timers[index(toolTypeIndex, rentalLengthBucket(dayCount), outcome)].record(
+                System.nanoTime() - startNanos,
+                TimeUnit.NANOSECONDS
+            );
+        }
+
+        private static int index(int toolType, int length, int outcome) {
+            return (toolType * RENTAL_LENGTHS.length + length) * OUTCOMES.length + outcome;
+        }
+
+        private static String[] withToolType(String[] tags, String toolType) {
+            var withToolType = Arrays.copyOf(tags, tags.length + 2);
+            withToolType[tags.length] = TOOL_TYPE_TAG;
+            withToolType[tags.length + 1] = toolType;
+            return withToolType;
+        }
+    }
+}
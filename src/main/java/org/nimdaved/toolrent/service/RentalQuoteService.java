@@ -0,0 +1,167 @@
+package org.nimdaved.toolrent.service;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.nimdaved.toolrent.config.ApplicationProperties;
+import org.nimdaved.toolrent.domain.Tool;
+import org.nimdaved.toolrent.domain.enumeration.ToolType;
+import org.nimdaved.toolrent.repository.ToolRepository;
+import org.nimdaved.toolrent.service.dto.RentalRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Side-effect free pricing of rental requests in bulk.
+ * <p>
+ * Tools are resolved with one query per chunk of distinct tool codes, rates are resolved once per tool type
+ * and calendar work is shared between requests, so the cost per request is a few arithmetic operations.
+ */
+@Service
+@Transactional(readOnly = true)
+public class RentalQuoteService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RentalQuoteService.class);
+
+    private static final int TOOL_LOOKUP_CHUNK_SIZE = 1000;
+
+    private final ToolRepository toolRepository;
+    private final ChargeService chargeService;
+    private final CalendarService calendarService;
+    private final ApplicationProperties.Quote properties;
+
+    public RentalQuoteService(
+        ToolRepository toolRepository,
+        ChargeService chargeService,
+        CalendarService calendarService,
+        ApplicationProperties applicationProperties
+    ) {
+        this.toolRepository = toolRepository;
+        this.chargeService = chargeService;
+        this.calendarService = calendarService;
+        this.properties = applicationProperties.getQuote();
+    }
+
+    /**
+     * Price rental requests without creating rentals, holds or agreements.
+     * Requests which cannot be priced get a quote with an error instead of failing the whole batch.
+     *
+     * @param requests the rental requests.
+     * @return the quotes, in the order of the requests.
+     */
+    public List<Quote> quote(List<RentalRequest> requests) {
+        LOG.debug("Request to quote {} rentals", requests.size());
+        if (requests.size() > properties.getMaxBatchSize()) {
+            throw new ResponseStatusException(
+                HttpStatus.BAD_REQUEST,
+                String.format("Too many rental requests: %d, at most %d allowed.", requests.size(), properties.getMaxBatchSize())
+            );
+        }
+
+        var toolTypes = findToolTypes(requests);
+        Map<ToolType, ChargeService.Rate> rates = new EnumMap<>(ToolType.class);
+        var calendar = new SharedCalendar(calendarService.getSnapshot());
+
+        List<Quote> quotes = new ArrayList<>(requests.size());
+        for (RentalRequest request : requests) {
+            quotes.add(quote(request, toolTypes, rates, calendar));
+        }
+        return quotes;
+    }
+
+    private Quote quote(
+        RentalRequest request,
+        Map<String, ToolType> toolTypes,
+        Map<ToolType, ChargeService.Rate> rates,
+        SharedCalendar calendar
+    ) {
+        var error = validate(request);
+        if (error != null) {
+            return Quote.failed(request, error);
+        }
+
+        // any tool of the type is charged the same
+        var toolType = request.getToolCode() == null ? request.getToolType() : toolTypes.get(request.getToolCode());
+        if (toolType == null) {
+            return Quote.failed(request, "Could not find tool with code: " + request.getToolCode());
+        }
+
+        try {
+            var rate = rates.computeIfAbsent(toolType, chargeService::getRate);
+            var counts = calendar.getDayCounts(request.getCheckOutDate(), request.getDayCount());
+            return Quote.priced(request, chargeService.calculateCharges(rate, counts));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            return Quote.failed(request, e.getMessage());
+        }
+    }
+
+    private static String validate(RentalRequest request) {
+        if (request.getToolCode() == null && request.getToolType() == null) {
+            return "Tool code or tool type is required";
+        }
+        if (request.getCheckOutDate() == null) {
+            return "Checkout date is required";
+        }
+        if (request.getDayCount() == null || request.getDayCount() < 1 || request.getDayCount() > 365) {
+            return "Day count must be between 1 and 365";
+        }
+        return null;
+    }
+
+    private Map<String, ToolType> findToolTypes(List<RentalRequest> requests) {
+        var codes = requests.stream().map(RentalRequest::getToolCode).filter(Objects::nonNull).distinct().toList();
+
+        Map<String, ToolType> toolTypes = new HashMap<>();
+        for (int from = 0; from < codes.size(); from += TOOL_LOOKUP_CHUNK_SIZE) {
+            var chunk = codes.subList(from, Math.min(from + TOOL_LOOKUP_CHUNK_SIZE, codes.size()));
+            for (Tool tool : toolRepository.findAllById(chunk)) {
+                toolTypes.put(tool.getCode(), tool.getToolType());
+            }
+        }
+        return toolTypes;
+    }
+
+    /**
+     * Calendar of one quote batch. Periods outside the precomputed calendar are served
+     * from indexes built once per check-out year and shared by all requests of the batch.
+     */
+    private static final class SharedCalendar {
+
+        private final CalendarService.Snapshot snapshot;
+        private final Map<Integer, CalendarIndex> indexesByYear = new HashMap<>();
+
+        private SharedCalendar(CalendarService.Snapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        private CalendarService.DayCounts getDayCounts(LocalDate checkOutDate, int dayCount) {
+            if (snapshot.index().covers(checkOutDate, dayCount)) {
+                return snapshot.index().getDayCounts(checkOutDate, dayCount);
+            }
+
+            // at most 365 days, so the rental always ends within the year following the check-out year
+            return indexesByYear
+                .computeIfAbsent(checkOutDate.getYear(), year -> CalendarIndex.build(snapshot.holidays(), year, year + 1))
+                .getDayCounts(checkOutDate, dayCount);
+        }
+    }
+
+    public record Quote(String toolCode, LocalDate checkOutDate, Integer dayCount, ChargeService.Charges charges, String error) {
+        static Quote priced(RentalRequest request, ChargeService.Charges charges) {
+            return new Quote(request.getToolCode(), request.getCheckOutDate(), request.getDayCount(), charges, null);
+        }
+
+        static Quote failed(RentalRequest request, String error) {
+            return new Quote(request.getToolCode(), request.getCheckOutDate(), request.getDayCount(), null, error);
+        }
+    }
+}
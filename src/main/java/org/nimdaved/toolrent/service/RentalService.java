@@ -1,6 +1,7 @@
 package org.nimdaved.toolrent.service;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
 import org.nimdaved.toolrent.domain.Customer;
@@ -9,17 +10,24 @@ import org.nimdaved.toolrent.domain.Tool;
 import org.nimdaved.toolrent.domain.enumeration.RentalStatus;
 import org.nimdaved.toolrent.repository.CustomerRepository;
 import org.nimdaved.toolrent.repository.RentalRepository;
+import org.nimdaved.toolrent.service.dto.KeysetCursor;
 import org.nimdaved.toolrent.service.dto.RentalRequest;
 import org.nimdaved.toolrent.service.dto.ToolRentalEvents;
+import org.nimdaved.toolrent.service.jfr.RentalCreationEvent;
+import org.nimdaved.toolrent.service.jfr.RentalEventDispatchEvent;
+import org.nimdaved.toolrent.service.jfr.RentalLifecycleEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
 /**
  * Service Implementation for managing {@link org.nimdaved.toolrent.domain.Rental}.
@@ -56,22 +64,28 @@ public class RentalService {
      * @return
      */
     public Rental create(RentalRequest rentalRequest) {
+        return new RentalCreationEvent()
+            .dayCount(rentalRequest.getDayCount())
+            .record(() -> createRental(rentalRequest), RentalLifecycleEvent::rental);
+    }
+
+    private Rental createRental(RentalRequest rentalRequest) {
         var rental = new Rental();
         rental.setDiscountPercent(rentalRequest.getDiscountPercent());
         rental.setCheckOutDate(rentalRequest.getCheckOutDate());
         rental.setDayCount(rentalRequest.getDayCount());
 
         rental.setCustomer(findCustomer(Optional.ofNullable(rentalRequest.getCustomer())));
-        rental.setTool(getAvailableTool(rentalRequest.getToolCode()));
+        rental.setTool(reserveTool(rentalRequest));
         var charges = calculateCharges(rental.getTool(), rental.getCheckOutDate(), rental.getDayCount());
         rental.setChargeAmount(charges.chargedAmount());
+        rental.setChargedDaysCount(charges.chargedDays());
+        rental.setDailyCharges(charges.dailyCharges());
         rental.setStatus(RentalStatus.CREATED);
 
         var saved = save(rental);
-        saved.setChargedDaysCount(charges.chargedDays());
-        saved.setDailyCharges(charges.dailyCharges());
 
-        eventPublisher.publishEvent(new ToolRentalEvents.RentalCreated(saved));
+        publish(new ToolRentalEvents.RentalCreated(saved), saved);
 
         return saved;
     }
@@ -84,6 +98,25 @@ public class RentalService {
         return changeStatus(rental, RentalStatus.CHECKED_IN, ToolRentalEvents.RentalCheckedIn::new);
     }
 
+    /**
+     * Check in a checked out rental and notify downstream services
+     *
+     * @param rentalId
+     * @return the checked in rental.
+     */
+    public Rental checkin(Long rentalId) {
+        return rentalRepository
+            .findById(rentalId)
+            .filter(rental -> rental.getStatus() == RentalStatus.CHECKED_OUT)
+            .map(this::checkin)
+            .orElseThrow(() ->
+                new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    String.format("Could not find Rental with id: %s and status: %s.", rentalId, RentalStatus.CHECKED_OUT)
+                )
+            );
+    }
+
     public Rental cancel(Rental rental) {
         return changeStatus(rental, RentalStatus.CANCELLED, ToolRentalEvents.RentalCanceled::new);
     }
@@ -103,11 +136,25 @@ public class RentalService {
     private <T> Rental changeStatus(Rental rental, RentalStatus status, Function<Rental, T> function) {
         rental.setStatus(status);
         var saved = save(rental);
-        eventPublisher.publishEvent(function.apply(saved));
+        publish(function.apply(saved), saved);
 
         return saved;
     }
 
+    /**
+     * Publish the event within a {@link RentalEventDispatchEvent}, which covers the {@code @EventListener} listeners only:
+     * {@code @TransactionalEventListener} listeners are deferred to the completion of the transaction, outside of it.
+     */
+    private void publish(Object event, Rental rental) {
+        new RentalEventDispatchEvent()
+            .eventType(event)
+            .rental(rental)
+            .record(() -> {
+                eventPublisher.publishEvent(event);
+                return event;
+            });
+    }
+
     private Customer findCustomer(Optional<Customer> customer) {
         return customer.flatMap(c -> customerRepository.findOne(Example.of(c))).orElseGet(() -> customerRepository.findDefaultCustomer());
     }
@@ -116,8 +163,17 @@ public class RentalService {
         return chargeService.calculateCharges(tool, checkOutDate, dayCount);
     }
 
-    private Tool getAvailableTool(String toolCode) {
-        return toolService.getAvailableTool(toolCode);
+    private Tool reserveTool(RentalRequest rentalRequest) {
+        if (rentalRequest.getToolCode() != null && rentalRequest.getToolType() != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Either tool code or tool type is required, not both");
+        }
+        if (rentalRequest.getToolCode() != null) {
+            return toolService.reserveTool(rentalRequest.getToolCode());
+        }
+        if (rentalRequest.getToolType() != null) {
+            return toolService.reserveToolOfType(rentalRequest.getToolType(), rentalRequest.getLocation());
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Tool code or tool type is required");
     }
 
     /**
@@ -133,7 +189,7 @@ public class RentalService {
     }
 
     /**
-     * Get all the rentals.
+     * Get all the rentals, with their tool and customer.
      *
      * @param pageable the pagination information.
      * @return the list of entities.
@@ -141,11 +197,30 @@ public class RentalService {
     @Transactional(readOnly = true)
     public Page<Rental> findAll(Pageable pageable) {
         LOG.debug("Request to get all Rentals");
-        return rentalRepository.findAll(pageable);
+        return rentalRepository.findAllWithToolAndCustomer(pageable);
+    }
+
+    /**
+     * Get the page of rentals following the cursor, with their tool and customer, without counting the rentals.
+     *
+     * @param cursor the position after the last rental of the previous page.
+     * @param size the page size.
+     * @return the list of entities.
+     */
+    @Transactional(readOnly = true)
+    public List<Rental> findAll(KeysetCursor cursor, int size) {
+        LOG.debug("Request to get Rentals after {}", cursor);
+        var limit = PageRequest.ofSize(size);
+        return switch (cursor.order()) {
+            case ID -> rentalRepository.findPageAfterId(cursor.isFirst() ? Long.MIN_VALUE : cursor.id(), limit);
+            case CHECK_OUT_DATE -> cursor.isFirst()
+                ? rentalRepository.findFirstPageByCheckOutDate(limit)
+                : rentalRepository.findPageAfterCheckOutDate(cursor.checkOutDate(), cursor.id(), limit);
+        };
     }
 
     /**
-     * Get one rental by id.
+     * Get one rental by id, with its tool and customer.
      *
      * @param id the id of the entity.
      * @return the entity.
@@ -153,7 +228,7 @@ public class RentalService {
     @Transactional(readOnly = true)
     public Optional<Rental> findOne(Long id) {
         LOG.debug("Request to get Rental : {}", id);
-        return rentalRepository.findById(id);
+        return rentalRepository.findWithToolAndCustomerById(id);
     }
 
     /**
@@ -0,0 +1,27 @@
+package org.nimdaved.toolrent.service;
+
+import java.util.List;
+import org.nimdaved.toolrent.domain.Tool;
+import org.nimdaved.toolrent.domain.enumeration.ToolType;
+
+/**
+ * Order in which {@link ToolAllocator} tries available tools of a type.
+ */
+public interface ToolAllocationStrategy {
+    /**
+     * Find available tools, in the order they are tried.
+     *
+     * @param toolType the tool type.
+     * @param location the requested location, or {@code null}.
+     * @param limit the maximum number of tools.
+     * @return the candidate tools, which may have been taken meanwhile.
+     */
+    List<Tool> findCandidates(ToolType toolType, String location, int limit);
+
+    /**
+     * Called once a candidate is reserved.
+     *
+     * @param tool the reserved tool.
+     */
+    default void onAllocated(Tool tool) {}
+}
@@ -0,0 +1,143 @@
+package org.nimdaved.toolrent.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import org.nimdaved.toolrent.config.ApplicationProperties;
+import org.nimdaved.toolrent.domain.Tool;
+import org.nimdaved.toolrent.domain.enumeration.ToolType;
+import org.nimdaved.toolrent.repository.ToolRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Allocation of a concrete tool for a rental which names a tool type instead of a tool code.
+ * <p>
+ * Each attempt loads at most {@code candidate-limit} available tools in the order of the configured
+ * {@link ApplicationProperties.Allocation.Strategy} and tries to reserve them one by one. Reservation is the atomic
+ * conditional update of the inventory, so a candidate taken by a concurrent rental is skipped. The number of tools
+ * looked at is bounded by {@code candidate-limit * max-attempts}, regardless of the number of tools of the type.
+ */
+@Service
+public class ToolAllocator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ToolAllocator.class);
+
+    private final ApplicationProperties.Allocation properties;
+    private final ToolAllocationStrategy strategy;
+
+    public ToolAllocator(ToolRepository toolRepository, ApplicationProperties applicationProperties) {
+        this.properties = applicationProperties.getAllocation();
+        this.strategy = switch (properties.getStrategy()) {
+            case LEAST_LOADED -> new LeastLoaded(toolRepository);
+            case NEAREST_LOCATION -> new NearestLocation(toolRepository);
+            case ROUND_ROBIN -> new RoundRobin(toolRepository);
+        };
+    }
+
+    /**
+     * Reserve the first candidate tool of the type which can be reserved.
+     *
+     * @param toolType the tool type.
+     * @param location the requested location, or {@code null}.
+     * @param reservation reserves the tool, returns {@code false} if it is no longer available.
+     * @return the reserved tool.
+     * @throws ResponseStatusException with status {@code 400 (Bad Request)} if no tool could be reserved.
+     */
+    public Tool allocate(ToolType toolType, String location, Predicate<Tool> reservation) {
+        int limit = Math.max(1, properties.getCandidateLimit());
+        int maxAttempts = Math.max(1, properties.getMaxAttempts());
+
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            var candidates = strategy.findCandidates(toolType, location, limit);
+            for (Tool candidate : candidates) {
+                if (reservation.test(candidate)) {
+                    strategy.onAllocated(candidate);
+                    return candidate;
+                }
+            }
+            if (candidates.size() < limit) {
+                // all available tools were tried
+                break;
+            }
+            LOG.debug("All {} candidates of type {} were taken, attempt {} of {}", candidates.size(), toolType, attempt, maxAttempts);
+        }
+
+        throw new ResponseStatusException(
+            HttpStatus.BAD_REQUEST,
+            location == null
+                ? "Could not find available tool of type: " + toolType
+                : String.format("Could not find available tool of type: %s at location: %s", toolType, location)
+        );
+    }
+
+    static class LeastLoaded implements ToolAllocationStrategy {
+
+        private final ToolRepository toolRepository;
+
+        LeastLoaded(ToolRepository toolRepository) {
+            this.toolRepository = toolRepository;
+        }
+
+        @Override
+        public List<Tool> findCandidates(ToolType toolType, String location, int limit) {
+            return toolRepository.findAvailableMostAvailableFirst(toolType, location, PageRequest.of(0, limit));
+        }
+    }
+
+    static class NearestLocation implements ToolAllocationStrategy {
+
+        private final ToolRepository toolRepository;
+
+        NearestLocation(ToolRepository toolRepository) {
+            this.toolRepository = toolRepository;
+        }
+
+        @Override
+        public List<Tool> findCandidates(ToolType toolType, String location, int limit) {
+            return toolRepository.findAvailableAtLocationFirst(toolType, location, PageRequest.of(0, limit));
+        }
+    }
+
+    /**
+     * Continues after the last allocated tool of the type and wraps around to the first code.
+     */
+    static class RoundRobin implements ToolAllocationStrategy {
+
+        private final ToolRepository toolRepository;
+        private final Map<ToolType, String> lastAllocated = new ConcurrentHashMap<>();
+
+        RoundRobin(ToolRepository toolRepository) {
+            this.toolRepository = toolRepository;
+        }
+
+        @Override
+        public List<Tool> findCandidates(ToolType toolType, String location, int limit) {
+            var after = lastAllocated.getOrDefault(toolType, "");
+            var candidates = toolRepository.findAvailableAfterCode(toolType, location, after, PageRequest.of(0, limit));
+            if (candidates.size() == limit || after.isEmpty()) {
+                return candidates;
+            }
+
+            List<Tool> wrapped = new ArrayList<>(candidates);
+            for (Tool tool : toolRepository.findAvailableAfterCode(toolType, location, "", PageRequest.of(0, limit - candidates.size()))) {
+                if (tool.getCode().compareTo(after) > 0) {
+                    break;
+                }
+                wrapped.add(tool);
+            }
+            return wrapped;
+        }
+
+        @Override
+        public void onAllocated(Tool tool) {
+            lastAllocated.put(tool.getToolType(), tool.getCode());
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package org.nimdaved.toolrent.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import org.nimdaved.toolrent.config.ApplicationProperties;
+import org.nimdaved.toolrent.domain.Tool;
+import org.nimdaved.toolrent.domain.enumeration.ToolType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Optional in-process admission control in front of inventory reservation.
+ * <p>
+ * Tool codes are mapped onto a fixed number of fair semaphores (stripes). A successful reservation takes a permit of its
+ * stripe and keeps it until the surrounding transaction completes, i.e. as long as the database holds the inventory row lock.
+ * Concurrent rentals of a hot tool wait in the in-process FIFO queue for at most the configured timeout
+ * instead of piling up on database lock waits.
+ */
+@Service
+public class ToolReservationLimiter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ToolReservationLimiter.class);
+
+    public static final String WAITING_METER_NAME = "tool.reservation.waiting";
+    public static final String WAIT_METER_NAME = "tool.reservation.wait";
+    public static final String REJECTED_METER_NAME = "tool.reservation.rejected";
+    public static final String TOOL_TYPE_DIMENSION = "toolType";
+
+    private final ApplicationProperties.Reservation properties;
+    private final Semaphore[] stripes;
+
+    private final Map<ToolType, AtomicInteger> waiting = new EnumMap<>(ToolType.class);
+    private final Map<ToolType, Timer> waitTimers = new EnumMap<>(ToolType.class);
+    private final Map<ToolType, Counter> rejectedCounters = new EnumMap<>(ToolType.class);
+
+    public ToolReservationLimiter(ApplicationProperties applicationProperties, MeterRegistry registry) {
+        this.properties = applicationProperties.getReservation();
+        this.stripes = new Semaphore[Math.max(1, properties.getStripes())];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Semaphore(Math.max(1, properties.getPermitsPerStripe()), true);
+        }
+
+        for (ToolType toolType : ToolType.values()) {
+            var queued = new AtomicInteger();
+            waiting.put(toolType, queued);
+            Gauge.builder(WAITING_METER_NAME, queued, AtomicInteger::get)
+                .description("Number of reservations waiting for admission")
+                .tag(TOOL_TYPE_DIMENSION, toolType.name())
+                .register(registry);
+            waitTimers.put(
+                toolType,
+                Timer.builder(WAIT_METER_NAME)
+                    .description("Time spent waiting for reservation admission")
+                    .tag(TOOL_TYPE_DIMENSION, toolType.name())
+                    .register(registry)
+            );
+            rejectedCounters.put(
+                toolType,
+                Counter.builder(REJECTED_METER_NAME)
+                    .description("Number of reservations rejected after the admission wait timeout")
+                    .tag(TOOL_TYPE_DIMENSION, toolType.name())
+                    .register(registry)
+            );
+        }
+    }
+
+    /**
+     * Run the reservation of the tool once admitted.
+     *
+     * @param tool the tool to reserve.
+     * @param reservation the reservation.
+     * @return the result of the reservation.
+     * @throws ResponseStatusException with status {@code 503 (Service Unavailable)} if not admitted within the wait timeout.
+     */
+    public <T> T reserve(Tool tool, Supplier<T> reservation) {
+        return admit(tool, reservation, result -> true);
+    }
+
+    /**
+     * Run the reservation of the tool once admitted, the admission is kept only if the tool was reserved.
+     *
+     * @param tool the tool to reserve.
+     * @param reservation the reservation, returns {@code false} if the tool is no longer available.
+     * @return whether the tool was reserved.
+     * @throws ResponseStatusException with status {@code 503 (Service Unavailable)} if not admitted within the wait timeout.
+     */
+    public boolean tryReserve(Tool tool, BooleanSupplier reservation) {
+        return admit(tool, reservation::getAsBoolean, Boolean::booleanValue);
+    }
+
+    /**
+     * The permit of a reservation which failed, or did not reserve, is released at once. The permit of a successful one is
+     * kept by the surrounding transaction until it completes, further reservations of the same stripe in that transaction
+     * run without waiting for a permit of their own.
+     */
+    private <T> T admit(Tool tool, Supplier<T> reservation, Predicate<T> reserved) {
+        if (!properties.isEnabled()) {
+            return reservation.get();
+        }
+
+        var stripe = stripes[Math.floorMod(tool.getCode().hashCode(), stripes.length)];
+        var held = heldStripes();
+        if (held != null && held.contains(stripe)) {
+            return reservation.get();
+        }
+
+        acquire(stripe, tool);
+        boolean keep = false;
+        try {
+            T result = reservation.get();
+            keep = held != null && reserved.test(result);
+            return result;
+        } finally {
+            if (keep) {
+                held.add(stripe);
+            } else {
+                stripe.release();
+            }
+        }
+    }
+
+    /**
+     * @return the stripes held by the current transaction, or {@code null} outside of a transaction.
+     */
+    @SuppressWarnings("unchecked")
+    private Set<Semaphore> heldStripes() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        var held = (Set<Semaphore>) TransactionSynchronizationManager.getResource(this);
+        if (held == null) {
+            Set<Semaphore> stripesOfTransaction = Collections.newSetFromMap(new IdentityHashMap<>());
+            TransactionSynchronizationManager.bindResource(this, stripesOfTransaction);
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        TransactionSynchronizationManager.unbindResourceIfPossible(ToolReservationLimiter.this);
+                        stripesOfTransaction.forEach(Semaphore::release);
+                    }
+                }
+            );
+            held = stripesOfTransaction;
+        }
+        return held;
+    }
+
+    private void acquire(Semaphore stripe, Tool tool) {
+        var toolType = tool.getToolType();
+        var queued = waiting.get(toolType);
+
+        boolean acquired;
+        long start = System.nanoTime();
+        queued.incrementAndGet();
+        try {
+            acquired = stripe.tryAcquire(properties.getWaitTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while reserving tool: " + tool.getCode(), e);
+        } finally {
+            queued.decrementAndGet();
+            waitTimers.get(toolType).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        if (!acquired) {
+            rejectedCounters.get(toolType).increment();
+            LOG.debug("Reservation of tool {} not admitted within {}", tool.getCode(), properties.getWaitTimeout());
+            throw new ResponseStatusException(
+                HttpStatus.SERVICE_UNAVAILABLE,
+                "Too many concurrent reservations of tool: " + tool.getCode()
+            );
+        }
+    }
+}
@@ -1,14 +1,33 @@
 package org.nimdaved.toolrent.service;
 
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.ToIntFunction;
+import org.nimdaved.toolrent.domain.Rental;
 import org.nimdaved.toolrent.domain.Tool;
+import org.nimdaved.toolrent.domain.ToolInventory;
+import org.nimdaved.toolrent.domain.ToolInventory_;
+import org.nimdaved.toolrent.domain.Tool_;
+import org.nimdaved.toolrent.domain.enumeration.ToolType;
 import org.nimdaved.toolrent.repository.ToolInventoryRepository;
 import org.nimdaved.toolrent.repository.ToolRepository;
+import org.nimdaved.toolrent.service.dto.ReferenceDataEvents;
 import org.nimdaved.toolrent.service.dto.ToolRentalEvents;
+import org.nimdaved.toolrent.service.jfr.RentalLifecycleEvent;
+import org.nimdaved.toolrent.service.jfr.ToolReservationEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,12 +42,40 @@ public class ToolService {
 
     private static final Logger LOG = LoggerFactory.getLogger(ToolService.class);
 
+    public static final String RESERVATION_METER_NAME = "tool.reservation";
+    public static final String INVENTORY_UPDATE_METER_NAME = "tool.inventory.update";
+
     private final ToolRepository toolRepository;
     private final ToolInventoryRepository toolInventoryRepository;
+    private final ToolReservationLimiter toolReservationLimiter;
+    private final InventoryAvailabilityService inventoryAvailabilityService;
+    private final ToolAllocator toolAllocator;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Meter.MeterProvider<Timer> reservationTimers;
+    private final Meter.MeterProvider<Timer> inventoryUpdateTimers;
 
-    public ToolService(ToolRepository toolRepository, ToolInventoryRepository toolInventoryRepository) {
+    public ToolService(
+        ToolRepository toolRepository,
+        ToolInventoryRepository toolInventoryRepository,
+        ToolReservationLimiter toolReservationLimiter,
+        InventoryAvailabilityService inventoryAvailabilityService,
+        ToolAllocator toolAllocator,
+        ApplicationEventPublisher eventPublisher,
+        MeterRegistry meterRegistry
+    ) {
         this.toolRepository = toolRepository;
         this.toolInventoryRepository = toolInventoryRepository;
+        this.toolReservationLimiter = toolReservationLimiter;
+        this.inventoryAvailabilityService = inventoryAvailabilityService;
+        this.toolAllocator = toolAllocator;
+        this.eventPublisher = eventPublisher;
+        this.reservationTimers = Timer.builder(RESERVATION_METER_NAME)
+            .description("Reservation of tools for new rentals, including admission and allocation")
+            .withRegistry(meterRegistry);
+        this.inventoryUpdateTimers = Timer.builder(INVENTORY_UPDATE_METER_NAME)
+            .description("Inventory count updates on rental status changes")
+            .withRegistry(meterRegistry);
     }
 
     /**
@@ -39,7 +86,7 @@ public class ToolService {
      */
     public Tool save(Tool tool) {
         LOG.debug("Request to save Tool : {}", tool);
-        return toolRepository.save(tool);
+        return publishChange(toolRepository.save(tool));
     }
 
     /**
@@ -51,7 +98,7 @@ public class ToolService {
     public Tool update(Tool tool) {
         LOG.debug("Request to update Tool : {}", tool);
         tool.setIsPersisted();
-        return toolRepository.save(tool);
+        return publishChange(toolRepository.save(tool));
     }
 
     /**
@@ -75,7 +122,8 @@ public class ToolService {
 
                 return existingTool;
             })
-            .map(toolRepository::save);
+            .map(toolRepository::save)
+            .map(this::publishChange);
     }
 
     /**
@@ -101,6 +149,43 @@ public class ToolService {
         return toolRepository.findById(id);
     }
 
+    /**
+     * Search tools with at least the given number of available items in their inventory, with their inventory.
+     * Only the given criteria are added to the query, so each combination is served by a matching index.
+     *
+     * @param code the tool code, any if {@code null}.
+     * @param toolType the tool type, any if {@code null}.
+     * @param location the inventory location, any if {@code null}.
+     * @param minAvailableCount the minimum available count.
+     * @param pageable the pagination information.
+     * @return the page of tools.
+     */
+    @Transactional(readOnly = true)
+    public Page<Tool> findAvailable(String code, ToolType toolType, String location, int minAvailableCount, Pageable pageable) {
+        LOG.debug("Request to search Tools {} of type {} at {} with at least {} available", code, toolType, location, minAvailableCount);
+        Specification<Tool> specification = (root, query, cb) -> {
+            // the count query cannot fetch
+            @SuppressWarnings("unchecked")
+            Join<Tool, ToolInventory> inventory = Long.class == query.getResultType()
+                ? root.join(Tool_.toolInventory)
+                : (Join<Tool, ToolInventory>) root.fetch(Tool_.toolInventory);
+
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.greaterThanOrEqualTo(inventory.get(ToolInventory_.availableCount), minAvailableCount));
+            if (code != null) {
+                predicates.add(cb.equal(root.get(Tool_.code), code));
+            }
+            if (toolType != null) {
+                predicates.add(cb.equal(root.get(Tool_.toolType), toolType));
+            }
+            if (location != null) {
+                predicates.add(cb.equal(inventory.get(ToolInventory_.location), location));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+        return toolRepository.findAll(specification, pageable);
+    }
+
     /**
      * Delete the tool by id.
      *
@@ -109,49 +194,133 @@ public class ToolService {
     public void delete(String id) {
         LOG.debug("Request to delete Tool : {}", id);
         toolRepository.deleteById(id);
+        eventPublisher.publishEvent(new ReferenceDataEvents.ToolsChanged(id));
     }
 
-    public Tool getAvailableTool(String toolCode) {
-        return toolRepository
-            .findByToolCodeWithStockCountInInventory(toolCode)
+    private Tool publishChange(Tool tool) {
+        eventPublisher.publishEvent(new ReferenceDataEvents.ToolsChanged(tool.getCode()));
+        return tool;
+    }
+
+    /**
+     * Check availability and put the tool on hold in one atomic statement, once admitted by {@link ToolReservationLimiter}.
+     * The hold is released by {@link #onRentalCanceled} or converted by {@link #onRentalCheckedOut}.
+     *
+     * @param toolCode the code of the tool.
+     * @return the reserved tool.
+     */
+    public Tool reserveTool(String toolCode) {
+        LOG.debug("Request to reserve Tool : {}", toolCode);
+        var tool = toolRepository
+            .findById(toolCode)
             .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Could not find available tool with code: " + toolCode));
+
+        return RentalMeters.record(
+            reservationTimers,
+            () -> new ToolReservationEvent().tool(tool).record(() -> toolReservationLimiter.reserve(tool, () -> putOnHoldOrFail(tool))),
+            RentalMeters.TOOL_TYPE_TAG,
+            RentalMeters.toolType(tool.getToolType())
+        );
     }
 
-    @EventListener
-    @Transactional
-    public void onRentalCreated(ToolRentalEvents.RentalCreated event) {
-        var inventory = event.rental().getTool().getToolInventory();
-        var onHold = inventory.getOnHoldCount() + 1;
-        inventory.setOnHoldCount(onHold);
-        toolInventoryRepository.save(inventory);
+    /**
+     * Allocate an available tool of the type and put it on hold, see {@link ToolAllocator}.
+     *
+     * @param toolType the tool type.
+     * @param location the requested location, or {@code null}.
+     * @return the reserved tool.
+     */
+    public Tool reserveToolOfType(ToolType toolType, String location) {
+        LOG.debug("Request to reserve Tool of type {} at {}", toolType, location);
+        return RentalMeters.record(
+            reservationTimers,
+            () -> new ToolReservationEvent().toolType(toolType).record(() -> allocate(toolType, location), RentalLifecycleEvent::tool),
+            RentalMeters.TOOL_TYPE_TAG,
+            RentalMeters.toolType(toolType)
+        );
+    }
+
+    private Tool allocate(ToolType toolType, String location) {
+        return toolAllocator.allocate(toolType, location, tool -> toolReservationLimiter.tryReserve(tool, () -> putOnHold(tool)));
+    }
+
+    private Tool putOnHoldOrFail(Tool tool) {
+        if (!putOnHold(tool)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Could not find available tool with code: " + tool.getCode());
+        }
+        return tool;
+    }
+
+    private boolean putOnHold(Tool tool) {
+        if (toolInventoryRepository.incrementOnHoldCountIfAvailable(tool.getCode()) == 0) {
+            return false;
+        }
+        inventoryAvailabilityService.recordChange(tool.getCode(), 0, 1);
+        return true;
     }
 
     @EventListener
     @Transactional
     public void onRentalCanceled(ToolRentalEvents.RentalCanceled event) {
-        var inventory = event.rental().getTool().getToolInventory();
-        var onHold = inventory.getOnHoldCount() - 1;
-        inventory.setOnHoldCount(onHold);
-        toolInventoryRepository.save(inventory);
+        updateInventory(event.rental(), toolInventoryRepository::decrementOnHoldCount, InventoryOperation.RELEASE_HOLD, 0, -1);
     }
 
     @EventListener
     @Transactional
     public void onRentalCheckedOut(ToolRentalEvents.RentalCheckedOut event) {
-        var inventory = event.rental().getTool().getToolInventory();
-        var onHold = inventory.getOnHoldCount() - 1;
-        var checkedOut = inventory.getCheckedOutCount() + 1;
-        inventory.setOnHoldCount(onHold);
-        inventory.setCheckedOutCount(checkedOut);
-        toolInventoryRepository.save(inventory);
+        updateInventory(event.rental(), toolInventoryRepository::moveOnHoldToCheckedOut, InventoryOperation.CHECK_OUT, 1, -1);
     }
 
     @EventListener
     @Transactional
     public void onRentalCheckedIn(ToolRentalEvents.RentalCheckedIn event) {
-        var inventory = event.rental().getTool().getToolInventory();
-        var checkedOut = inventory.getCheckedOutCount() - 1;
-        inventory.setCheckedOutCount(checkedOut);
-        toolInventoryRepository.save(inventory);
+        updateInventory(event.rental(), toolInventoryRepository::decrementCheckedOutCount, InventoryOperation.CHECK_IN, -1, 0);
+    }
+
+    /**
+     * Updates are timed by operation only: the tool type would require loading the tool.
+     */
+    private void updateInventory(
+        Rental rental,
+        ToIntFunction<String> update,
+        InventoryOperation operation,
+        int checkedOutDelta,
+        int onHoldDelta
+    ) {
+        // the tool code is the identifier of the lazy association, so the tool is not loaded here
+        var toolCode = rental.getTool().getCode();
+        RentalMeters.record(
+            inventoryUpdateTimers,
+            () -> {
+                if (update.applyAsInt(toolCode) == 0) {
+                    throw new ResponseStatusException(
+                        HttpStatus.CONFLICT,
+                        String.format(
+                            "Could not %s tool with code: %s, inventory counts are inconsistent.",
+                            operation.description,
+                            toolCode
+                        )
+                    );
+                }
+                inventoryAvailabilityService.recordChange(toolCode, checkedOutDelta, onHoldDelta);
+                return toolCode;
+            },
+            "operation",
+            operation.tag
+        );
+    }
+
+    private enum InventoryOperation {
+        RELEASE_HOLD("release-hold", "release hold of"),
+        CHECK_OUT("check-out", "check out"),
+        CHECK_IN("check-in", "check in");
+
+        private final String tag;
+        private final String description;
+
+        InventoryOperation(String tag, String description) {
+            this.tag = tag;
+            this.description = description;
+        }
     }
 }
@@ -0,0 +1,77 @@
+package org.nimdaved.toolrent.service.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Position of keyset (seek) pagination: the sort key of the last element of the previous page,
+ * exchanged with clients as an opaque token.
+ *
+ * @param order the sort order of the pages.
+ * @param checkOutDate the check-out date of the last element, only for {@link Order#CHECK_OUT_DATE}, {@code null} on the first page.
+ * @param id the id of the last element, {@code null} on the first page.
+ */
+public record KeysetCursor(Order order, LocalDate checkOutDate, Long id) {
+    public enum Order {
+        ID("id"),
+        CHECK_OUT_DATE("checkOutDate");
+
+        private final String value;
+
+        Order(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public static Order of(String value) {
+            for (Order order : values()) {
+                if (order.value.equalsIgnoreCase(value)) {
+                    return order;
+                }
+            }
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported keyset order: " + value);
+        }
+    }
+
+    private static final String SEPARATOR = ":";
+
+    public static KeysetCursor first(Order order) {
+        return new KeysetCursor(order, null, null);
+    }
+
+    public boolean isFirst() {
+        return id == null;
+    }
+
+    /**
+     * @param checkOutDate the check-out date of the last element of the page.
+     * @param id the id of the last element of the page.
+     * @return the cursor of the next page.
+     */
+    public KeysetCursor next(LocalDate checkOutDate, Long id) {
+        return new KeysetCursor(order, order == Order.CHECK_OUT_DATE ? checkOutDate : null, id);
+    }
+
+    public String encode() {
+        var key = order == Order.CHECK_OUT_DATE ? order.name() + SEPARATOR + checkOutDate + SEPARATOR + id : order.name() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String token) {
+        try {
+            var parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(SEPARATOR);
+            var order = Order.valueOf(parts[0]);
+            return order == Order.CHECK_OUT_DATE
+                ? new KeysetCursor(order, LocalDate.parse(parts[1]), Long.valueOf(parts[2]))
+                : new KeysetCursor(order, null, Long.valueOf(parts[1]));
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + token, e);
+        }
+    }
+}
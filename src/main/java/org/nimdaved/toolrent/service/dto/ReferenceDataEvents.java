@@ -0,0 +1,17 @@
+package org.nimdaved.toolrent.service.dto;
+
+/**
+ * Notifications about changes of rarely modified reference data, used to refresh in-memory snapshots.
+ */
+public final class ReferenceDataEvents {
+
+    private ReferenceDataEvents() {}
+
+    public record HolidaysChanged(Long holidayId) {}
+
+    public record ChargesChanged(Long chargeId) {}
+
+    public record InventoriesChanged(Long toolInventoryId) {}
+
+    public record ToolsChanged(String toolCode) {}
+}
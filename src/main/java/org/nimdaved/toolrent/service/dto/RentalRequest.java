@@ -6,12 +6,19 @@ import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import java.time.LocalDate;
 import org.nimdaved.toolrent.domain.Customer;
+import org.nimdaved.toolrent.domain.enumeration.ToolType;
 
+/**
+ * Request of a rental of either the tool with {@code toolCode}, or of any available tool of {@code toolType}
+ * allocated according to the {@code application.allocation} strategy, taking {@code location} into account if given.
+ * Requests with both {@code toolCode} and {@code toolType} are rejected.
+ */
 public class RentalRequest {
 
-    @NotNull
     private String toolCode;
 
+    private ToolType toolType;
+
     @NotNull
     private LocalDate checkOutDate;
 
@@ -28,14 +35,22 @@ public class RentalRequest {
     private String location;
     private Customer customer;
 
-    public @NotNull String getToolCode() {
+    public String getToolCode() {
         return toolCode;
     }
 
-    public void setToolCode(@NotNull String toolCode) {
+    public void setToolCode(String toolCode) {
         this.toolCode = toolCode;
     }
 
+    public ToolType getToolType() {
+        return toolType;
+    }
+
+    public void setToolType(ToolType toolType) {
+        this.toolType = toolType;
+    }
+
     public @NotNull LocalDate getCheckOutDate() {
         return checkOutDate;
     }
@@ -83,6 +98,8 @@ public class RentalRequest {
             "toolCode='" +
             toolCode +
             '\'' +
+            ", toolType=" +
+            toolType +
             ", checkOutDate=" +
             checkOutDate +
             ", dayCount=" +
@@ -0,0 +1,10 @@
+package org.nimdaved.toolrent.service.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.nimdaved.toolrent.AgreementGeneration")
+@Label("Agreement Generation")
+@Description("Rendering of a rental agreement")
+public class AgreementGenerationEvent extends RentalLifecycleEvent {}
@@ -0,0 +1,10 @@
+package org.nimdaved.toolrent.service.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.nimdaved.toolrent.RentalCreation")
+@Label("Rental Creation")
+@Description("Creation of a rental: reservation of the tool, pricing and saving")
+public class RentalCreationEvent extends RentalLifecycleEvent {}
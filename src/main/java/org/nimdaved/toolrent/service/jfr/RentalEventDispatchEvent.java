@@ -0,0 +1,19 @@
+package org.nimdaved.toolrent.service.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.nimdaved.toolrent.RentalEventDispatch")
+@Label("Rental Event Dispatch")
+@Description("Dispatch of a rental lifecycle event to its listeners, not including transactional listeners run after commit")
+public class RentalEventDispatchEvent extends RentalLifecycleEvent {
+
+    @Label("Event Type")
+    String eventType;
+
+    public RentalEventDispatchEvent eventType(Object event) {
+        eventType = event.getClass().getSimpleName();
+        return this;
+    }
+}
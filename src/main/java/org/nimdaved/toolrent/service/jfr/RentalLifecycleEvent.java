@@ -0,0 +1,98 @@
+package org.nimdaved.toolrent.service.jfr;
+
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+import org.nimdaved.toolrent.domain.Rental;
+import org.nimdaved.toolrent.domain.Tool;
+import org.nimdaved.toolrent.domain.enumeration.ToolType;
+
+/**
+ * Java Flight Recorder event of a rental lifecycle operation, with the rental and tool it applies to.
+ * <p>
+ * The duration of the event is the duration of the operation, so a recording correlates slow operations
+ * with GC pauses, lock contention and I/O of the same thread and time. Fields unknown to an operation stay empty.
+ */
+@Category({ "Toolrent", "Rental" })
+@StackTrace(false)
+public abstract class RentalLifecycleEvent extends Event {
+
+    @Label("Rental Id")
+    long rentalId;
+
+    @Label("Tool Code")
+    String toolCode;
+
+    @Label("Tool Type")
+    String toolType;
+
+    @Label("Day Count")
+    int dayCount;
+
+    @Label("Failed")
+    boolean failed;
+
+    public RentalLifecycleEvent rental(Rental rental) {
+        if (rental != null) {
+            rentalId = rental.getId() != null ? rental.getId() : 0;
+            dayCount(rental.getDayCount());
+            tool(rental.getTool());
+        }
+        return this;
+    }
+
+    public RentalLifecycleEvent tool(Tool tool) {
+        if (tool != null) {
+            toolCode = tool.getCode();
+            toolType(tool.getToolType());
+        }
+        return this;
+    }
+
+    public RentalLifecycleEvent toolType(ToolType toolType) {
+        this.toolType = toolType != null ? toolType.name() : null;
+        return this;
+    }
+
+    public RentalLifecycleEvent dayCount(Integer dayCount) {
+        this.dayCount = dayCount != null ? dayCount : 0;
+        return this;
+    }
+
+    /**
+     * Run the operation within the event.
+     *
+     * @param operation the operation.
+     * @return the result of the operation.
+     */
+    public <T> T record(Supplier<T> operation) {
+        return record(operation, (event, result) -> {});
+    }
+
+    /**
+     * Run the operation within the event, then complete the fields of the event from its result.
+     *
+     * @param operation the operation.
+     * @param describe sets the fields of the event known once the operation completed.
+     * @return the result of the operation.
+     */
+    public <T> T record(Supplier<T> operation, BiConsumer<RentalLifecycleEvent, T> describe) {
+        if (!isEnabled()) {
+            return operation.get();
+        }
+        begin();
+        try {
+            var result = operation.get();
+            describe.accept(this, result);
+            return result;
+        } catch (RuntimeException e) {
+            failed = true;
+            throw e;
+        } finally {
+            commit();
+        }
+    }
+}
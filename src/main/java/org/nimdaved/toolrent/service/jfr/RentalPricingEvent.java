@@ -0,0 +1,10 @@
+package org.nimdaved.toolrent.service.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.nimdaved.toolrent.RentalPricing")
+@Label("Rental Pricing")
+@Description("Calculation of the charges of a rental")
+public class RentalPricingEvent extends RentalLifecycleEvent {}
@@ -0,0 +1,10 @@
+package org.nimdaved.toolrent.service.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.nimdaved.toolrent.ToolReservation")
+@Label("Tool Reservation")
+@Description("Reservation of a tool, putting it on hold in its inventory")
+public class ToolReservationEvent extends RentalLifecycleEvent {}
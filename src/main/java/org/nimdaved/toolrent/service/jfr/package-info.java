@@ -0,0 +1,4 @@
+/**
+ * Java Flight Recorder events of the rental lifecycle.
+ */
+package org.nimdaved.toolrent.service.jfr;
@@ -0,0 +1,294 @@
+package org.nimdaved.toolrent.web.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import org.nimdaved.toolrent.config.ApplicationProperties;
+import org.nimdaved.toolrent.security.SecurityUtils;
+import org.nimdaved.toolrent.service.IdempotencyService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+/**
+ * Honours the {@code Idempotency-Key} header of POST requests to the configured paths: a retry of a request
+ * gets the response of the first request with the same key, without running the request again.
+ * <p>
+ * Keys are scoped by the authenticated user, or by the client address of anonymous requests. Only successful
+ * (2xx and 3xx) responses are stored, error responses may be transient, so the request can be retried.
+ * The request runs in a transaction which also stores its response. Runs after the security filter chain,
+ * so only authorized requests are stored or replayed.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 128;
+
+    private final IdempotencyService idempotencyService;
+    private final TransactionTemplate transactionTemplate;
+    private final List<String> paths;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public IdempotencyFilter(
+        IdempotencyService idempotencyService,
+        TransactionTemplate transactionTemplate,
+        ApplicationProperties applicationProperties
+    ) {
+        this.idempotencyService = idempotencyService;
+        this.transactionTemplate = transactionTemplate;
+        this.paths = List.copyOf(applicationProperties.getIdempotency().getPaths());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!HttpMethod.POST.matches(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return paths.stream().noneMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        String key = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            response.sendError(
+                HttpStatus.BAD_REQUEST.value(),
+                IDEMPOTENCY_KEY_HEADER + " must have 1 to " + MAX_KEY_LENGTH + " characters"
+            );
+            return;
+        }
+
+        var body = StreamUtils.copyToByteArray(request.getInputStream());
+        var scopedKey = scope(request) + ":" + key;
+        var fingerprint = fingerprint(request, body);
+        var outcome = idempotencyService.begin(scopedKey, fingerprint);
+
+        switch (outcome.decision()) {
+            case PROCEED -> proceed(new CachedBodyRequest(request, body), response, filterChain, scopedKey, outcome.claimId(), fingerprint);
+            case REPLAY -> replay(outcome.response(), response);
+            case IN_PROGRESS -> sendInProgress(response);
+            case MISMATCH -> response.sendError(
+                HttpStatus.UNPROCESSABLE_ENTITY.value(),
+                IDEMPOTENCY_KEY_HEADER + " was already used for a different request"
+            );
+        }
+    }
+
+    /**
+     * The authenticated user, or the client address of anonymous requests, so anonymous clients do not share keys.
+     */
+    private static String scope(HttpServletRequest request) {
+        return SecurityUtils.getCurrentUserLogin()
+            .filter(login -> SecurityUtils.isAuthenticated())
+            .orElseGet(() -> "anonymous@" + request.getRemoteAddr());
+    }
+
+    private void proceed(
+        HttpServletRequest request,
+        HttpServletResponse response,
+        FilterChain filterChain,
+        String key,
+        Long claimId,
+        String fingerprint
+    ) throws ServletException, IOException {
+        var cachingResponse = new ContentCachingResponseWrapper(response);
+        Completion completion = Completion.NOT_STORED;
+        boolean committed = false;
+        try {
+            completion = transactionTemplate.execute(transaction -> {
+                doFilter(filterChain, request, cachingResponse);
+                if (transaction.isRollbackOnly()) {
+                    // failed in a transaction of the request, rolled back without failing the response
+                    transaction.setRollbackOnly();
+                    return Completion.NOT_STORED;
+                }
+                if (!isSuccessful(cachingResponse.getStatus())) {
+                    return Completion.NOT_STORED;
+                }
+                if (idempotencyService.complete(key, claimId, storedResponse(cachingResponse, fingerprint))) {
+                    return Completion.STORED;
+                }
+                transaction.setRollbackOnly();
+                return Completion.TAKEN_OVER;
+            });
+            committed = true;
+        } catch (FilterChainException e) {
+            e.rethrow();
+        } finally {
+            if (completion != Completion.STORED) {
+                idempotencyService.abandon(claimId);
+            }
+            if (!committed) {
+                // the request or its commit failed, the buffered response must not reach the client as a success
+                cachingResponse.resetBuffer();
+            } else if (completion == Completion.TAKEN_OVER) {
+                // the retry which took over the key runs the request instead
+                cachingResponse.resetBuffer();
+                response.reset();
+                sendInProgress(response);
+            } else {
+                cachingResponse.copyBodyToResponse();
+            }
+        }
+    }
+
+    private static void doFilter(FilterChain filterChain, HttpServletRequest request, HttpServletResponse response) {
+        try {
+            filterChain.doFilter(request, response);
+        } catch (IOException | ServletException e) {
+            throw new FilterChainException(e);
+        }
+    }
+
+    private static boolean isSuccessful(int status) {
+        return status < HttpStatus.BAD_REQUEST.value();
+    }
+
+    private static IdempotencyService.StoredResponse storedResponse(ContentCachingResponseWrapper response, String fingerprint) {
+        return new IdempotencyService.StoredResponse(
+            fingerprint,
+            response.getStatus(),
+            response.getContentType(),
+            response.getHeader(HttpHeaders.LOCATION),
+            new String(response.getContentAsByteArray(), StandardCharsets.UTF_8)
+        );
+    }
+
+    private static void sendInProgress(HttpServletResponse response) throws IOException {
+        response.sendError(HttpStatus.CONFLICT.value(), "A request with this " + IDEMPOTENCY_KEY_HEADER + " is in progress");
+    }
+
+    private static void replay(IdempotencyService.StoredResponse stored, HttpServletResponse response) throws IOException {
+        response.setStatus(stored.status());
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (stored.location() != null) {
+            response.setHeader(HttpHeaders.LOCATION, stored.location());
+        }
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        if (stored.body() != null && !stored.body().isEmpty()) {
+            response.getOutputStream().write(stored.body().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * SHA-256 of the method, path, query and body of the request.
+     */
+    private static String fingerprint(HttpServletRequest request, byte[] body) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            digest.update((request.getMethod() + " " + request.getRequestURI() + "?" + request.getQueryString() + "\n").getBytes(
+                    StandardCharsets.UTF_8
+                ));
+            digest.update(body);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Request with the body read ahead for the fingerprint, which can be read again by the handler.
+     */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            var in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    // the body is read ahead, so all of it is available at once
+                    try {
+                        if (!isFinished()) {
+                            readListener.onDataAvailable();
+                        }
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private enum Completion {
+        STORED,
+        NOT_STORED,
+        TAKEN_OVER,
+    }
+
+    /**
+     * Carries the checked exceptions of the filter chain through the transaction callback.
+     */
+    private static class FilterChainException extends RuntimeException {
+
+        FilterChainException(Exception cause) {
+            super(cause);
+        }
+
+        void rethrow() throws IOException, ServletException {
+            if (getCause() instanceof IOException e) {
+                throw e;
+            }
+            throw (ServletException) getCause();
+        }
+    }
+}
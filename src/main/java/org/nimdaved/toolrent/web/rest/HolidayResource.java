@@ -4,15 +4,18 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.DateTimeException;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import org.nimdaved.toolrent.domain.Holiday;
 import org.nimdaved.toolrent.repository.HolidayRepository;
+import org.nimdaved.toolrent.service.dto.ReferenceDataEvents;
 import org.nimdaved.toolrent.web.rest.errors.BadRequestAlertException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
@@ -31,20 +34,27 @@ public class HolidayResource {
 
     private static final String ENTITY_NAME = "holiday";
 
+    /** A leap year, so that February 29th is accepted */
+    private static final int VALIDATION_YEAR = 2000;
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
     private final HolidayRepository holidayRepository;
 
-    public HolidayResource(HolidayRepository holidayRepository) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    public HolidayResource(HolidayRepository holidayRepository, ApplicationEventPublisher eventPublisher) {
         this.holidayRepository = holidayRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
      * {@code POST  /holidays} : Create a new holiday.
      *
      * @param holiday the holiday to create.
-     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new holiday, or with status {@code 400 (Bad Request)} if the holiday has already an ID.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new holiday, or with status {@code 400 (Bad Request)} if the holiday has already an ID,
+     * or with status {@code 400 (Bad Request)} if the holiday has no valid date.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("")
@@ -53,7 +63,9 @@ public class HolidayResource {
         if (holiday.getId() != null) {
             throw new BadRequestAlertException("A new holiday cannot already have an ID", ENTITY_NAME, "idexists");
         }
+        validateDate(holiday);
         holiday = holidayRepository.save(holiday);
+        eventPublisher.publishEvent(new ReferenceDataEvents.HolidaysChanged(holiday.getId()));
         return ResponseEntity.created(new URI("/api/holidays/" + holiday.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, holiday.getId().toString()))
             .body(holiday);
@@ -65,7 +77,7 @@ public class HolidayResource {
      * @param id the id of the holiday to save.
      * @param holiday the holiday to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated holiday,
-     * or with status {@code 400 (Bad Request)} if the holiday is not valid,
+     * or with status {@code 400 (Bad Request)} if the holiday is not valid or has no valid date,
      * or with status {@code 500 (Internal Server Error)} if the holiday couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
@@ -86,7 +98,9 @@ public class HolidayResource {
             throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
         }
 
+        validateDate(holiday);
         holiday = holidayRepository.save(holiday);
+        eventPublisher.publishEvent(new ReferenceDataEvents.HolidaysChanged(holiday.getId()));
         return ResponseEntity.ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, holiday.getId().toString()))
             .body(holiday);
@@ -98,7 +112,7 @@ public class HolidayResource {
      * @param id the id of the holiday to save.
      * @param holiday the holiday to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated holiday,
-     * or with status {@code 400 (Bad Request)} if the holiday is not valid,
+     * or with status {@code 400 (Bad Request)} if the holiday is not valid or has no valid date,
      * or with status {@code 404 (Not Found)} if the holiday is not found,
      * or with status {@code 500 (Internal Server Error)} if the holiday couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
@@ -139,9 +153,11 @@ public class HolidayResource {
                     existingHoliday.setObservedOnClosestWeekday(holiday.getObservedOnClosestWeekday());
                 }
 
+                validateDate(existingHoliday);
                 return existingHoliday;
             })
             .map(holidayRepository::save);
+        result.ifPresent(h -> eventPublisher.publishEvent(new ReferenceDataEvents.HolidaysChanged(h.getId())));
 
         return ResponseUtil.wrapOrNotFound(
             result,
@@ -183,8 +199,21 @@ public class HolidayResource {
     public ResponseEntity<Void> deleteHoliday(@PathVariable("id") Long id) {
         LOG.debug("REST request to delete Holiday : {}", id);
         holidayRepository.deleteById(id);
+        eventPublisher.publishEvent(new ReferenceDataEvents.HolidaysChanged(id));
         return ResponseEntity.noContent()
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, true, ENTITY_NAME, id.toString()))
             .build();
     }
+
+    /**
+     * Rejects holidays which never fall on a date, e.g. February 30th, or a day of week other than 1 (Monday) to 7 (Sunday).
+     * They are checked before saving, because the calendar is rebuilt from all holidays after commit.
+     */
+    private static void validateDate(Holiday holiday) {
+        try {
+            holiday.toLocalDate(VALIDATION_YEAR);
+        } catch (DateTimeException e) {
+            throw new BadRequestAlertException("Invalid holiday date: " + e.getMessage(), ENTITY_NAME, "dateinvalid");
+        }
+    }
 }
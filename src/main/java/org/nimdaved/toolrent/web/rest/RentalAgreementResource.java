@@ -1,22 +1,30 @@
 package org.nimdaved.toolrent.web.rest;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import org.nimdaved.toolrent.domain.RentalAgreement;
 import org.nimdaved.toolrent.repository.RentalAgreementRepository;
+import org.nimdaved.toolrent.service.RentalAgreementPipeline;
 import org.nimdaved.toolrent.service.RentalAgreementService;
+import org.nimdaved.toolrent.service.RentalExportService;
+import org.nimdaved.toolrent.service.dto.KeysetCursor;
 import org.nimdaved.toolrent.web.rest.errors.BadRequestAlertException;
+import org.nimdaved.toolrent.web.rest.util.KeysetPaginationUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -41,10 +49,21 @@ public class RentalAgreementResource {
 
     private final RentalAgreementService rentalAgreementService;
 
+    private final RentalAgreementPipeline rentalAgreementPipeline;
+
+    private final RentalExportService rentalExportService;
+
     private final RentalAgreementRepository rentalAgreementRepository;
 
-    public RentalAgreementResource(RentalAgreementService rentalAgreementService, RentalAgreementRepository rentalAgreementRepository) {
+    public RentalAgreementResource(
+        RentalAgreementService rentalAgreementService,
+        RentalAgreementPipeline rentalAgreementPipeline,
+        RentalExportService rentalExportService,
+        RentalAgreementRepository rentalAgreementRepository
+    ) {
         this.rentalAgreementService = rentalAgreementService;
+        this.rentalAgreementPipeline = rentalAgreementPipeline;
+        this.rentalExportService = rentalExportService;
         this.rentalAgreementRepository = rentalAgreementRepository;
     }
 
@@ -99,17 +118,72 @@ public class RentalAgreementResource {
     /**
      * {@code GET  /rental-agreements} : get all the rentalAgreements.
      *
+     * <p>
+     * With {@code scroll=id}, or with the {@code after} cursor of the previous page, pages are read by keyset
+     * (seek) pagination: response time does not depend on the page depth and no total count is returned.
+     *
      * @param pageable the pagination information.
+     * @param scroll the keyset order of the first page of keyset pagination.
+     * @param after the cursor of the next page of keyset pagination.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of rentalAgreements in body.
      */
     @GetMapping("")
-    public ResponseEntity<List<RentalAgreement>> getAllRentalAgreements(@org.springdoc.core.annotations.ParameterObject Pageable pageable) {
+    public ResponseEntity<List<RentalAgreement>> getAllRentalAgreements(
+        @org.springdoc.core.annotations.ParameterObject Pageable pageable,
+        @RequestParam(name = KeysetPaginationUtil.SCROLL_PARAMETER, required = false) String scroll,
+        @RequestParam(name = KeysetPaginationUtil.AFTER_PARAMETER, required = false) String after
+    ) {
+        if (scroll != null || after != null) {
+            var cursor = after != null ? KeysetCursor.decode(after) : KeysetCursor.first(KeysetCursor.Order.of(scroll));
+            LOG.debug("REST request to get RentalAgreements after {}", cursor);
+            var rentalAgreements = rentalAgreementService.findAll(cursor, pageable.getPageSize());
+            HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+                ServletUriComponentsBuilder.fromCurrentRequest(),
+                rentalAgreements,
+                pageable.getPageSize(),
+                cursor,
+                (current, last) -> current.next(null, last.getId())
+            );
+            return ResponseEntity.ok().headers(headers).body(rentalAgreements);
+        }
+
         LOG.debug("REST request to get a page of RentalAgreements");
         Page<RentalAgreement> page = rentalAgreementService.findAll(pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * {@code GET  /rental-agreements/export} : export the agreements of the rentals checked out in [from, to),
+     * ordered by id.
+     * <p>
+     * Rows are streamed to the response as they are read from the database, without paging and total count.
+     *
+     * @param format the output format, {@code ndjson} or {@code csv}.
+     * @param from the first check-out date, unbounded if omitted.
+     * @param to the check-out date after the last one, unbounded if omitted.
+     * @param response the response to write the rentalAgreements to, with status {@code 200 (OK)},
+     * or with status {@code 400 (Bad Request)} if the format is not supported.
+     * @throws IOException if the response cannot be written.
+     */
+    @GetMapping("/export")
+    public void exportRentalAgreements(
+        @RequestParam(name = "format", defaultValue = "ndjson") String format,
+        @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+        HttpServletResponse response
+    ) throws IOException {
+        LOG.debug("REST request to export RentalAgreements from {} to {} as {}", from, to, format);
+        var exportFormat = RentalExportService.Format.of(format);
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(
+            HttpHeaders.CONTENT_DISPOSITION,
+            "attachment; filename=rental-agreements." + exportFormat.getExtension()
+        );
+        rentalExportService.exportRentalAgreements(exportFormat, from, to, response.getOutputStream());
+    }
+
     /**
      * {@code GET  /rental-agreements/:id} : get the "id" rentalAgreement.
      *
@@ -124,15 +198,18 @@ public class RentalAgreementResource {
     }
 
     /**
-     * {@code GET  /rental-agreements/rental/:id} : get the "id" rentalAgreement.
+     * {@code GET  /rental-agreements/rental/:id} : get the rentalAgreement of the "id" rental.
+     * An agreement still pending asynchronous generation is generated right away.
      *
-     * @param id the id of the rentalAgreement to retrieve.
+     * @param id the id of the rental.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the rentalAgreement, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/rental/{id}")
     public ResponseEntity<RentalAgreement> getRentalAgreementByRentalId(@PathVariable("id") Long id) {
         LOG.debug("REST request to get RentalAgreement by rentalId : {}", id);
-        Optional<RentalAgreement> rentalAgreement = rentalAgreementRepository.findByRentalId(id);
+        Optional<RentalAgreement> rentalAgreement = rentalAgreementRepository
+            .findByRentalId(id)
+            .or(() -> rentalAgreementPipeline.generatePending(id));
         return ResponseUtil.wrapOrNotFound(rentalAgreement);
     }
 
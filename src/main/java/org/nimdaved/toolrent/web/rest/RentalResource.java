@@ -1,22 +1,31 @@
 package org.nimdaved.toolrent.web.rest;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import org.nimdaved.toolrent.domain.Rental;
 import org.nimdaved.toolrent.repository.RentalRepository;
+import org.nimdaved.toolrent.service.RentalExportService;
+import org.nimdaved.toolrent.service.RentalQuoteService;
 import org.nimdaved.toolrent.service.RentalService;
+import org.nimdaved.toolrent.service.dto.KeysetCursor;
 import org.nimdaved.toolrent.service.dto.RentalRequest;
 import org.nimdaved.toolrent.web.rest.errors.BadRequestAlertException;
+import org.nimdaved.toolrent.web.rest.util.KeysetPaginationUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -42,10 +51,21 @@ public class RentalResource {
 
     private final RentalService rentalService;
 
+    private final RentalQuoteService rentalQuoteService;
+
+    private final RentalExportService rentalExportService;
+
     private final RentalRepository rentalRepository;
 
-    public RentalResource(RentalService rentalService, RentalRepository rentalRepository) {
+    public RentalResource(
+        RentalService rentalService,
+        RentalQuoteService rentalQuoteService,
+        RentalExportService rentalExportService,
+        RentalRepository rentalRepository
+    ) {
         this.rentalService = rentalService;
+        this.rentalQuoteService = rentalQuoteService;
+        this.rentalExportService = rentalExportService;
         this.rentalRepository = rentalRepository;
     }
 
@@ -66,24 +86,98 @@ public class RentalResource {
         return ResponseEntity.status(HttpStatus.SEE_OTHER).location(location).build();
     }
 
+    /**
+     * {@code POST  /rentals/quotes} : Price rental requests in bulk, without creating rentals.
+     *
+     * @param rentalRequests the rental requests to price.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the quotes in body, in the order of the requests,
+     * or with status {@code 400 (Bad Request)} if there are too many requests.
+     */
+    @PostMapping("/quotes")
+    public ResponseEntity<List<RentalQuoteService.Quote>> quoteRentals(@NotNull @RequestBody List<RentalRequest> rentalRequests) {
+        LOG.debug("REST request to quote {} Rentals", rentalRequests.size());
+        return ResponseEntity.ok(rentalQuoteService.quote(rentalRequests));
+    }
+
+    /**
+     * Check in the tool of a checked out rental
+     * @param id
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)},
+     * or with status {@code 400 (Bad Request)} if the rental is not checked out.
+     */
+    @PostMapping("/{id}/check-in")
+    public ResponseEntity<?> checkin(@PathVariable(value = "id") final Long id) {
+        LOG.debug("REST request to check in Rental : {}", id);
+        rentalService.checkin(id);
+        return ResponseEntity.accepted().body(Map.of(id, "Rental checked in"));
+    }
+
     /**
      * {@code GET  /rentals} : get all the rentals.
+     * <p>
+     * With {@code scroll=id|checkOutDate}, or with the {@code after} cursor of the previous page, pages are read by keyset
+     * (seek) pagination: response time does not depend on the page depth and no total count is returned.
      *
      * @param pageable the pagination information.
      * @param filter the filter of the request.
+     * @param scroll the keyset order of the first page of keyset pagination.
+     * @param after the cursor of the next page of keyset pagination.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of rentals in body.
      */
     @GetMapping("")
     public ResponseEntity<List<Rental>> getAllRentals(
         @org.springdoc.core.annotations.ParameterObject Pageable pageable,
-        @RequestParam(name = "filter", required = false) String filter
+        @RequestParam(name = "filter", required = false) String filter,
+        @RequestParam(name = KeysetPaginationUtil.SCROLL_PARAMETER, required = false) String scroll,
+        @RequestParam(name = KeysetPaginationUtil.AFTER_PARAMETER, required = false) String after
     ) {
+        if (scroll != null || after != null) {
+            var cursor = after != null ? KeysetCursor.decode(after) : KeysetCursor.first(KeysetCursor.Order.of(scroll));
+            LOG.debug("REST request to get Rentals after {}", cursor);
+            var rentals = rentalService.findAll(cursor, pageable.getPageSize());
+            HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+                ServletUriComponentsBuilder.fromCurrentRequest(),
+                rentals,
+                pageable.getPageSize(),
+                cursor,
+                (current, last) -> current.next(last.getCheckOutDate(), last.getId())
+            );
+            return ResponseEntity.ok().headers(headers).body(rentals);
+        }
+
         LOG.debug("REST request to get a page of Rentals");
         Page<Rental> page = rentalService.findAll(pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * {@code GET  /rentals/export} : export the rentals checked out in [from, to), ordered by id.
+     * <p>
+     * Rows are streamed to the response as they are read from the database, without paging and total count.
+     *
+     * @param format the output format, {@code ndjson} or {@code csv}.
+     * @param from the first check-out date, unbounded if omitted.
+     * @param to the check-out date after the last one, unbounded if omitted.
+     * @param response the response to write the rentals to, with status {@code 200 (OK)},
+     * or with status {@code 400 (Bad Request)} if the format is not supported.
+     * @throws IOException if the response cannot be written.
+     */
+    @GetMapping("/export")
+    public void exportRentals(
+        @RequestParam(name = "format", defaultValue = "ndjson") String format,
+        @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+        HttpServletResponse response
+    ) throws IOException {
+        LOG.debug("REST request to export Rentals from {} to {} as {}", from, to, format);
+        var exportFormat = RentalExportService.Format.of(format);
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=rentals." + exportFormat.getExtension());
+        rentalExportService.exportRentals(exportFormat, from, to, response.getOutputStream());
+    }
+
     /**
      * {@code GET  /rentals/:id} : get the "id" rental.
      *
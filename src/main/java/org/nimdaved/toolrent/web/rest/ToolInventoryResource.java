@@ -8,12 +8,17 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import org.nimdaved.toolrent.domain.ToolInventory;
+import org.nimdaved.toolrent.domain.enumeration.ToolType;
 import org.nimdaved.toolrent.repository.ToolInventoryRepository;
+import org.nimdaved.toolrent.service.InventoryAvailabilityService;
+import org.nimdaved.toolrent.service.dto.ReferenceDataEvents;
 import org.nimdaved.toolrent.web.rest.errors.BadRequestAlertException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import tech.jhipster.web.util.HeaderUtil;
@@ -36,8 +41,18 @@ public class ToolInventoryResource {
 
     private final ToolInventoryRepository toolInventoryRepository;
 
-    public ToolInventoryResource(ToolInventoryRepository toolInventoryRepository) {
+    private final InventoryAvailabilityService inventoryAvailabilityService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ToolInventoryResource(
+        ToolInventoryRepository toolInventoryRepository,
+        InventoryAvailabilityService inventoryAvailabilityService,
+        ApplicationEventPublisher eventPublisher
+    ) {
         this.toolInventoryRepository = toolInventoryRepository;
+        this.inventoryAvailabilityService = inventoryAvailabilityService;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -54,6 +69,7 @@ public class ToolInventoryResource {
             throw new BadRequestAlertException("A new toolInventory cannot already have an ID", ENTITY_NAME, "idexists");
         }
         toolInventory = toolInventoryRepository.save(toolInventory);
+        eventPublisher.publishEvent(new ReferenceDataEvents.InventoriesChanged(toolInventory.getId()));
         return ResponseEntity.created(new URI("/api/tool-inventories/" + toolInventory.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, toolInventory.getId().toString()))
             .body(toolInventory);
@@ -87,6 +103,7 @@ public class ToolInventoryResource {
         }
 
         toolInventory = toolInventoryRepository.save(toolInventory);
+        eventPublisher.publishEvent(new ReferenceDataEvents.InventoriesChanged(toolInventory.getId()));
         return ResponseEntity.ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, toolInventory.getId().toString()))
             .body(toolInventory);
@@ -139,6 +156,7 @@ public class ToolInventoryResource {
                 return existingToolInventory;
             })
             .map(toolInventoryRepository::save);
+        result.ifPresent(saved -> eventPublisher.publishEvent(new ReferenceDataEvents.InventoriesChanged(saved.getId())));
 
         return ResponseUtil.wrapOrNotFound(
             result,
@@ -157,6 +175,25 @@ public class ToolInventoryResource {
         return toolInventoryRepository.findAll();
     }
 
+    /**
+     * {@code GET  /tool-inventories/availability} : get the availability of tools per location and tool type.
+     * <p>
+     * Served from memory, kept current by inventory changes and periodically reconciled with the database.
+     *
+     * @param location the location, all locations if omitted.
+     * @param toolType the tool type, all tool types if omitted.
+     * @return the availability, ordered by location and tool type.
+     */
+    @GetMapping("/availability")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<InventoryAvailabilityService.Availability> getAvailability(
+        @RequestParam(name = "location", required = false) String location,
+        @RequestParam(name = "toolType", required = false) ToolType toolType
+    ) {
+        LOG.debug("REST request to get availability of location {} and tool type {}", location, toolType);
+        return inventoryAvailabilityService.getAvailability(location, toolType);
+    }
+
     /**
      * {@code GET  /tool-inventories/:id} : get the "id" toolInventory.
      *
@@ -180,6 +217,7 @@ public class ToolInventoryResource {
     public ResponseEntity<Void> deleteToolInventory(@PathVariable("id") Long id) {
         LOG.debug("REST request to delete ToolInventory : {}", id);
         toolInventoryRepository.deleteById(id);
+        eventPublisher.publishEvent(new ReferenceDataEvents.InventoriesChanged(id));
         return ResponseEntity.noContent()
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, true, ENTITY_NAME, id.toString()))
             .build();
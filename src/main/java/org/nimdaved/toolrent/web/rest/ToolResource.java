@@ -8,15 +8,21 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import org.nimdaved.toolrent.domain.Tool;
+import org.nimdaved.toolrent.domain.enumeration.ToolType;
 import org.nimdaved.toolrent.repository.ToolRepository;
 import org.nimdaved.toolrent.service.ToolService;
 import org.nimdaved.toolrent.web.rest.errors.BadRequestAlertException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
+import tech.jhipster.web.util.PaginationUtil;
 import tech.jhipster.web.util.ResponseUtil;
 
 /**
@@ -138,6 +144,30 @@ public class ToolResource {
         return toolService.findAll();
     }
 
+    /**
+     * {@code GET  /tools/available} : search tools available for rental, with their inventory.
+     *
+     * @param code the tool code, any if omitted.
+     * @param toolType the tool type, any if omitted.
+     * @param location the inventory location, any if omitted.
+     * @param minAvailable the minimum number of available items in the inventory of the tool.
+     * @param pageable the pagination information.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of tools in body.
+     */
+    @GetMapping("/available")
+    public ResponseEntity<List<Tool>> getAvailableTools(
+        @RequestParam(name = "code", required = false) String code,
+        @RequestParam(name = "toolType", required = false) ToolType toolType,
+        @RequestParam(name = "location", required = false) String location,
+        @RequestParam(name = "minAvailable", defaultValue = "1") int minAvailable,
+        @org.springdoc.core.annotations.ParameterObject Pageable pageable
+    ) {
+        LOG.debug("REST request to search available Tools");
+        Page<Tool> page = toolService.findAvailable(code, toolType, location, minAvailable, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
     /**
      * {@code GET  /tools/:id} : get the "id" tool.
      *
@@ -0,0 +1,57 @@
+package org.nimdaved.toolrent.web.rest.util;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import org.nimdaved.toolrent.service.dto.KeysetCursor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Utility class for handling keyset (seek) pagination.
+ * <p>
+ * Instead of {@code X-Total-Count} and page links, a page which may be followed by another one carries the opaque cursor
+ * of the next page in the {@code X-Next-Cursor} header and a {@code Link} header with {@code rel="next"}.
+ */
+public final class KeysetPaginationUtil {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    public static final String AFTER_PARAMETER = "after";
+
+    public static final String SCROLL_PARAMETER = "scroll";
+
+    private KeysetPaginationUtil() {}
+
+    /**
+     * Generate keyset pagination headers.
+     *
+     * @param uriBuilder the current request.
+     * @param content the elements of the page.
+     * @param pageSize the requested page size.
+     * @param cursor the cursor of the page.
+     * @param nextCursor the cursor following an element.
+     * @return the headers, empty on the last page.
+     */
+    public static <T> HttpHeaders generateKeysetPaginationHttpHeaders(
+        UriComponentsBuilder uriBuilder,
+        List<T> content,
+        int pageSize,
+        KeysetCursor cursor,
+        BiFunction<KeysetCursor, T, KeysetCursor> nextCursor
+    ) {
+        var headers = new HttpHeaders();
+        if (content.size() < pageSize) {
+            return headers;
+        }
+
+        var next = nextCursor.apply(cursor, content.get(content.size() - 1)).encode();
+        var link = uriBuilder
+            .replaceQueryParam(AFTER_PARAMETER, next)
+            .replaceQueryParam(SCROLL_PARAMETER)
+            .replaceQueryParam("page")
+            .toUriString();
+        headers.add(NEXT_CURSOR_HEADER, next);
+        headers.add(HttpHeaders.LINK, "<" + link + ">; rel=\"next\"");
+        return headers;
+    }
+}
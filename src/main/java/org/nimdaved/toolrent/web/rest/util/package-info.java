@@ -0,0 +1,4 @@
+/**
+ * Rest layer utilities.
+ */
+package org.nimdaved.toolrent.web.rest.util;
@@ -0,0 +1,53 @@
+package org.nimdaved.toolrent.aop.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.nimdaved.toolrent.config.ApplicationProperties;
+
+class CallTraceBufferTest {
+
+    private static final Instant START = Instant.parse("2026-10-18T10:00:00Z");
+
+    @Test
+    void roundsCapacityUpToPowerOfTwo() {
+        assertThat(new CallTraceBuffer(1000).getCapacity()).isEqualTo(1024);
+        assertThat(new CallTraceBuffer(1024).getCapacity()).isEqualTo(1024);
+    }
+
+    @Test
+    void keepsMostRecentTraces() {
+        var buffer = new CallTraceBuffer(4);
+        for (int i = 0; i < 6; i++) {
+            buffer.add(trace(i, Duration.ofMillis(i)));
+        }
+
+        assertThat(buffer.getTotal()).isEqualTo(6);
+        assertThat(buffer.snapshot(Duration.ZERO, 10))
+            .extracting(CallTraceBuffer.CallTrace::method)
+            .containsExactly("method5", "method4", "method3", "method2");
+        assertThat(buffer.snapshot(Duration.ofMillis(4), 1)).extracting(CallTraceBuffer.CallTrace::method).containsExactly("method5");
+
+        buffer.clear();
+        assertThat(buffer.snapshot(Duration.ZERO, 10)).isEmpty();
+    }
+
+    @Test
+    void resolvesSampleRateByLongestPrefix() {
+        var properties = new ApplicationProperties();
+        properties.getTracing().setDefaultSampleRate(0.5);
+        properties.getTracing().getSampleRates().put("org.nimdaved.toolrent", 0.1);
+        properties.getTracing().getSampleRates().put("org.nimdaved.toolrent.aop", 1.0);
+        var aspect = new TracingAspect(properties, new CallTraceBuffer(4));
+
+        assertThat(aspect.sampleRate(CallTraceBufferTest.class)).isEqualTo(1.0);
+        assertThat(aspect.sampleRate(ApplicationProperties.class)).isEqualTo(0.1);
+        assertThat(aspect.sampleRate(String.class)).isEqualTo(0.5);
+    }
+
+    private static CallTraceBuffer.CallTrace trace(int i, Duration duration) {
+        return new CallTraceBuffer.CallTrace("method" + i, START.plusSeconds(i), duration.toNanos(), "main", null, true);
+    }
+}
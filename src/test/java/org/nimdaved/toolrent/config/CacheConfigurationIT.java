@@ -0,0 +1,124 @@
+package org.nimdaved.toolrent.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nimdaved.toolrent.IntegrationTest;
+import org.nimdaved.toolrent.domain.Tool;
+import org.nimdaved.toolrent.domain.ToolInventory;
+import org.nimdaved.toolrent.domain.enumeration.ToolType;
+import org.nimdaved.toolrent.repository.ToolInventoryRepository;
+import org.nimdaved.toolrent.repository.ToolRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for the second-level cache regions of {@link CacheConfiguration}, with the cache enabled as in production.
+ * Transactions are committed, so that the regions are updated as in production.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.cache.use_second_level_cache=true")
+class CacheConfigurationIT {
+
+    private static final String CODE = "L2CA";
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ToolRepository toolRepository;
+
+    @Autowired
+    private ToolInventoryRepository toolInventoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper om;
+
+    @Autowired
+    private MockMvc restToolMockMvc;
+
+    private ToolInventory inventory;
+
+    @BeforeEach
+    void initTest() {
+        inventory = toolInventoryRepository.saveAndFlush(
+            new ToolInventory().location("Cache").stockCount(1).checkedOutCount(0).onHoldCount(0)
+        );
+        toolRepository.saveAndFlush(createTool("Werner"));
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @AfterEach
+    void cleanup() {
+        // no-op if the test deleted the tool
+        toolRepository.deleteById(CODE);
+        toolInventoryRepository.delete(inventory);
+    }
+
+    @Test
+    void updatesRegionOnWriteAndEvictsOnDelete() throws Exception {
+        var cache = entityManagerFactory.getCache();
+        assertThat(cache.contains(Tool.class, CODE)).isFalse();
+
+        assertThat(toolRepository.findById(CODE).orElseThrow().getBrand()).isEqualTo("Werner");
+        assertThat(cache.contains(Tool.class, CODE)).isTrue();
+
+        restToolMockMvc
+            .perform(
+                put("/api/tools/{code}", CODE)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(om.writeValueAsBytes(createTool("Little Giant")))
+            )
+            .andExpect(status().isOk());
+
+        // served from the region, which the update replaced instead of leaving the previous brand in it
+        transactionTemplate.executeWithoutResult(status ->
+            jdbcTemplate.update("UPDATE tool SET brand = ? WHERE code = ?", "Changed elsewhere", CODE)
+        );
+        assertThat(cache.contains(Tool.class, CODE)).isTrue();
+        assertThat(toolRepository.findById(CODE).orElseThrow().getBrand()).isEqualTo("Little Giant");
+
+        cache.evict(Tool.class, CODE);
+        assertThat(toolRepository.findById(CODE).orElseThrow().getBrand()).isEqualTo("Changed elsewhere");
+
+        restToolMockMvc.perform(delete("/api/tools/{id}", CODE)).andExpect(status().isNoContent());
+        assertThat(cache.contains(Tool.class, CODE)).isFalse();
+        assertThat(toolRepository.findById(CODE)).isEmpty();
+    }
+
+    @Test
+    void cachesToolsOnly() {
+        var cache = entityManagerFactory.getCache();
+
+        toolRepository.findById(CODE).orElseThrow();
+        toolInventoryRepository.findById(inventory.getId()).orElseThrow();
+
+        assertThat(cache.contains(Tool.class, CODE)).isTrue();
+        assertThat(cache.contains(ToolInventory.class, inventory.getId())).isFalse();
+    }
+
+    private Tool createTool(String brand) {
+        return new Tool().code(CODE).toolType(ToolType.LADDER).brand(brand).toolInventory(inventory);
+    }
+}
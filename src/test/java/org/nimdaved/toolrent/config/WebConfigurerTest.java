@@ -59,6 +59,15 @@ class WebConfigurerTest {
         if (container.getDocumentRoot() != null) {
             assertThat(container.getDocumentRoot()).isEqualTo(new File("build/resources/main/static/"));
         }
+        assertThat(container.getDeploymentInfoCustomizers()).isEmpty();
+    }
+
+    @Test
+    void shouldDispatchToVirtualThreadsWhenEnabled() {
+        env.setProperty("spring.threads.virtual.enabled", "true");
+        UndertowServletWebServerFactory container = new UndertowServletWebServerFactory();
+        webConfigurer.customize(container);
+        assertThat(container.getDeploymentInfoCustomizers()).hasSize(1);
     }
 
     @Test
@@ -0,0 +1,209 @@
+package org.nimdaved.toolrent.config.liquibase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import javax.sql.DataSource;
+import liquibase.Contexts;
+import liquibase.LabelExpression;
+import liquibase.Liquibase;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.LiquibaseException;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nimdaved.toolrent.IntegrationTest;
+import org.nimdaved.toolrent.domain.CompressedTextConverter;
+import org.nimdaved.toolrent.domain.Rental;
+import org.nimdaved.toolrent.domain.RentalAgreement;
+import org.nimdaved.toolrent.domain.Tool;
+import org.nimdaved.toolrent.domain.ToolInventory;
+import org.nimdaved.toolrent.domain.enumeration.RentalAgreementStatus;
+import org.nimdaved.toolrent.domain.enumeration.RentalStatus;
+import org.nimdaved.toolrent.domain.enumeration.ToolType;
+import org.nimdaved.toolrent.repository.RentalAgreementExportRow;
+import org.nimdaved.toolrent.repository.RentalAgreementRepository;
+import org.nimdaved.toolrent.repository.RentalRepository;
+import org.nimdaved.toolrent.repository.ToolInventoryRepository;
+import org.nimdaved.toolrent.repository.ToolRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for the compression of rental agreements by the 20261018160000 changelog.
+ * <p>
+ * The changelog runs against a {@code rental_agreement} table of the previous layout in a scratch schema, seeded with text
+ * rows. The compressed rows are then read back through the entity and the export projection of the application schema.
+ */
+@IntegrationTest
+class CompressRentalAgreementsChangeIT {
+
+    private static final String CHANGELOG = "config/liquibase/changelog/20261018160000_compressed_field_RentalAgreement_agreement.xml";
+    private static final String SCHEMA = "migration_test";
+    private static final LocalDate CHECK_OUT_DATE = LocalDate.of(2001, 7, 2);
+
+    private static final List<String> AGREEMENTS = List.of(
+        "Tool code: LADW\nTool type: Ladder\nRental days: 3\nDaily rental charge: $1.99\n".repeat(20),
+        "Prix à payer: 5 €",
+        ""
+    );
+
+    /** More than the chunk size of the changelog, so the copy takes several chunks */
+    private static final int ROW_COUNT = 1201;
+
+    private final CompressedTextConverter converter = new CompressedTextConverter();
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private ToolInventoryRepository toolInventoryRepository;
+
+    @Autowired
+    private ToolRepository toolRepository;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private RentalAgreementRepository rentalAgreementRepository;
+
+    @BeforeEach
+    void createPreviousLayout() {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("CREATE SCHEMA " + SCHEMA);
+            jdbcTemplate.execute("CREATE TABLE " + SCHEMA + ".rental_agreement (id BIGINT PRIMARY KEY, agreement TEXT NOT NULL)");
+        });
+    }
+
+    @AfterEach
+    void dropSchema() {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.execute("DROP SCHEMA " + SCHEMA + " CASCADE"));
+    }
+
+    @Test
+    void compressesTextRowsReadByEntityAndExport() throws Exception {
+        seed(ROW_COUNT);
+
+        migrate(null);
+
+        Map<Long, byte[]> migrated = new HashMap<>();
+        jdbcTemplate.query("SELECT id, agreement FROM " + SCHEMA + ".rental_agreement", (rows, i) ->
+            migrated.put(rows.getLong("id"), rows.getBytes("agreement"))
+        );
+        assertThat(migrated).hasSize(ROW_COUNT);
+        migrated.forEach((id, data) -> assertThat(converter.convertToEntityAttribute(data)).isEqualTo(agreementOf(id)));
+        assertThat(migrated.get(1L)[0]).isEqualTo(CompressedTextConverter.DEFLATE);
+        assertThat(migrated.get(2L)[0]).isEqualTo(CompressedTextConverter.PLAIN);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            var inventory = toolInventoryRepository.save(
+                new ToolInventory().location("Migration").stockCount(1).checkedOutCount(0).onHoldCount(0)
+            );
+            var tool = toolRepository.save(new Tool().code("MIGR").toolType(ToolType.LADDER).brand("Werner").toolInventory(inventory));
+            Map<Long, String> expected = new HashMap<>();
+            for (long seededId = 1; seededId <= AGREEMENTS.size(); seededId++) {
+                var rental = rentalRepository.save(createRental(tool));
+                var agreement = rentalAgreementRepository.save(
+                    new RentalAgreement().agreement("pending").status(RentalAgreementStatus.PENDING).rental(rental)
+                );
+                em.flush();
+                jdbcTemplate.update("UPDATE rental_agreement SET agreement = ? WHERE id = ?", migrated.get(seededId), agreement.getId());
+                expected.put(agreement.getId(), agreementOf(seededId));
+            }
+            em.clear();
+
+            expected.forEach((id, text) -> assertThat(rentalAgreementRepository.findById(id).orElseThrow().getAgreement()).isEqualTo(text));
+            try (var rows = rentalAgreementRepository.streamForExport(CHECK_OUT_DATE, CHECK_OUT_DATE.plusDays(1))) {
+                assertThat(rows.filter(row -> expected.containsKey(row.id())).toList())
+                    .hasSize(expected.size())
+                    .allSatisfy(row -> assertThat(row.agreement()).isEqualTo(expected.get(row.id())))
+                    .extracting(RentalAgreementExportRow::checkOutDate)
+                    .containsOnly(CHECK_OUT_DATE);
+            }
+            status.setRollbackOnly();
+        });
+    }
+
+    @Test
+    void haltsBeforeDroppingRowsNotCompressed() throws Exception {
+        seed(AGREEMENTS.size());
+        migrate(2);
+
+        // inserted by a previous release while the rows were compressed
+        transactionTemplate.executeWithoutResult(status ->
+            jdbcTemplate.update("INSERT INTO " + SCHEMA + ".rental_agreement (id, agreement) VALUES (?, ?)", 99L, "late")
+        );
+
+        assertThatThrownBy(() -> migrate(null)).isInstanceOf(LiquibaseException.class);
+        assertThat(jdbcTemplate.queryForObject("SELECT agreement FROM " + SCHEMA + ".rental_agreement WHERE id = 99", String.class))
+            .isEqualTo("late");
+        var notCompressed = "SELECT COUNT(*) FROM " + SCHEMA + ".rental_agreement WHERE agreement_data IS NULL";
+        assertThat(jdbcTemplate.queryForObject(notCompressed, Long.class)).isOne();
+    }
+
+    private void seed(int rowCount) {
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= rowCount; id++) {
+            rows.add(new Object[] { id, agreementOf(id) });
+        }
+        transactionTemplate.executeWithoutResult(status ->
+            jdbcTemplate.batchUpdate("INSERT INTO " + SCHEMA + ".rental_agreement (id, agreement) VALUES (?, ?)", rows)
+        );
+    }
+
+    /**
+     * Runs the changelog in the scratch schema, all of it or the first {@code changeCount} change sets.
+     */
+    @SuppressWarnings("deprecation")
+    private void migrate(Integer changeCount) throws SQLException, LiquibaseException {
+        try (var connection = dataSource.getConnection()) {
+            var schema = connection.getMetaData().storesUpperCaseIdentifiers() ? SCHEMA.toUpperCase(Locale.ROOT) : SCHEMA;
+            connection.setSchema(schema);
+            var database = DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(connection));
+            database.setDefaultSchemaName(schema);
+            var liquibase = new Liquibase(CHANGELOG, new ClassLoaderResourceAccessor(), database);
+            liquibase.setChangeLogParameter("blobType", "blob");
+            if (changeCount == null) {
+                liquibase.update(new Contexts(), new LabelExpression());
+            } else {
+                liquibase.update(changeCount, new Contexts(), new LabelExpression());
+            }
+        }
+    }
+
+    private static String agreementOf(long seededId) {
+        return AGREEMENTS.get((int) ((seededId - 1) % AGREEMENTS.size()));
+    }
+
+    private static Rental createRental(Tool tool) {
+        return new Rental()
+            .checkOutDate(CHECK_OUT_DATE)
+            .dayCount(1)
+            .discountPercent(0)
+            .status(RentalStatus.CREATED)
+            .chargeAmount(BigDecimal.ZERO)
+            .tool(tool);
+    }
+}
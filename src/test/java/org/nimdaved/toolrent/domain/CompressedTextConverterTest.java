@@ -0,0 +1,63 @@
+package org.nimdaved.toolrent.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class CompressedTextConverterTest {
+
+    private final CompressedTextConverter converter = new CompressedTextConverter();
+
+    @Test
+    void compressesRepetitiveText() {
+        var agreement = "Tool code: LADW\nTool type: Ladder\nRental days: 3\nDaily rental charge: $1.99\n".repeat(20);
+
+        byte[] data = converter.convertToDatabaseColumn(agreement);
+
+        assertThat(data[0]).isEqualTo(CompressedTextConverter.DEFLATE);
+        assertThat(data.length).isLessThan(agreement.length() / 4);
+        assertThat(converter.convertToEntityAttribute(data)).isEqualTo(agreement);
+    }
+
+    @Test
+    void keepsIncompressibleTextPlain() {
+        var agreement = "Prix à payer: 5 €";
+
+        byte[] data = converter.convertToDatabaseColumn(agreement);
+
+        assertThat(data[0]).isEqualTo(CompressedTextConverter.PLAIN);
+        assertThat(converter.convertToEntityAttribute(data)).isEqualTo(agreement);
+    }
+
+    @Test
+    void convertsNullAndEmptyText() {
+        assertThat(converter.convertToDatabaseColumn(null)).isNull();
+        assertThat(converter.convertToEntityAttribute(null)).isNull();
+        assertThat(converter.convertToEntityAttribute(converter.convertToDatabaseColumn(""))).isEmpty();
+    }
+
+    @Test
+    void rejectsUnknownFormat() {
+        assertThatThrownBy(() -> converter.convertToEntityAttribute(new byte[] { 7, 1, 2 })).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> converter.convertToEntityAttribute(new byte[0])).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void rejectsImplausibleLength() {
+        byte[] data = converter.convertToDatabaseColumn("Daily rental charge: $1.99\n".repeat(20));
+
+        // a few compressed bytes cannot inflate to 2 GB
+        byte[] corrupted = Arrays.copyOf(data, data.length);
+        ByteBuffer.wrap(corrupted, 1, Integer.BYTES).putInt(Integer.MAX_VALUE);
+        assertThatThrownBy(() -> converter.convertToEntityAttribute(corrupted)).isInstanceOf(IllegalStateException.class);
+
+        ByteBuffer.wrap(corrupted, 1, Integer.BYTES).putInt(-1);
+        assertThatThrownBy(() -> converter.convertToEntityAttribute(corrupted)).isInstanceOf(IllegalStateException.class);
+
+        byte[] truncated = { CompressedTextConverter.DEFLATE, 0, 0 };
+        assertThatThrownBy(() -> converter.convertToEntityAttribute(truncated)).isInstanceOf(IllegalStateException.class);
+    }
+}
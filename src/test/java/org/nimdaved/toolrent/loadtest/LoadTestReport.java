@@ -0,0 +1,97 @@
+package org.nimdaved.toolrent.loadtest;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencies and errors per endpoint of a load test run.
+ */
+final class LoadTestReport {
+
+    private static final String HEADER_FORMAT = "%-45s %8s %8s %8s %10s %10s %10s %10s%n";
+    private static final String ROW_FORMAT = "%-45s %8d %8d %8.2f %10.2f %10.2f %10.2f %10.1f%n";
+
+    private final Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+
+    LoadTestReport(String... endpoints) {
+        for (String endpoint : endpoints) {
+            this.endpoints.put(endpoint, new Endpoint());
+        }
+    }
+
+    void record(String endpoint, long latencyNanos, boolean success) {
+        var stats = endpoints.get(endpoint);
+        if (stats == null) {
+            throw new IllegalArgumentException("Unknown endpoint: " + endpoint);
+        }
+        stats.record(latencyNanos, success);
+    }
+
+    double errorRate() {
+        long requests = 0;
+        long errors = 0;
+        for (Endpoint stats : endpoints.values()) {
+            synchronized (stats) {
+                requests += stats.count;
+                errors += stats.errors;
+            }
+        }
+        return requests == 0 ? 0 : (double) errors / requests;
+    }
+
+    String format(Duration elapsed, int concurrency) {
+        var report = new StringBuilder()
+            .append(String.format("Rental lifecycle load test, concurrency %d, elapsed %d ms%n", concurrency, elapsed.toMillis()))
+            .append(String.format(HEADER_FORMAT, "endpoint", "requests", "errors", "error %", "p50 ms", "p99 ms", "max ms", "req/s"));
+        endpoints.forEach((endpoint, stats) -> report.append(stats.format(endpoint, elapsed)));
+        return report.toString();
+    }
+
+    private static final class Endpoint {
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        private synchronized void record(long latencyNanos, boolean success) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            if (!success) {
+                errors++;
+            }
+        }
+
+        private synchronized String format(String endpoint, Duration elapsed) {
+            var sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return String.format(
+                ROW_FORMAT,
+                endpoint,
+                count,
+                errors,
+                count == 0 ? 0 : 100.0 * errors / count,
+                millis(percentile(sorted, 0.50)),
+                millis(percentile(sorted, 0.99)),
+                millis(count == 0 ? 0 : sorted[count - 1]),
+                count / Math.max(elapsed.toNanos() / 1e9, 1e-9)
+            );
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            // nearest-rank
+            return sorted[Math.max(0, (int) Math.ceil(percentile * sorted.length) - 1)];
+        }
+
+        private static double millis(long nanos) {
+            return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+}
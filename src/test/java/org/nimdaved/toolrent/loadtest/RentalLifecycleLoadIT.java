@@ -0,0 +1,280 @@
+package org.nimdaved.toolrent.loadtest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.nimdaved.toolrent.ToolrentApp;
+import org.nimdaved.toolrent.config.AsyncSyncConfiguration;
+import org.nimdaved.toolrent.config.EmbeddedSQL;
+import org.nimdaved.toolrent.config.JacksonConfiguration;
+import org.nimdaved.toolrent.domain.Charge;
+import org.nimdaved.toolrent.domain.Tool;
+import org.nimdaved.toolrent.domain.ToolInventory;
+import org.nimdaved.toolrent.domain.enumeration.ToolType;
+import org.nimdaved.toolrent.repository.ChargeRepository;
+import org.nimdaved.toolrent.repository.RentalAgreementRepository;
+import org.nimdaved.toolrent.repository.RentalRepository;
+import org.nimdaved.toolrent.repository.ToolInventoryRepository;
+import org.nimdaved.toolrent.repository.ToolRepository;
+import org.nimdaved.toolrent.service.ChargeService;
+import org.nimdaved.toolrent.service.dto.RentalRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.env.Environment;
+
+/**
+ * Load test of the rental lifecycle over HTTP: create rental, get agreement, accept agreement (check out), check in.
+ * <p>
+ * Runs against the embedded server and the test database of the active profile
+ * ({@code testdev}: H2, {@code testprod}: Testcontainers PostgreSQL). Disabled unless started with {@code ./gradlew loadTest},
+ * see gradle/loadtest.gradle for the parameters.
+ * <p>
+ * Clients run on virtual threads, so thousands of concurrent clients are cheap and the server threading
+ * ({@code loadtest.virtual-threads}) can be compared at the same client concurrency.
+ * <p>
+ * Agreements are generated by the asynchronous agreement pipeline, as in production. An agreement read before the pipeline
+ * generated it is generated by the request.
+ */
+@SpringBootTest(
+    classes = { ToolrentApp.class, JacksonConfiguration.class, AsyncSyncConfiguration.class },
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    // agreements are generated as in production, disabled for the other integration tests
+    properties = "application.agreement-pipeline.enabled=true"
+)
+@EmbeddedSQL
+@EnabledIfSystemProperty(named = "loadtest.enabled", matches = "true")
+class RentalLifecycleLoadIT {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RentalLifecycleLoadIT.class);
+
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 16);
+    private static final int ITERATIONS = Integer.getInteger("loadtest.iterations", 1000);
+    private static final int WARMUP_ITERATIONS = Integer.getInteger("loadtest.warmup-iterations", 100);
+    private static final int TOOLS = Integer.getInteger("loadtest.tools", 8);
+    private static final double MAX_ERROR_RATE = Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01"));
+
+    private static final String CREATE_RENTAL = "POST /api/rentals";
+    private static final String GET_AGREEMENT = "GET  /api/rental-agreements/rental/{id}";
+    private static final String ACCEPT_AGREEMENT = "POST /api/rental-agreements/{id}/accept";
+    private static final String CHECK_IN = "POST /api/rentals/{id}/check-in";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private Environment env;
+
+    @Autowired
+    private ObjectMapper om;
+
+    @Autowired
+    private ToolRepository toolRepository;
+
+    @Autowired
+    private ToolInventoryRepository toolInventoryRepository;
+
+    @Autowired
+    private ChargeRepository chargeRepository;
+
+    @Autowired
+    private ChargeService chargeService;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private RentalAgreementRepository rentalAgreementRepository;
+
+    private HttpClient client;
+
+    private final List<ToolInventory> toolInventories = new ArrayList<>();
+
+    private final List<Tool> tools = new ArrayList<>();
+
+    private final List<Charge> charges = new ArrayList<>();
+
+    private final Queue<Long> rentalIds = new ConcurrentLinkedQueue<>();
+
+    @BeforeEach
+    public void setup() {
+        client = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NEVER).connectTimeout(Duration.ofSeconds(5)).build();
+
+        // one inventory per tool, contention is controlled by the number of tools
+        for (int i = 0; i < TOOLS; i++) {
+            var toolInventory = toolInventoryRepository.save(
+                new ToolInventory().location("load-test-" + i).stockCount(1000).checkedOutCount(0).onHoldCount(0)
+            );
+            toolInventories.add(toolInventory);
+            tools.add(
+                toolRepository.save(
+                    new Tool()
+                        .code(String.format("LT%04d", i))
+                        .toolType(ToolType.values()[i % ToolType.values().length])
+                        .brand("Load test")
+                        .toolInventory(toolInventory)
+                )
+            );
+        }
+
+        var missing = EnumSet.allOf(ToolType.class);
+        chargeRepository.findAll().forEach(charge -> missing.remove(charge.getToolType()));
+        for (ToolType toolType : missing) {
+            charges.add(
+                chargeRepository.save(
+                    new Charge()
+                        .toolType(toolType)
+                        .dailyCharge(new BigDecimal("1.99"))
+                        .weekdayCharge(true)
+                        .weekendCharge(true)
+                        .holidayCharge(false)
+                )
+            );
+        }
+        chargeService.populateRates();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        for (Long rentalId : rentalIds) {
+            rentalAgreementRepository.findIdByRentalId(rentalId).ifPresent(rentalAgreementRepository::deleteById);
+        }
+        rentalRepository.deleteAllByIdInBatch(rentalIds);
+        toolRepository.deleteAll(tools);
+        toolInventoryRepository.deleteAll(toolInventories);
+        chargeRepository.deleteAll(charges);
+        chargeService.populateRates();
+    }
+
+    @Test
+    void rentalLifecycle() throws Exception {
+        run(WARMUP_ITERATIONS, newReport());
+
+        var report = newReport();
+        long start = System.nanoTime();
+        run(ITERATIONS, report);
+        var elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        LOG.info("Server on {} threads\n{}", Threading.VIRTUAL.isActive(env) ? "virtual" : "platform", report.format(elapsed, CONCURRENCY));
+        assertThat(report.errorRate()).isLessThanOrEqualTo(MAX_ERROR_RATE);
+    }
+
+    private static LoadTestReport newReport() {
+        return new LoadTestReport(CREATE_RENTAL, GET_AGREEMENT, ACCEPT_AGREEMENT, CHECK_IN);
+    }
+
+    private void run(int iterations, LoadTestReport report) throws InterruptedException {
+        var remaining = new AtomicInteger(iterations);
+        ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("load-test-", 0).factory());
+        for (int i = 0; i < CONCURRENCY; i++) {
+            executor.execute(() -> {
+                int iteration;
+                while ((iteration = remaining.getAndDecrement()) > 0) {
+                    lifecycle(tools.get(iteration % tools.size()).getCode(), report);
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.MINUTES)).isTrue();
+    }
+
+    private void lifecycle(String toolCode, LoadTestReport report) {
+        var rentalRequest = new RentalRequest();
+        rentalRequest.setToolCode(toolCode);
+        rentalRequest.setCheckOutDate(LocalDate.now());
+        rentalRequest.setDayCount(ThreadLocalRandom.current().nextInt(1, 31));
+        rentalRequest.setDiscountPercent(ThreadLocalRandom.current().nextInt(0, 21));
+
+        var created = send(report, CREATE_RENTAL, post("/api/rentals", toJson(rentalRequest)), 303);
+        if (created == null) {
+            return;
+        }
+        var location = created.headers().firstValue("Location").orElseThrow();
+        var rentalId = Long.valueOf(location.substring(location.lastIndexOf('/') + 1));
+        rentalIds.add(rentalId);
+
+        var agreement = send(report, GET_AGREEMENT, HttpRequest.newBuilder(uri(location)).GET().build(), 200);
+        if (agreement == null) {
+            return;
+        }
+        var agreementId = readId(agreement.body());
+
+        if (send(report, ACCEPT_AGREEMENT, post("/api/rental-agreements/" + agreementId + "/accept", ""), 202) == null) {
+            return;
+        }
+        send(report, CHECK_IN, post("/api/rentals/" + rentalId + "/check-in", ""), 202);
+    }
+
+    private HttpResponse<String> send(LoadTestReport report, String endpoint, HttpRequest request, int expectedStatus) {
+        long start = System.nanoTime();
+        try {
+            var response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            boolean success = response.statusCode() == expectedStatus;
+            report.record(endpoint, System.nanoTime() - start, success);
+            if (!success) {
+                LOG.debug("{} failed with status {}: {}", endpoint, response.statusCode(), response.body());
+            }
+            return success ? response : null;
+        } catch (IOException e) {
+            report.record(endpoint, System.nanoTime() - start, false);
+            LOG.debug("{} failed: {}", endpoint, e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            report.record(endpoint, System.nanoTime() - start, false);
+            return null;
+        }
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(uri(path))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(json))
+            .build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port).resolve(path);
+    }
+
+    private String toJson(Object value) {
+        try {
+            return om.writeValueAsString(value);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private long readId(String json) {
+        try {
+            return om.readTree(json).get("id").asLong();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
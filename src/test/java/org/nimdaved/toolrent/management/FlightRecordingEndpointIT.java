@@ -0,0 +1,103 @@
+package org.nimdaved.toolrent.management;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.RecordingState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.nimdaved.toolrent.IntegrationTest;
+import org.nimdaved.toolrent.security.AuthoritiesConstants;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Integration tests for the {@link FlightRecordingEndpoint}.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+@TestPropertySource(properties = "management.endpoints.web.exposure.include=jfr")
+class FlightRecordingEndpointIT {
+
+    private static final String ENDPOINT_URL = "/management/jfr";
+
+    /** Magic bytes of the JFR file format */
+    private static final byte[] JFR_MAGIC = "FLR\0".getBytes(StandardCharsets.US_ASCII);
+
+    @Autowired
+    private FlightRecordingEndpoint endpoint;
+
+    @Autowired
+    private ObjectMapper om;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @AfterEach
+    void cleanup() {
+        endpoint.closeAll();
+    }
+
+    @Test
+    void startsDumpsAndClosesRecording() throws Exception {
+        var started = mockMvc
+            .perform(post(ENDPOINT_URL).contentType(MediaType.APPLICATION_JSON).content("{\"maxAge\":\"PT5M\"}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.state").value(RecordingState.RUNNING.name()))
+            .andExpect(jsonPath("$.maxSize").value(250L * 1024 * 1024))
+            .andReturn();
+        long id = om.readTree(started.getResponse().getContentAsByteArray()).get("id").asLong();
+        var recording = endpoint.recordings().stream().filter(r -> r.id() == id).findFirst().orElseThrow();
+        assertThat(recording.maxAge()).hasMinutes(5);
+
+        mockMvc.perform(get(ENDPOINT_URL)).andExpect(status().isOk()).andExpect(jsonPath("$[*].id").value(id));
+
+        var dump = mockMvc.perform(get(ENDPOINT_URL + "/{id}", id)).andExpect(status().isOk()).andReturn();
+        byte[] data = dump.getResponse().getContentAsByteArray();
+        assertThat(Arrays.copyOf(data, JFR_MAGIC.length)).isEqualTo(JFR_MAGIC);
+        // the temporary file of the dump is gone once downloaded
+        try (var files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+            assertThat(files.map(file -> file.getFileName().toString())).noneMatch(name -> name.startsWith(recording.name() + "-"));
+        }
+
+        mockMvc
+            .perform(post(ENDPOINT_URL + "/{id}", id).contentType(MediaType.APPLICATION_JSON).content("{}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.state").value(RecordingState.STOPPED.name()));
+
+        mockMvc.perform(delete(ENDPOINT_URL + "/{id}", id)).andExpect(status().isNoContent());
+        mockMvc.perform(get(ENDPOINT_URL + "/{id}", id)).andExpect(status().isNotFound());
+        assertThat(FlightRecorder.getFlightRecorder().getRecordings()).noneMatch(r -> r.getId() == id);
+    }
+
+    @Test
+    void closesRecordingsOnShutdown() {
+        var recording = endpoint.start(null, null, null);
+
+        endpoint.closeAll();
+
+        assertThat(endpoint.recordings()).isEmpty();
+        assertThat(FlightRecorder.getFlightRecorder().getRecordings()).noneMatch(r -> r.getId() == recording.id());
+    }
+
+    @Test
+    @WithMockUser
+    void requiresAdmin() throws Exception {
+        mockMvc.perform(get(ENDPOINT_URL)).andExpect(status().isForbidden());
+    }
+}
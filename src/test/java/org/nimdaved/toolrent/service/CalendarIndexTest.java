@@ -0,0 +1,167 @@
+package org.nimdaved.toolrent.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.nimdaved.toolrent.domain.Holiday;
+import org.nimdaved.toolrent.domain.enumeration.HolidayType;
+
+class CalendarIndexTest {
+
+    private static final Holiday LABOR_DAY = new Holiday()
+        .name("Labor Day")
+        .holidayType(HolidayType.FIRST_DAY_OF_WEEK_IN_MONTH)
+        .monthNumber(9)
+        .dayNumber(1)
+        .observedOnClosestWeekday(false);
+
+    private static final Holiday INDEPENDENCE_DAY = new Holiday()
+        .name("Independence Day")
+        .holidayType(HolidayType.EXACT_DAY_OF_MONTH)
+        .monthNumber(7)
+        .dayNumber(4)
+        .observedOnClosestWeekday(true);
+
+    private static final Holiday NEW_YEAR = new Holiday()
+        .name("New Year")
+        .holidayType(HolidayType.EXACT_DAY_OF_MONTH)
+        .monthNumber(1)
+        .dayNumber(1)
+        .observedOnClosestWeekday(true);
+
+    private static final Holiday CHRISTMAS = new Holiday()
+        .name("Christmas")
+        .holidayType(HolidayType.EXACT_DAY_OF_MONTH)
+        .monthNumber(12)
+        .dayNumber(25)
+        .observedOnClosestWeekday(false);
+
+    private static final List<Holiday> HOLIDAYS = List.of(LABOR_DAY, INDEPENDENCE_DAY, NEW_YEAR, CHRISTMAS);
+
+    private final CalendarIndex index = CalendarIndex.build(HOLIDAYS, 2015, 2030);
+
+    @Test
+    void independenceDayObservedOnFriday() {
+        // July 4th 2015 is Saturday, observed on Friday July 3rd
+        var counts = index.getDayCounts(LocalDate.of(2015, 7, 2), 3);
+
+        assertThat(counts).isEqualTo(new CalendarService.DayCounts(0, 2, 1, 0));
+    }
+
+    @Test
+    void laborDay() {
+        // Labor Day 2015 is Monday September 7th
+        var counts = index.getDayCounts(LocalDate.of(2015, 9, 3), 5);
+
+        assertThat(counts).isEqualTo(new CalendarService.DayCounts(2, 2, 1, 0));
+    }
+
+    @Test
+    void weekendHoliday() {
+        // Christmas 2021 is Saturday and is not moved to a weekday
+        var counts = index.getDayCounts(LocalDate.of(2021, 12, 24), 2);
+
+        assertThat(counts).isEqualTo(new CalendarService.DayCounts(0, 1, 0, 1));
+    }
+
+    @Test
+    void weekdaysExcludeWeekendHolidays() {
+        // December 21st to 27th 2021: five weekdays, Sunday, and Christmas on Saturday counted once as weekend-holiday
+        var counts = index.getDayCounts(LocalDate.of(2021, 12, 20), 7);
+
+        assertThat(counts).isEqualTo(new CalendarService.DayCounts(5, 1, 0, 1));
+        int total = counts.weekdays() + counts.weekendsNonHolidays() + counts.holidaysNonWeekends() + counts.weekendsAndHolidays();
+        assertThat(total).isEqualTo(7);
+    }
+
+    @Test
+    void skipsHolidaysWithoutDate() {
+        var leapDay = new Holiday()
+            .name("Leap Day")
+            .holidayType(HolidayType.EXACT_DAY_OF_MONTH)
+            .monthNumber(2)
+            .dayNumber(29)
+            .observedOnClosestWeekday(false);
+        var invalidDayOfMonth = new Holiday()
+            .name("February 30th")
+            .holidayType(HolidayType.EXACT_DAY_OF_MONTH)
+            .monthNumber(2)
+            .dayNumber(30)
+            .observedOnClosestWeekday(false);
+        var invalidDayOfWeek = new Holiday()
+            .name("Eighth day of week")
+            .holidayType(HolidayType.FIRST_DAY_OF_WEEK_IN_MONTH)
+            .monthNumber(3)
+            .dayNumber(8)
+            .observedOnClosestWeekday(false);
+
+        var withInvalid = CalendarIndex.build(List.of(CHRISTMAS, leapDay, invalidDayOfMonth, invalidDayOfWeek), 2023, 2024);
+
+        // Monday February 26th to Sunday March 3rd: February 29th is a holiday in leap years only
+        assertThat(withInvalid.getDayCounts(LocalDate.of(2024, 2, 25), 7)).isEqualTo(new CalendarService.DayCounts(4, 2, 1, 0));
+        assertThat(withInvalid.getDayCounts(LocalDate.of(2023, 2, 26), 7)).isEqualTo(new CalendarService.DayCounts(5, 2, 0, 0));
+        assertThat(withInvalid.getDayCounts(LocalDate.of(2023, 12, 24), 1)).isEqualTo(new CalendarService.DayCounts(0, 0, 1, 0));
+    }
+
+    @Test
+    void newYearObservedInPreviousYear() {
+        // January 1st 2022 is Saturday, observed on Friday December 31st 2021
+        var counts = index.getDayCounts(LocalDate.of(2021, 12, 30), 1);
+
+        assertThat(counts).isEqualTo(new CalendarService.DayCounts(0, 0, 1, 0));
+    }
+
+    @Test
+    void matchesDayByDayCountsAcrossYearBoundaries() {
+        for (var startDate = LocalDate.of(2016, 12, 1); startDate.isBefore(LocalDate.of(2017, 2, 1)); startDate = startDate.plusDays(1)) {
+            for (int dayCount : new int[] { 1, 2, 6, 7, 8, 31, 63, 64, 65, 180, 365 }) {
+                assertThat(index.getDayCounts(startDate, dayCount)).isEqualTo(countDayByDay(startDate, dayCount));
+            }
+        }
+    }
+
+    @Test
+    void outOfRange() {
+        assertThat(index.covers(LocalDate.of(2014, 12, 31), 1)).isTrue();
+        assertThat(index.covers(LocalDate.of(2014, 12, 30), 1)).isFalse();
+        assertThat(index.covers(LocalDate.of(2030, 12, 30), 1)).isTrue();
+        assertThat(index.covers(LocalDate.of(2030, 12, 30), 2)).isFalse();
+
+        assertThatThrownBy(() -> index.getDayCounts(LocalDate.of(2030, 12, 30), 2)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static CalendarService.DayCounts countDayByDay(LocalDate startDate, int dayCount) {
+        Set<LocalDate> holidays = new HashSet<>();
+        for (int year = startDate.getYear() - 1; year <= startDate.getYear() + 2; year++) {
+            for (Holiday holiday : HOLIDAYS) {
+                holidays.add(holiday.toLocalDate(year));
+            }
+        }
+
+        int weekdays = 0;
+        int weekendsNonHolidays = 0;
+        int holidaysNonWeekends = 0;
+        int weekendsAndHolidays = 0;
+        for (int i = 1; i <= dayCount; i++) {
+            var day = startDate.plusDays(i);
+            boolean weekend = day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY;
+            boolean holiday = holidays.contains(day);
+            if (weekend && holiday) {
+                weekendsAndHolidays++;
+            } else if (weekend) {
+                weekendsNonHolidays++;
+            } else if (holiday) {
+                holidaysNonWeekends++;
+            } else {
+                weekdays++;
+            }
+        }
+        return new CalendarService.DayCounts(weekdays, weekendsNonHolidays, holidaysNonWeekends, weekendsAndHolidays);
+    }
+}
@@ -0,0 +1,106 @@
+package org.nimdaved.toolrent.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.LocalDate;
+import java.time.Year;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.nimdaved.toolrent.IntegrationTest;
+import org.nimdaved.toolrent.domain.Holiday;
+import org.nimdaved.toolrent.domain.enumeration.HolidayType;
+import org.nimdaved.toolrent.repository.HolidayRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Integration tests for the reload of the {@link CalendarService} snapshot after holiday changes.
+ * Transactions are committed, so the snapshot is rebuilt after commit as in production.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class CalendarServiceIT {
+
+    private static final String ENTITY_API_URL = "/api/holidays";
+
+    @Autowired
+    private CalendarService calendarService;
+
+    @Autowired
+    private HolidayRepository holidayRepository;
+
+    @Autowired
+    private ObjectMapper om;
+
+    @Autowired
+    private MockMvc restHolidayMockMvc;
+
+    private Holiday holiday;
+
+    @AfterEach
+    void cleanup() {
+        if (holiday != null && holidayRepository.existsById(holiday.getId())) {
+            holidayRepository.deleteById(holiday.getId());
+            calendarService.populateHolidays();
+        }
+    }
+
+    @Test
+    void replacesSnapshotAfterHolidayChanges() throws Exception {
+        var date = LocalDate.of(Year.now().getValue(), 3, 10);
+        var before = calendarService.getSnapshot();
+        assertThat(countHolidays(before, date)).isZero();
+
+        var result = restHolidayMockMvc
+            .perform(post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(om.writeValueAsBytes(createHoliday())))
+            .andExpect(status().isCreated())
+            .andReturn();
+        holiday = om.readValue(result.getResponse().getContentAsByteArray(), Holiday.class);
+
+        var created = calendarService.getSnapshot();
+        assertThat(created.version()).isGreaterThan(before.version());
+        assertThat(created.holidays()).extracting(Holiday::getId).contains(holiday.getId());
+        assertThat(countHolidays(created, date)).isOne();
+
+        // rejected before saving, the snapshot stays in place
+        restHolidayMockMvc
+            .perform(
+                put(ENTITY_API_URL + "/{id}", holiday.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(om.writeValueAsBytes(holiday.monthNumber(2).dayNumber(30)))
+            )
+            .andExpect(status().isBadRequest());
+        assertThat(calendarService.getSnapshot()).isSameAs(created);
+        assertThat(holidayRepository.findById(holiday.getId()).orElseThrow().getMonthNumber()).isEqualTo(3);
+
+        restHolidayMockMvc.perform(delete(ENTITY_API_URL + "/{id}", holiday.getId())).andExpect(status().isNoContent());
+
+        var deleted = calendarService.getSnapshot();
+        assertThat(deleted.version()).isGreaterThan(created.version());
+        assertThat(deleted.holidays()).extracting(Holiday::getId).doesNotContain(holiday.getId());
+        assertThat(countHolidays(deleted, date)).isZero();
+    }
+
+    private static Holiday createHoliday() {
+        return new Holiday()
+            .name("Calendar Day")
+            .holidayType(HolidayType.EXACT_DAY_OF_MONTH)
+            .monthNumber(3)
+            .dayNumber(10)
+            .observedOnClosestWeekday(false);
+    }
+
+    private static int countHolidays(CalendarService.Snapshot snapshot, LocalDate date) {
+        var counts = snapshot.getDayCounts(date.minusDays(1), 1);
+        return counts.holidaysNonWeekends() + counts.weekendsAndHolidays();
+    }
+}
@@ -0,0 +1,161 @@
+package org.nimdaved.toolrent.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.reset;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.nimdaved.toolrent.IntegrationTest;
+import org.nimdaved.toolrent.domain.Charge;
+import org.nimdaved.toolrent.domain.enumeration.ToolType;
+import org.nimdaved.toolrent.repository.ChargeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Integration tests for the rate table of {@link ChargeService}.
+ * Transactions are committed, so the rate table is reloaded after commit as in production.
+ */
+@IntegrationTest
+@TestPropertySource(properties = "spring.datasource.hikari.maximum-pool-size=4")
+class ChargeServiceIT {
+
+    @Autowired
+    private ChargeService chargeService;
+
+    @SpyBean
+    private ChargeRepository chargeRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Charge charge;
+
+    @AfterEach
+    void cleanup() {
+        reset(chargeRepository);
+        if (charge != null && chargeRepository.existsById(charge.getId())) {
+            chargeService.delete(charge.getId());
+        }
+        chargeService.populateRates();
+    }
+
+    @Test
+    void countsRateTableLookups() {
+        doReturn(List.of(createCharge(ToolType.LADDER, "1.99"))).when(chargeRepository).findAll();
+        chargeService.populateRates();
+        double hits = lookups("hit");
+        double misses = lookups("miss");
+
+        assertThat(chargeService.getRate(ToolType.LADDER).dailyCharge()).isEqualByComparingTo("1.99");
+        assertThat(lookups("hit")).isEqualTo(hits + 1);
+
+        // not in the rate table, read from the repository
+        doReturn(Optional.of(createCharge(ToolType.CHINSAW, "2.99")))
+            .when(chargeRepository)
+            .findFirstByToolTypeOrderByIdAsc(ToolType.CHINSAW);
+        assertThat(chargeService.getRate(ToolType.CHINSAW).dailyCharge()).isEqualByComparingTo("2.99");
+        assertThat(lookups("miss")).isEqualTo(misses + 1);
+
+        doReturn(Optional.empty()).when(chargeRepository).findFirstByToolTypeOrderByIdAsc(ToolType.JACKHUMMER);
+        assertThatThrownBy(() -> chargeService.getRate(ToolType.JACKHUMMER)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(lookups("miss")).isEqualTo(misses + 2);
+        assertThat(lookups("hit")).isEqualTo(hits + 1);
+    }
+
+    @Test
+    void loadsFirstChargeOfEachToolType() {
+        doReturn(
+            List.of(
+                createCharge(null, "0.99").id(1L),
+                createCharge(ToolType.LADDER, "2.49").id(3L),
+                createCharge(ToolType.LADDER, "1.99").id(2L)
+            )
+        )
+            .when(chargeRepository)
+            .findAll();
+
+        chargeService.populateRates();
+
+        assertThat(chargeService.getRateTable().rates()).containsOnlyKeys(ToolType.LADDER);
+        assertThat(chargeService.getRate(ToolType.LADDER).dailyCharge()).isEqualByComparingTo("1.99");
+    }
+
+    @Test
+    void reloadsRateTableAfterChargeChanges() {
+        var before = chargeService.getRateTable();
+        double refreshes = refreshes();
+
+        charge = chargeService.save(createCharge(ToolType.JACKHUMMER, "4.99"));
+
+        var saved = chargeService.getRateTable();
+        assertThat(saved.version()).isGreaterThan(before.version());
+        assertThat(saved.rates().get(ToolType.JACKHUMMER).dailyCharge()).isEqualByComparingTo("4.99");
+        assertThat(refreshes()).isEqualTo(refreshes + 1);
+
+        chargeService.update(charge.dailyCharge(new BigDecimal("5.99")));
+        assertThat(chargeService.getRateTable().rates().get(ToolType.JACKHUMMER).dailyCharge()).isEqualByComparingTo("5.99");
+
+        chargeService.delete(charge.getId());
+        var deleted = chargeService.getRateTable();
+        assertThat(deleted.rates()).doesNotContainKey(ToolType.JACKHUMMER);
+
+        chargeService.refresh();
+        assertThat(chargeService.getRateTable().version()).isGreaterThan(deleted.version());
+        assertThat(refreshes()).isEqualTo(refreshes + 4);
+    }
+
+    @Test
+    void keepsRateTableOfLaterReload() throws Exception {
+        var reading = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            reading.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return List.of(createCharge(ToolType.LADDER, "1.49"));
+        })
+            .doReturn(List.of(createCharge(ToolType.LADDER, "1.99")))
+            .when(chargeRepository)
+            .findAll();
+
+        var slowReload = CompletableFuture.runAsync(chargeService::populateRates);
+        assertThat(reading.await(10, TimeUnit.SECONDS)).isTrue();
+        chargeService.populateRates();
+        var later = chargeService.getRateTable();
+
+        release.countDown();
+        slowReload.get(10, TimeUnit.SECONDS);
+
+        // the slow reload read the charges first, its rate table must not replace the later one
+        assertThat(chargeService.getRateTable()).isSameAs(later);
+        assertThat(chargeService.getRate(ToolType.LADDER).dailyCharge()).isEqualByComparingTo("1.99");
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.get(ChargeService.RATE_TABLE_LOOKUPS_METER_NAME).tag("result", result).counter().count();
+    }
+
+    private double refreshes() {
+        return meterRegistry.get(ChargeService.RATE_TABLE_REFRESHES_METER_NAME).counter().count();
+    }
+
+    private static Charge createCharge(ToolType toolType, String dailyCharge) {
+        return new Charge()
+            .toolType(toolType)
+            .dailyCharge(new BigDecimal(dailyCharge))
+            .weekdayCharge(true)
+            .weekendCharge(false)
+            .holidayCharge(false);
+    }
+}
@@ -0,0 +1,119 @@
+package org.nimdaved.toolrent.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nimdaved.toolrent.domain.enumeration.ToolType;
+import org.nimdaved.toolrent.repository.InventoryAvailabilityRow;
+import org.nimdaved.toolrent.repository.ToolInventoryRepository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+class InventoryAvailabilityServiceTest {
+
+    private ToolInventoryRepository toolInventoryRepository;
+
+    private MeterRegistry meterRegistry;
+
+    private InventoryAvailabilityService service;
+
+    @BeforeEach
+    public void setup() {
+        toolInventoryRepository = mock(ToolInventoryRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        when(toolInventoryRepository.findAvailabilityRows()).thenReturn(
+            List.of(
+                new InventoryAvailabilityRow(1L, "North", 5, 1, 1, "LADW", ToolType.LADDER),
+                new InventoryAvailabilityRow(2L, "North", 3, 0, 0, "LADX", ToolType.LADDER),
+                new InventoryAvailabilityRow(3L, "North", 2, 0, 0, "CHNS", ToolType.CHINSAW),
+                new InventoryAvailabilityRow(4L, "South", 4, 2, 0, "JAKR", ToolType.JACKHUMMER)
+            )
+        );
+        service = new InventoryAvailabilityService(toolInventoryRepository, meterRegistry);
+        service.populate();
+    }
+
+    @Test
+    void aggregatesByLocationAndToolType() {
+        assertThat(service.getAvailability(null, null)).containsExactly(
+            new InventoryAvailabilityService.Availability("North", ToolType.LADDER, 8, 1, 1),
+            new InventoryAvailabilityService.Availability("North", ToolType.CHINSAW, 2, 0, 0),
+            new InventoryAvailabilityService.Availability("South", ToolType.JACKHUMMER, 4, 2, 0)
+        );
+        assertThat(service.getAvailability("North", ToolType.LADDER)).singleElement().satisfies(availability ->
+            assertThat(availability.getAvailableCount()).isEqualTo(6)
+        );
+        assertThat(service.getAvailability("West", null)).isEmpty();
+    }
+
+    @Test
+    void appliesChangesAndReconcilesDrift() {
+        service.recordChange("LADW", 1, -1);
+        service.recordChange("UNKNOWN", 1, 0);
+
+        assertThat(service.getAvailability("North", ToolType.LADDER)).containsExactly(
+            new InventoryAvailabilityService.Availability("North", ToolType.LADDER, 8, 2, 0)
+        );
+
+        // the database did not see the change
+        service.reconcile();
+
+        assertThat(service.getAvailability("North", ToolType.LADDER)).containsExactly(
+            new InventoryAvailabilityService.Availability("North", ToolType.LADDER, 8, 1, 1)
+        );
+        assertThat(meterRegistry.get(InventoryAvailabilityService.DRIFT_METER_NAME).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void keepsChangesAppliedDuringReconciliation() {
+        when(toolInventoryRepository.findAvailabilityRows()).thenAnswer(invocation -> {
+            // committed while the rows are read
+            service.recordChange("JAKR", -1, 0);
+            return List.of(new InventoryAvailabilityRow(4L, "South", 4, 2, 0, "JAKR", ToolType.JACKHUMMER));
+        });
+
+        service.reconcile();
+
+        assertThat(service.getAvailability(null, null)).containsExactly(
+            new InventoryAvailabilityService.Availability("South", ToolType.JACKHUMMER, 4, 1, 0)
+        );
+    }
+
+    @Test
+    void skipsChangesCommittingDuringReconciliation() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.recordChange("JAKR", -1, 0);
+            TransactionSynchronizationUtils.triggerBeforeCommit(false);
+
+            // committed before the rows are read, but not applied yet
+            when(toolInventoryRepository.findAvailabilityRows()).thenReturn(
+                List.of(new InventoryAvailabilityRow(4L, "South", 4, 1, 0, "JAKR", ToolType.JACKHUMMER))
+            );
+            service.reconcile();
+
+            TransactionSynchronizationUtils.triggerAfterCommit();
+            TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(service.getAvailability(null, null)).containsExactly(
+            new InventoryAvailabilityService.Availability("South", ToolType.JACKHUMMER, 4, 1, 0)
+        );
+
+        // reconciled in the next round
+        service.reconcile();
+        assertThat(service.getAvailability(null, null)).containsExactly(
+            new InventoryAvailabilityService.Availability("South", ToolType.JACKHUMMER, 4, 1, 0)
+        );
+        assertThat(meterRegistry.get(InventoryAvailabilityService.DRIFT_METER_NAME).counter().count()).isZero();
+    }
+}
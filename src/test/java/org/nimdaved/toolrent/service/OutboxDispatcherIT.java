@@ -0,0 +1,242 @@
+package org.nimdaved.toolrent.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nimdaved.toolrent.IntegrationTest;
+import org.nimdaved.toolrent.domain.Charge;
+import org.nimdaved.toolrent.domain.OutboxEvent;
+import org.nimdaved.toolrent.domain.Rental;
+import org.nimdaved.toolrent.domain.Tool;
+import org.nimdaved.toolrent.domain.ToolInventory;
+import org.nimdaved.toolrent.domain.enumeration.OutboxEventType;
+import org.nimdaved.toolrent.domain.enumeration.RentalStatus;
+import org.nimdaved.toolrent.domain.enumeration.ToolType;
+import org.nimdaved.toolrent.repository.ChargeRepository;
+import org.nimdaved.toolrent.repository.OutboxEventRepository;
+import org.nimdaved.toolrent.repository.RentalAgreementRepository;
+import org.nimdaved.toolrent.repository.RentalRepository;
+import org.nimdaved.toolrent.repository.ToolInventoryRepository;
+import org.nimdaved.toolrent.repository.ToolRepository;
+import org.nimdaved.toolrent.service.dto.ToolRentalEvents;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for {@link OutboxService} and {@link OutboxDispatcher}.
+ * <p>
+ * Transactions are committed, so that after-commit delivery, leases and row locks behave as in production.
+ * The scheduled dispatcher is held back, the tests dispatch explicitly.
+ */
+@IntegrationTest
+@TestPropertySource(
+    properties = {
+        "application.outbox.poll-interval=PT1H",
+        "application.outbox.lease=PT1M",
+        "application.outbox.batch-size=2",
+        "application.outbox.max-attempts=3",
+        // the concurrent claimers need a connection each
+        "spring.datasource.hikari.maximum-pool-size=4",
+    }
+)
+class OutboxDispatcherIT {
+
+    private static final Duration LEASE = Duration.ofMinutes(1);
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private RentalAgreementRepository rentalAgreementRepository;
+
+    @Autowired
+    private ToolRepository toolRepository;
+
+    @Autowired
+    private ToolInventoryRepository toolInventoryRepository;
+
+    @Autowired
+    private ChargeRepository chargeRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Tool tool;
+    private Charge charge;
+    private final List<Rental> rentals = new ArrayList<>();
+
+    @BeforeEach
+    void createTool() {
+        var inventory = toolInventoryRepository.saveAndFlush(
+            new ToolInventory().location("Outbox").stockCount(10).checkedOutCount(0).onHoldCount(0)
+        );
+        tool = toolRepository.saveAndFlush(new Tool().code("OUTB").toolType(ToolType.CHINSAW).brand("Stihl").toolInventory(inventory));
+        charge = chargeRepository.saveAndFlush(
+            new Charge()
+                .toolType(ToolType.CHINSAW)
+                .dailyCharge(new BigDecimal("1.49"))
+                .weekdayCharge(true)
+                .weekendCharge(false)
+                .holidayCharge(true)
+        );
+    }
+
+    @AfterEach
+    void cleanup() {
+        outboxEventRepository.deleteAll();
+        rentals.forEach(rental -> rentalAgreementRepository.findByRentalId(rental.getId()).ifPresent(rentalAgreementRepository::delete));
+        rentalRepository.deleteAll(rentals);
+        toolRepository.delete(tool);
+        toolInventoryRepository.delete(tool.getToolInventory());
+        chargeRepository.delete(charge);
+    }
+
+    @Test
+    void recordsEventInTransactionOfRental() {
+        // rolled back together with the rental
+        transactionTemplate.executeWithoutResult(status -> {
+            var rental = rentalRepository.save(createRental());
+            eventPublisher.publishEvent(new ToolRentalEvents.RentalCreated(rental));
+            assertThat(outboxEventRepository.findAll()).extracting(OutboxEvent::getRentalId).containsExactly(rental.getId());
+            status.setRollbackOnly();
+        });
+        assertThat(outboxEventRepository.count()).isZero();
+
+        // committed, then completed by the in-process delivery after commit
+        var rental = transactionTemplate.execute(status -> {
+            var created = rentalRepository.save(createRental());
+            eventPublisher.publishEvent(new ToolRentalEvents.RentalCreated(created));
+            return created;
+        });
+        rentals.add(rental);
+
+        assertThat(rentalAgreementRepository.findByRentalId(rental.getId())).isPresent();
+        assertThat(outboxEventRepository.count()).isZero();
+    }
+
+    @Test
+    void dispatchesAndCompletesDueEvents() {
+        // the in-process delivery was lost, e.g. by a restart right after commit
+        var rental = saveRental();
+        var event = saveEvent(rental.getId(), Instant.now().minusSeconds(1));
+
+        outboxDispatcher.dispatch();
+
+        assertThat(outboxEventRepository.findById(event.getId())).isEmpty();
+        var agreement = rentalAgreementRepository.findByRentalId(rental.getId()).orElseThrow();
+        assertThat(agreement.getAgreement()).contains("Tool code: OUTB");
+    }
+
+    @Test
+    void redeliversEventsAfterLeaseExpires() {
+        var now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        var event = saveEvent(Long.MAX_VALUE, now.minusSeconds(1));
+
+        assertThat(outboxService.claim(now)).extracting(OutboxEvent::getId).containsExactly(event.getId());
+        // leased, hidden from other dispatchers
+        assertThat(outboxService.claim(now)).isEmpty();
+        assertThat(outboxService.claim(now.plus(LEASE).minusSeconds(1))).isEmpty();
+
+        // delivered again once the lease expired
+        var redelivered = outboxService.claim(now.plus(LEASE));
+        assertThat(redelivered).extracting(OutboxEvent::getId).containsExactly(event.getId());
+        assertThat(redelivered.get(0).getAttempts()).isEqualTo(2);
+
+        // parked after the last attempt
+        assertThat(outboxService.claim(now.plus(LEASE.multipliedBy(2)))).hasSize(1);
+        assertThat(outboxService.claim(now.plus(LEASE.multipliedBy(3)))).isEmpty();
+        assertThat(outboxEventRepository.findById(event.getId()).orElseThrow().getAttempts()).isEqualTo(3);
+    }
+
+    @Test
+    void concurrentClaimerSkipsLockedEvents() throws Exception {
+        var now = Instant.now();
+        var first = saveEvent(Long.MAX_VALUE - 2, now.minusSeconds(3));
+        var second = saveEvent(Long.MAX_VALUE - 1, now.minusSeconds(2));
+        var third = saveEvent(Long.MAX_VALUE, now.minusSeconds(1));
+
+        var claimed = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var firstClaimer = CompletableFuture.supplyAsync(() ->
+            transactionTemplate.execute(status -> {
+                // the claimed rows stay locked until the transaction commits
+                var events = outboxService.claim(now);
+                claimed.countDown();
+                await(release);
+                return events;
+            })
+        );
+        assertThat(claimed.await(10, TimeUnit.SECONDS)).isTrue();
+
+        try {
+            var secondClaim = CompletableFuture.supplyAsync(() -> outboxService.claim(now)).get(10, TimeUnit.SECONDS);
+            assertThat(secondClaim).extracting(OutboxEvent::getId).containsExactly(third.getId());
+        } finally {
+            release.countDown();
+        }
+
+        assertThat(firstClaimer.get(10, TimeUnit.SECONDS)).extracting(OutboxEvent::getId).containsExactly(first.getId(), second.getId());
+        assertThat(outboxService.claim(now)).isEmpty();
+    }
+
+    private Rental createRental() {
+        return new Rental()
+            .checkOutDate(LocalDate.of(2026, 10, 19))
+            .dayCount(2)
+            .discountPercent(0)
+            .status(RentalStatus.CREATED)
+            .chargeAmount(new BigDecimal("2.98"))
+            .tool(tool);
+    }
+
+    private Rental saveRental() {
+        var rental = rentalRepository.saveAndFlush(createRental());
+        rentals.add(rental);
+        return rental;
+    }
+
+    private OutboxEvent saveEvent(Long rentalId, Instant availableAt) {
+        return outboxEventRepository.saveAndFlush(
+            new OutboxEvent()
+                .eventType(OutboxEventType.RENTAL_CREATED)
+                .rentalId(rentalId)
+                .createdDate(availableAt)
+                .availableAt(availableAt)
+                .attempts(0)
+        );
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package org.nimdaved.toolrent.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nimdaved.toolrent.IntegrationTest;
+import org.nimdaved.toolrent.domain.Charge;
+import org.nimdaved.toolrent.domain.Rental;
+import org.nimdaved.toolrent.domain.RentalAgreement;
+import org.nimdaved.toolrent.domain.Tool;
+import org.nimdaved.toolrent.domain.ToolInventory;
+import org.nimdaved.toolrent.domain.enumeration.RentalAgreementStatus;
+import org.nimdaved.toolrent.domain.enumeration.RentalStatus;
+import org.nimdaved.toolrent.domain.enumeration.ToolType;
+import org.nimdaved.toolrent.repository.ChargeRepository;
+import org.nimdaved.toolrent.repository.OutboxEventRepository;
+import org.nimdaved.toolrent.repository.RentalAgreementRepository;
+import org.nimdaved.toolrent.repository.RentalRepository;
+import org.nimdaved.toolrent.repository.ToolInventoryRepository;
+import org.nimdaved.toolrent.repository.ToolRepository;
+import org.nimdaved.toolrent.service.dto.RentalRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Integration tests for {@link RentalAgreementPipeline} with asynchronous generation enabled, as in production.
+ * Transactions are committed, rentals reach the pipeline after commit.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+@TestPropertySource(properties = { "application.agreement-pipeline.enabled=true", "application.outbox.poll-interval=PT1H" })
+class RentalAgreementPipelineIT {
+
+    @Autowired
+    private RentalAgreementPipeline rentalAgreementPipeline;
+
+    @Autowired
+    private RentalService rentalService;
+
+    @SpyBean
+    private RentalRepository rentalRepository;
+
+    @SpyBean
+    private RentalAgreementRepository rentalAgreementRepository;
+
+    @Autowired
+    private ToolRepository toolRepository;
+
+    @Autowired
+    private ToolInventoryRepository toolInventoryRepository;
+
+    @Autowired
+    private ChargeRepository chargeRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private MockMvc restRentalAgreementMockMvc;
+
+    private Tool tool;
+    private Charge charge;
+    private final List<Long> rentalIds = new ArrayList<>();
+
+    @BeforeEach
+    void createTool() {
+        var inventory = toolInventoryRepository.saveAndFlush(
+            new ToolInventory().location("Pipeline").stockCount(10).checkedOutCount(0).onHoldCount(0)
+        );
+        tool = toolRepository.saveAndFlush(new Tool().code("PIPE").toolType(ToolType.CHINSAW).brand("Stihl").toolInventory(inventory));
+        charge = chargeRepository.saveAndFlush(
+            new Charge()
+                .toolType(ToolType.CHINSAW)
+                .dailyCharge(new BigDecimal("1.49"))
+                .weekdayCharge(true)
+                .weekendCharge(true)
+                .holidayCharge(true)
+        );
+    }
+
+    @AfterEach
+    void cleanup() {
+        rentalIds.forEach(id -> rentalAgreementRepository.findByRentalId(id).ifPresent(rentalAgreementRepository::delete));
+        rentalRepository.deleteAllById(rentalIds);
+        outboxEventRepository.deleteAll();
+        toolRepository.delete(tool);
+        toolInventoryRepository.delete(tool.getToolInventory());
+        chargeRepository.delete(charge);
+    }
+
+    @Test
+    void generatesAgreementsAfterCommit() {
+        var rentalRequest = new RentalRequest();
+        rentalRequest.setToolCode(tool.getCode());
+        rentalRequest.setCheckOutDate(LocalDate.of(2026, 10, 19));
+        rentalRequest.setDayCount(3);
+        rentalRequest.setDiscountPercent(0);
+
+        var rental = rentalService.create(rentalRequest);
+        rentalIds.add(rental.getId());
+
+        var agreement = await()
+            .atMost(Duration.ofSeconds(10))
+            .until(() -> rentalAgreementRepository.findByRentalId(rental.getId()), Optional::isPresent)
+            .orElseThrow();
+        assertThat(agreement.getAgreement()).contains("Daily rental charge: 1.49").contains("Charge days: 3");
+        assertThat(outboxEventRepository.count()).isZero();
+
+        // printed from the charges stored with the rental, not from the current rates
+        chargeRepository.saveAndFlush(charge.dailyCharge(new BigDecimal("9.99")));
+        rentalAgreementRepository.delete(agreement);
+        var regenerated = rentalAgreementPipeline.generatePending(rental.getId()).orElseThrow();
+        assertThat(regenerated.getAgreement()).contains("Daily rental charge: 1.49");
+    }
+
+    @Test
+    void returnsAgreementGeneratedConcurrently() throws Exception {
+        var rental = rentalRepository.saveAndFlush(
+            new Rental()
+                .checkOutDate(LocalDate.of(2026, 10, 19))
+                .dayCount(1)
+                .discountPercent(0)
+                .status(RentalStatus.CREATED)
+                .chargeAmount(new BigDecimal("1.49"))
+                .tool(tool)
+        );
+        rentalIds.add(rental.getId());
+        var generated = rentalAgreementRepository.saveAndFlush(
+            new RentalAgreement().agreement("generated by a worker").status(RentalAgreementStatus.PENDING).rental(rental)
+        );
+        // the request looked the agreement up and read the rental before the worker saved the agreement
+        doReturn(Optional.empty()).doCallRealMethod().when(rentalAgreementRepository).findByRentalId(rental.getId());
+        doReturn(Optional.of(rental)).when(rentalRepository).findPendingAgreementById(eq(rental.getId()), any());
+        doReturn(List.of()).when(rentalAgreementRepository).findRentalIdsByRentalIdIn(anyCollection());
+
+        restRentalAgreementMockMvc
+            .perform(get("/api/rental-agreements/rental/{id}", rental.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(generated.getId().intValue()))
+            .andExpect(jsonPath("$.agreement").value("generated by a worker"));
+    }
+}
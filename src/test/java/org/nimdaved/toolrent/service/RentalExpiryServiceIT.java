@@ -0,0 +1,184 @@
+package org.nimdaved.toolrent.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.Test;
+import org.nimdaved.toolrent.IntegrationTest;
+import org.nimdaved.toolrent.domain.Rental;
+import org.nimdaved.toolrent.domain.RentalAgreement;
+import org.nimdaved.toolrent.domain.Tool;
+import org.nimdaved.toolrent.domain.ToolInventory;
+import org.nimdaved.toolrent.domain.enumeration.RentalAgreementStatus;
+import org.nimdaved.toolrent.domain.enumeration.RentalStatus;
+import org.nimdaved.toolrent.domain.enumeration.ToolType;
+import org.nimdaved.toolrent.repository.RentalAgreementRepository;
+import org.nimdaved.toolrent.repository.RentalRepository;
+import org.nimdaved.toolrent.repository.ToolInventoryRepository;
+import org.nimdaved.toolrent.repository.ToolRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Integration tests for {@link RentalExpiryService}.
+ */
+@IntegrationTest
+@Transactional
+// the concurrent transactions need a connection each
+@TestPropertySource(properties = "spring.datasource.hikari.maximum-pool-size=4")
+class RentalExpiryServiceIT {
+
+    @Autowired
+    private RentalExpiryService rentalExpiryService;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private RentalAgreementRepository rentalAgreementRepository;
+
+    @Autowired
+    private ToolInventoryRepository toolInventoryRepository;
+
+    @Autowired
+    private ToolRepository toolRepository;
+
+    @Autowired
+    private RentalAgreementService rentalAgreementService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManager em;
+
+    @Test
+    void expiresStaleRentalsAndReleasesHolds() {
+        var inventory = toolInventoryRepository.save(
+            new ToolInventory().location("Expiry").stockCount(5).checkedOutCount(0).onHoldCount(2)
+        );
+        var tool = toolRepository.save(new Tool().code("EXPR").toolType(ToolType.LADDER).brand("Werner").toolInventory(inventory));
+        var stale = rentalRepository.save(createRental(tool));
+        var staleAgreement = rentalAgreementRepository.save(
+            new RentalAgreement().agreement("agreement").status(RentalAgreementStatus.PENDING).rental(stale)
+        );
+        var recent = rentalRepository.save(createRental(tool));
+        em.flush();
+
+        var cutoff = Instant.now().minus(1, ChronoUnit.HOURS);
+        backdate("Rental", stale.getId(), cutoff.minus(1, ChronoUnit.HOURS));
+        backdate("RentalAgreement", staleAgreement.getId(), cutoff.minus(1, ChronoUnit.HOURS));
+        em.clear();
+
+        assertThat(rentalExpiryService.expire(cutoff, 10)).isEqualTo(new RentalExpiryService.Expired(1, 1));
+        em.clear();
+
+        assertThat(rentalRepository.findById(stale.getId()).orElseThrow().getStatus()).isEqualTo(RentalStatus.CANCELLED);
+        assertThat(rentalRepository.findById(recent.getId()).orElseThrow().getStatus()).isEqualTo(RentalStatus.CREATED);
+        assertThat(rentalAgreementRepository.findById(staleAgreement.getId()).orElseThrow().getStatus()).isEqualTo(
+            RentalAgreementStatus.REJECTED
+        );
+        assertThat(toolInventoryRepository.findById(inventory.getId()).orElseThrow().getOnHoldCount()).isEqualTo(1);
+
+        // expired rentals are not expired again
+        assertThat(rentalExpiryService.expire(cutoff, 10)).isEqualTo(new RentalExpiryService.Expired(0, 0));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void agreementIsNotAcceptedAfterConcurrentExpiry() throws Exception {
+        var cutoff = Instant.now().minus(1, ChronoUnit.HOURS);
+        var agreement = transactionTemplate.execute(status -> {
+            var inventory = toolInventoryRepository.save(
+                new ToolInventory().location("Expiry").stockCount(1).checkedOutCount(0).onHoldCount(1)
+            );
+            var tool = toolRepository.save(new Tool().code("EXPC").toolType(ToolType.LADDER).brand("Werner").toolInventory(inventory));
+            var rental = rentalRepository.save(createRental(tool));
+            var pending = rentalAgreementRepository.save(
+                new RentalAgreement().agreement("agreement").status(RentalAgreementStatus.PENDING).rental(rental)
+            );
+            em.flush();
+            backdate("Rental", rental.getId(), cutoff.minus(1, ChronoUnit.HOURS));
+            backdate("RentalAgreement", pending.getId(), cutoff.minus(1, ChronoUnit.HOURS));
+            return pending;
+        });
+        var rental = agreement.getRental();
+        var inventory = rental.getTool().getToolInventory();
+
+        try {
+            var expired = new CountDownLatch(1);
+            var release = new CountDownLatch(1);
+            var expiry = CompletableFuture.supplyAsync(() ->
+                transactionTemplate.execute(status -> {
+                    var result = rentalExpiryService.expire(cutoff, 10);
+                    expired.countDown();
+                    await(release);
+                    return result;
+                })
+            );
+            assertThat(expired.await(10, TimeUnit.SECONDS)).isTrue();
+
+            // read the agreement as pending before the expiry commits, without a lock it would be accepted then
+            var accept = CompletableFuture.runAsync(() -> rentalAgreementService.accept(agreement.getId()));
+            assertThatThrownBy(() -> accept.get(200, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+            release.countDown();
+
+            assertThat(expiry.get(10, TimeUnit.SECONDS)).isEqualTo(new RentalExpiryService.Expired(1, 1));
+            assertThatThrownBy(() -> accept.get(10, TimeUnit.SECONDS)).hasCauseInstanceOf(ResponseStatusException.class);
+
+            assertThat(rentalAgreementRepository.findById(agreement.getId()).orElseThrow().getStatus()).isEqualTo(
+                RentalAgreementStatus.REJECTED
+            );
+            assertThat(rentalRepository.findById(rental.getId()).orElseThrow().getStatus()).isEqualTo(RentalStatus.CANCELLED);
+            var counts = toolInventoryRepository.findById(inventory.getId()).orElseThrow();
+            assertThat(counts.getOnHoldCount()).isZero();
+            assertThat(counts.getCheckedOutCount()).isZero();
+        } finally {
+            transactionTemplate.executeWithoutResult(status -> {
+                rentalAgreementRepository.deleteById(agreement.getId());
+                rentalRepository.deleteById(rental.getId());
+                toolRepository.deleteById(rental.getTool().getCode());
+                toolInventoryRepository.deleteById(inventory.getId());
+            });
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Rental createRental(Tool tool) {
+        return new Rental()
+            .checkOutDate(LocalDate.now())
+            .dayCount(1)
+            .discountPercent(0)
+            .status(RentalStatus.CREATED)
+            .chargeAmount(BigDecimal.ZERO)
+            .tool(tool);
+    }
+
+    private void backdate(String entity, Long id, Instant lastModifiedAt) {
+        em
+            .createQuery("UPDATE " + entity + " e SET e.lastModifiedAt = :lastModifiedAt WHERE e.id = :id")
+            .setParameter("lastModifiedAt", lastModifiedAt)
+            .setParameter("id", id)
+            .executeUpdate();
+    }
+}
@@ -0,0 +1,105 @@
+package org.nimdaved.toolrent.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nimdaved.toolrent.domain.enumeration.ToolType;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+class RentalMetersTest {
+
+    private static final String METER_NAME = "test.timer";
+
+    private MeterRegistry meterRegistry;
+
+    private Meter.MeterProvider<Timer> timers;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        timers = Timer.builder(METER_NAME).withRegistry(meterRegistry);
+    }
+
+    @Test
+    void bucketsRentalLength() {
+        assertThat(RentalMeters.rentalLength(null)).isEqualTo("unknown");
+        assertThat(RentalMeters.rentalLength(1)).isEqualTo("1d");
+        assertThat(RentalMeters.rentalLength(7)).isEqualTo("2-7d");
+        assertThat(RentalMeters.rentalLength(8)).isEqualTo("8-30d");
+        assertThat(RentalMeters.rentalLength(31)).isEqualTo("31d+");
+    }
+
+    @Test
+    void recordsOutcome() {
+        String[] tags = { RentalMeters.TOOL_TYPE_TAG, RentalMeters.toolType(ToolType.LADDER) };
+
+        assertThat(RentalMeters.record(timers, () -> "done", tags)).isEqualTo("done");
+        assertThatThrownBy(() ->
+            RentalMeters.record(
+                timers,
+                () -> {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
+                },
+                tags
+            )
+        ).isInstanceOf(ResponseStatusException.class);
+        assertThatThrownBy(() ->
+            RentalMeters.record(
+                timers,
+                () -> {
+                    throw new IllegalStateException();
+                },
+                tags
+            )
+        ).isInstanceOf(IllegalStateException.class);
+
+        for (String outcome : new String[] { RentalMeters.SUCCESS, RentalMeters.REJECTED, RentalMeters.ERROR }) {
+            var timer = meterRegistry
+                .get(METER_NAME)
+                .tags(RentalMeters.TOOL_TYPE_TAG, "LADDER", RentalMeters.OUTCOME_TAG, outcome)
+                .timer();
+            assertThat(timer.count()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void registersTimerTableUpFront() {
+        var table = new RentalMeters.TimerTable(timers, true);
+        // tool types and unknown, rental lengths and unknown, outcomes
+        assertThat(meterRegistry.find(METER_NAME).timers()).hasSize((ToolType.values().length + 1) * 5 * 3);
+
+        table.record(ToolType.LADDER, 3, RentalMeters.SUCCESS_OUTCOME, System.nanoTime());
+        table.record(null, 0, RentalMeters.outcome(new ResponseStatusException(HttpStatus.BAD_REQUEST)), System.nanoTime());
+
+        assertThat(timer("LADDER", "2-7d", RentalMeters.SUCCESS).count()).isEqualTo(1);
+        assertThat(timer("unknown", "unknown", RentalMeters.REJECTED).count()).isEqualTo(1);
+        assertThat(timer("LADDER", "2-7d", RentalMeters.ERROR).count()).isZero();
+    }
+
+    @Test
+    void registersTimerTableWithoutToolType() {
+        var table = new RentalMeters.TimerTable(timers, false);
+        table.record(ToolType.LADDER, 31, RentalMeters.outcome(new IllegalStateException()), System.nanoTime());
+
+        var timer = meterRegistry
+            .get(METER_NAME)
+            .tags(RentalMeters.RENTAL_LENGTH_TAG, "31d+", RentalMeters.OUTCOME_TAG, RentalMeters.ERROR)
+            .timer();
+        assertThat(timer.getId().getTag(RentalMeters.TOOL_TYPE_TAG)).isNull();
+        assertThat(timer.count()).isEqualTo(1);
+    }
+
+    private Timer timer(String toolType, String rentalLength, String outcome) {
+        return meterRegistry
+            .get(METER_NAME)
+            .tags(RentalMeters.TOOL_TYPE_TAG, toolType, RentalMeters.RENTAL_LENGTH_TAG, rentalLength, RentalMeters.OUTCOME_TAG, outcome)
+            .timer();
+    }
+}
@@ -0,0 +1,70 @@
+package org.nimdaved.toolrent.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nimdaved.toolrent.config.ApplicationProperties;
+import org.nimdaved.toolrent.domain.Tool;
+import org.nimdaved.toolrent.domain.enumeration.ToolType;
+import org.nimdaved.toolrent.repository.ToolRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+class ToolAllocatorTest {
+
+    private static final Tool LADA = new Tool().code("LADA").toolType(ToolType.LADDER).brand("Werner");
+    private static final Tool LADB = new Tool().code("LADB").toolType(ToolType.LADDER).brand("Werner");
+
+    private ToolRepository toolRepository;
+
+    private ApplicationProperties applicationProperties;
+
+    @BeforeEach
+    public void setup() {
+        toolRepository = mock(ToolRepository.class);
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getAllocation().setCandidateLimit(2);
+        applicationProperties.getAllocation().setMaxAttempts(3);
+    }
+
+    @Test
+    void skipsCandidatesTakenConcurrently() {
+        when(toolRepository.findAvailableMostAvailableFirst(ToolType.LADDER, "North", PageRequest.of(0, 2))).thenReturn(
+            List.of(LADA, LADB)
+        );
+        var allocator = new ToolAllocator(toolRepository, applicationProperties);
+
+        assertThat(allocator.allocate(ToolType.LADDER, "North", tool -> tool == LADB)).isEqualTo(LADB);
+    }
+
+    @Test
+    void roundRobinContinuesAfterLastAllocatedTool() {
+        applicationProperties.getAllocation().setStrategy(ApplicationProperties.Allocation.Strategy.ROUND_ROBIN);
+        when(toolRepository.findAvailableAfterCode(ToolType.LADDER, null, "", PageRequest.of(0, 2))).thenReturn(List.of(LADA, LADB));
+        when(toolRepository.findAvailableAfterCode(ToolType.LADDER, null, "", PageRequest.of(0, 1))).thenReturn(List.of(LADA));
+        when(toolRepository.findAvailableAfterCode(ToolType.LADDER, null, "LADA", PageRequest.of(0, 2))).thenReturn(List.of(LADB));
+        when(toolRepository.findAvailableAfterCode(ToolType.LADDER, null, "LADB", PageRequest.of(0, 2))).thenReturn(List.of());
+        var allocator = new ToolAllocator(toolRepository, applicationProperties);
+
+        assertThat(allocator.allocate(ToolType.LADDER, null, tool -> true)).isEqualTo(LADA);
+        assertThat(allocator.allocate(ToolType.LADDER, null, tool -> true)).isEqualTo(LADB);
+        // wraps around to the first code
+        assertThat(allocator.allocate(ToolType.LADDER, null, tool -> true)).isEqualTo(LADA);
+    }
+
+    @Test
+    void failsAfterMaxAttempts() {
+        when(toolRepository.findAvailableMostAvailableFirst(ToolType.LADDER, null, PageRequest.of(0, 2))).thenReturn(List.of(LADA, LADB));
+        var allocator = new ToolAllocator(toolRepository, applicationProperties);
+
+        assertThatThrownBy(() -> allocator.allocate(ToolType.LADDER, null, tool -> false)).isInstanceOf(ResponseStatusException.class);
+        verify(toolRepository, times(3)).findAvailableMostAvailableFirst(ToolType.LADDER, null, PageRequest.of(0, 2));
+    }
+}
@@ -0,0 +1,119 @@
+package org.nimdaved.toolrent.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nimdaved.toolrent.config.ApplicationProperties;
+import org.nimdaved.toolrent.domain.Tool;
+import org.nimdaved.toolrent.domain.enumeration.ToolType;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+class ToolReservationLimiterTest {
+
+    private static final Tool TOOL = new Tool().code("LADW").toolType(ToolType.LADDER).brand("Werner");
+
+    private MeterRegistry meterRegistry;
+
+    private ApplicationProperties applicationProperties;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getReservation().setStripes(1);
+        applicationProperties.getReservation().setPermitsPerStripe(1);
+        applicationProperties.getReservation().setWaitTimeout(Duration.ofMillis(50));
+    }
+
+    @Test
+    void disabledLimiterRunsReservation() {
+        var limiter = new ToolReservationLimiter(applicationProperties, meterRegistry);
+
+        assertThat(limiter.reserve(TOOL, () -> TOOL)).isEqualTo(TOOL);
+        assertThat(meterRegistry.get(ToolReservationLimiter.WAIT_METER_NAME).tag("toolType", "LADDER").timer().count()).isZero();
+    }
+
+    @Test
+    void rejectsReservationAfterWaitTimeout() throws Exception {
+        applicationProperties.getReservation().setEnabled(true);
+        var limiter = new ToolReservationLimiter(applicationProperties, meterRegistry);
+
+        var admitted = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var first = CompletableFuture.supplyAsync(() ->
+            limiter.reserve(TOOL, () -> {
+                admitted.countDown();
+                await(release);
+                return TOOL;
+            })
+        );
+        assertThat(admitted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> limiter.reserve(TOOL, () -> TOOL)).isInstanceOf(ResponseStatusException.class);
+        assertThat(meterRegistry.get(ToolReservationLimiter.REJECTED_METER_NAME).tag("toolType", "LADDER").counter().count()).isEqualTo(
+            1
+        );
+
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(TOOL);
+
+        // permit is released once the first reservation completes
+        assertThat(limiter.reserve(TOOL, () -> TOOL)).isEqualTo(TOOL);
+        assertThat(meterRegistry.get(ToolReservationLimiter.WAITING_METER_NAME).tag("toolType", "LADDER").gauge().value()).isZero();
+    }
+
+    @Test
+    void keepsPermitOfSuccessfulReservationsUntilTransactionCompletes() throws Exception {
+        applicationProperties.getReservation().setEnabled(true);
+        var limiter = new ToolReservationLimiter(applicationProperties, meterRegistry);
+        var otherTool = new Tool().code("LADR").toolType(ToolType.LADDER).brand("Rigid");
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // a candidate which is no longer available gives its permit back at once
+            assertThat(limiter.tryReserve(TOOL, () -> false)).isFalse();
+            assertThat(CompletableFuture.supplyAsync(() -> limiter.tryReserve(otherTool, () -> true)).get(5, TimeUnit.SECONDS)).isTrue();
+            assertThatThrownBy(() ->
+                limiter.reserve(TOOL, () -> {
+                    throw new IllegalStateException("Not available");
+                })
+            ).isInstanceOf(IllegalStateException.class);
+
+            // the next candidate of the same stripe is admitted without waiting, and so are further reservations of the transaction
+            assertThat(limiter.tryReserve(otherTool, () -> true)).isTrue();
+            assertThat(limiter.reserve(TOOL, () -> TOOL)).isEqualTo(TOOL);
+
+            var concurrent = CompletableFuture.supplyAsync(() -> limiter.reserve(TOOL, () -> TOOL));
+            assertThatThrownBy(() -> concurrent.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(ResponseStatusException.class);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED)
+            );
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(CompletableFuture.supplyAsync(() -> limiter.reserve(TOOL, () -> TOOL)).get(5, TimeUnit.SECONDS)).isEqualTo(TOOL);
+        assertThat(meterRegistry.get(ToolReservationLimiter.REJECTED_METER_NAME).tag("toolType", "LADDER").counter().count()).isEqualTo(
+            1
+        );
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.nimdaved.toolrent.service.jfr;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.nimdaved.toolrent.domain.Tool;
+import org.nimdaved.toolrent.domain.enumeration.ToolType;
+
+class RentalLifecycleEventTest {
+
+    private static final String EVENT_NAME = "org.nimdaved.toolrent.ToolReservation";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void recordsFieldsOfTheResult() throws Exception {
+        var tool = new Tool().code("LADW").toolType(ToolType.LADDER);
+
+        var events = record(() -> new ToolReservationEvent().record(() -> tool, RentalLifecycleEvent::tool));
+
+        assertThat(events).hasSize(1);
+        var event = events.get(0);
+        assertThat(event.getString("toolCode")).isEqualTo("LADW");
+        assertThat(event.getString("toolType")).isEqualTo("LADDER");
+        assertThat(event.getBoolean("failed")).isFalse();
+    }
+
+    @Test
+    void recordsFailedOperations() throws Exception {
+        var events = record(() ->
+            assertThatThrownBy(() ->
+                new ToolReservationEvent()
+                    .toolType(ToolType.CHINSAW)
+                    .record(() -> {
+                        throw new IllegalStateException("No tool available");
+                    })
+            ).isInstanceOf(IllegalStateException.class)
+        );
+
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0).getString("toolType")).isEqualTo("CHINSAW");
+        assertThat(events.get(0).getBoolean("failed")).isTrue();
+    }
+
+    @Test
+    void runsOperationWithoutRecording() {
+        assertThat(new ToolReservationEvent().record(() -> "result")).isEqualTo("result");
+    }
+
+    private List<RecordedEvent> record(Runnable operation) throws Exception {
+        var file = tempDir.resolve("events.jfr");
+        try (var recording = new Recording()) {
+            recording.enable(EVENT_NAME);
+            recording.start();
+            operation.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        assertThat(Files.exists(file)).isTrue();
+        return RecordingFile.readAllEvents(file).stream().filter(event -> event.getEventType().getName().equals(EVENT_NAME)).toList();
+    }
+}
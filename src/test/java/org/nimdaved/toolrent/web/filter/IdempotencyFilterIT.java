@@ -0,0 +1,380 @@
+package org.nimdaved.toolrent.web.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.anonymous;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nimdaved.toolrent.IntegrationTest;
+import org.nimdaved.toolrent.domain.Charge;
+import org.nimdaved.toolrent.domain.Rental;
+import org.nimdaved.toolrent.domain.RentalAgreement;
+import org.nimdaved.toolrent.domain.Tool;
+import org.nimdaved.toolrent.domain.ToolInventory;
+import org.nimdaved.toolrent.domain.enumeration.RentalAgreementStatus;
+import org.nimdaved.toolrent.domain.enumeration.RentalStatus;
+import org.nimdaved.toolrent.domain.enumeration.ToolType;
+import org.nimdaved.toolrent.repository.ChargeRepository;
+import org.nimdaved.toolrent.repository.IdempotentRequestRepository;
+import org.nimdaved.toolrent.repository.OutboxEventRepository;
+import org.nimdaved.toolrent.repository.RentalAgreementRepository;
+import org.nimdaved.toolrent.repository.RentalRepository;
+import org.nimdaved.toolrent.repository.ToolInventoryRepository;
+import org.nimdaved.toolrent.repository.ToolRepository;
+import org.nimdaved.toolrent.service.ChargeService;
+import org.nimdaved.toolrent.service.IdempotencyService;
+import org.nimdaved.toolrent.service.dto.RentalRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Integration tests for {@link IdempotencyFilter}.
+ * <p>
+ * Transactions are committed, so that responses are stored and replayed as in production.
+ */
+@AutoConfigureMockMvc
+@WithMockUser
+@IntegrationTest
+@TestPropertySource(
+    properties = {
+        "application.outbox.poll-interval=PT1H",
+        // the concurrent requests need a connection each
+        "spring.datasource.hikari.maximum-pool-size=4",
+    }
+)
+class IdempotencyFilterIT {
+
+    private static final String RENTALS_API_URL = "/api/rentals";
+    private static final String REJECT_API_URL = "/api/rental-agreements/{id}/reject";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper om;
+
+    @SpyBean
+    private ChargeService chargeService;
+
+    @Autowired
+    private ToolInventoryRepository toolInventoryRepository;
+
+    @Autowired
+    private ToolRepository toolRepository;
+
+    @Autowired
+    private ChargeRepository chargeRepository;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private RentalAgreementRepository rentalAgreementRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private IdempotentRequestRepository idempotentRequestRepository;
+
+    @Autowired
+    private IdempotencyFilter idempotencyFilter;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    private Tool tool;
+    private Charge charge;
+
+    @BeforeEach
+    void createTool() {
+        var inventory = toolInventoryRepository.saveAndFlush(
+            new ToolInventory().location("Idempotency").stockCount(5).checkedOutCount(0).onHoldCount(0)
+        );
+        tool = toolRepository.saveAndFlush(new Tool().code("IDEM").toolType(ToolType.LADDER).brand("Werner").toolInventory(inventory));
+        charge = chargeRepository.saveAndFlush(
+            new Charge()
+                .toolType(ToolType.LADDER)
+                .dailyCharge(new BigDecimal("1.99"))
+                .weekdayCharge(true)
+                .weekendCharge(true)
+                .holidayCharge(false)
+        );
+    }
+
+    @AfterEach
+    void cleanup() {
+        idempotentRequestRepository.deleteAll();
+        outboxEventRepository.deleteAll();
+        var rentals = rentalRepository.findAll().stream().filter(rental -> tool.getId().equals(rental.getTool().getId())).toList();
+        rentals.forEach(rental -> rentalAgreementRepository.findByRentalId(rental.getId()).ifPresent(rentalAgreementRepository::delete));
+        rentalRepository.deleteAll(rentals);
+        toolRepository.delete(tool);
+        toolInventoryRepository.delete(tool.getToolInventory());
+        chargeRepository.delete(charge);
+    }
+
+    @Test
+    void retryIsReplayed() throws Exception {
+        toolInventoryRepository.saveAndFlush(tool.getToolInventory().onHoldCount(2));
+        var agreement = createAgreement();
+        var otherAgreement = createAgreement();
+        var key = UUID.randomUUID().toString();
+
+        mockMvc
+            .perform(post(REJECT_API_URL, agreement.getId()).header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key))
+            .andExpect(status().isAccepted())
+            .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER));
+
+        // without the key, rejecting again would fail as the agreement is no longer pending
+        mockMvc
+            .perform(post(REJECT_API_URL, agreement.getId()).header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key))
+            .andExpect(status().isAccepted())
+            .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"));
+
+        assertThat(toolInventoryRepository.findById(tool.getToolInventory().getId()).orElseThrow().getOnHoldCount()).isEqualTo(1);
+
+        mockMvc
+            .perform(post(REJECT_API_URL, otherAgreement.getId()).header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key))
+            .andExpect(status().isUnprocessableEntity());
+
+        assertThat(rentalAgreementRepository.findById(otherAgreement.getId()).orElseThrow().getStatus()).isEqualTo(
+            RentalAgreementStatus.PENDING
+        );
+    }
+
+    @Test
+    void rentalRetryIsRedirectedToSameAgreement() throws Exception {
+        var key = UUID.randomUUID().toString();
+
+        var location = mockMvc
+            .perform(createRental(key))
+            .andExpect(status().isSeeOther())
+            .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.LOCATION);
+        assertThat(location).startsWith("/api/rental-agreements/rental/");
+
+        mockMvc
+            .perform(createRental(key))
+            .andExpect(status().isSeeOther())
+            .andExpect(header().string(HttpHeaders.LOCATION, location))
+            .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"));
+
+        assertThat(countRentals()).isOne();
+        assertThat(idempotentRequestRepository.findAll()).singleElement().satisfies(request -> {
+            assertThat(request.getResponseStatus()).isEqualTo(303);
+            assertThat(request.getResponseLocation()).isEqualTo(location);
+        });
+    }
+
+    @Test
+    void retryOfRequestInProgressConflicts() throws Exception {
+        var key = UUID.randomUUID().toString();
+        var entered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            entered.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return invocation.callRealMethod();
+        })
+            .when(chargeService)
+            .calculateCharges(any(Tool.class), any(), any());
+
+        // the same user on both threads
+        var first = CompletableFuture.supplyAsync(() -> {
+            try {
+                return mockMvc.perform(createRental(key).with(user("idem"))).andReturn().getResponse();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        try {
+            assertThat(entered.await(10, TimeUnit.SECONDS)).isTrue();
+
+            mockMvc
+                .perform(createRental(key).with(user("idem")))
+                .andExpect(status().isConflict())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER));
+        } finally {
+            release.countDown();
+        }
+
+        var response = first.get(10, TimeUnit.SECONDS);
+        assertThat(response.getStatus()).isEqualTo(303);
+
+        // completed meanwhile, replayed now
+        mockMvc
+            .perform(createRental(key).with(user("idem")))
+            .andExpect(status().isSeeOther())
+            .andExpect(header().string(HttpHeaders.LOCATION, response.getHeader(HttpHeaders.LOCATION)))
+            .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"));
+        assertThat(countRentals()).isOne();
+    }
+
+    @Test
+    void anonymousClientsDoNotShareKeys() throws Exception {
+        var key = UUID.randomUUID().toString();
+
+        var location = mockMvc
+            .perform(createRental(key).with(anonymous()).with(remoteAddress("192.0.2.1")))
+            .andExpect(status().isSeeOther())
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.LOCATION);
+
+        mockMvc
+            .perform(createRental(key).with(anonymous()).with(remoteAddress("192.0.2.2")))
+            .andExpect(status().isSeeOther())
+            .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER))
+            .andExpect(header().string(HttpHeaders.LOCATION, not(location)));
+
+        mockMvc
+            .perform(createRental(key).with(anonymous()).with(remoteAddress("192.0.2.1")))
+            .andExpect(status().isSeeOther())
+            .andExpect(header().string(HttpHeaders.LOCATION, location))
+            .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"));
+        assertThat(countRentals()).isEqualTo(2);
+    }
+
+    @Test
+    void errorResponsesAreNotStored() throws Exception {
+        var key = UUID.randomUUID().toString();
+
+        // the rental of a tool out of stock may succeed once an item is returned
+        var inventory = tool.getToolInventory();
+        toolInventoryRepository.saveAndFlush(inventory.onHoldCount(inventory.getStockCount()));
+        mockMvc.perform(createRental(key)).andExpect(status().isBadRequest());
+        assertThat(idempotentRequestRepository.count()).isZero();
+
+        toolInventoryRepository.saveAndFlush(inventory.onHoldCount(0));
+        mockMvc
+            .perform(createRental(key))
+            .andExpect(status().isSeeOther())
+            .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER));
+        assertThat(countRentals()).isOne();
+    }
+
+    @Test
+    void failedCommitIsNotSentAsSuccess() throws Exception {
+        var request = new MockHttpServletRequest(HttpMethod.POST.name(), RENTALS_API_URL);
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, UUID.randomUUID().toString());
+        var response = new MockHttpServletResponse();
+        FilterChain filterChain = (chainRequest, chainResponse) -> {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void beforeCommit(boolean readOnly) {
+                        throw new IllegalStateException("commit failed");
+                    }
+                }
+            );
+            ((HttpServletResponse) chainResponse).setStatus(HttpStatus.CREATED.value());
+            chainResponse.getWriter().write("{}");
+        };
+
+        assertThatThrownBy(() -> idempotencyFilter.doFilter(request, response, filterChain)).hasMessage("commit failed");
+
+        assertThat(response.isCommitted()).isFalse();
+        assertThat(response.getContentAsString()).isEmpty();
+        assertThat(idempotentRequestRepository.count()).isZero();
+    }
+
+    @Test
+    void abandonKeepsClaimOfRetry() {
+        var key = "idem:" + UUID.randomUUID();
+        var first = idempotencyService.begin(key, "fingerprint");
+        assertThat(first.decision()).isEqualTo(IdempotencyService.Decision.PROCEED);
+
+        // the lease of the first request expired, a retry takes the key over
+        var claim = idempotentRequestRepository.findById(first.claimId()).orElseThrow();
+        idempotentRequestRepository.saveAndFlush(claim.expiresAt(Instant.now().minusSeconds(1)));
+        var retry = idempotencyService.begin(key, "fingerprint");
+        assertThat(retry.decision()).isEqualTo(IdempotencyService.Decision.PROCEED);
+
+        // the first request finishes without storing its response
+        idempotencyService.abandon(first.claimId());
+
+        assertThat(idempotentRequestRepository.findById(retry.claimId())).isPresent();
+        assertThat(idempotencyService.begin(key, "fingerprint").decision()).isEqualTo(IdempotencyService.Decision.IN_PROGRESS);
+    }
+
+    @Test
+    void invalidKeyIsRejected() throws Exception {
+        mockMvc
+            .perform(post(REJECT_API_URL, Long.MAX_VALUE).header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "k".repeat(129)))
+            .andExpect(status().isBadRequest());
+    }
+
+    private MockHttpServletRequestBuilder createRental(String key) throws Exception {
+        var rentalRequest = new RentalRequest();
+        rentalRequest.setToolCode(tool.getCode());
+        rentalRequest.setCheckOutDate(LocalDate.of(2026, 10, 19));
+        rentalRequest.setDayCount(2);
+        rentalRequest.setDiscountPercent(0);
+        return post(RENTALS_API_URL)
+            .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(om.writeValueAsBytes(rentalRequest));
+    }
+
+    private static RequestPostProcessor remoteAddress(String address) {
+        return request -> {
+            request.setRemoteAddr(address);
+            return request;
+        };
+    }
+
+    private long countRentals() {
+        return rentalRepository.findAll().stream().filter(rental -> tool.getId().equals(rental.getTool().getId())).count();
+    }
+
+    private RentalAgreement createAgreement() {
+        var rental = rentalRepository.saveAndFlush(
+            new Rental()
+                .checkOutDate(LocalDate.now())
+                .dayCount(1)
+                .discountPercent(0)
+                .status(RentalStatus.CREATED)
+                .chargeAmount(BigDecimal.ZERO)
+                .tool(tool)
+        );
+        return rentalAgreementRepository.saveAndFlush(
+            new RentalAgreement().agreement("agreement").status(RentalAgreementStatus.PENDING).rental(rental)
+        );
+    }
+}
@@ -470,6 +470,40 @@ class HolidayResourceIT {
         assertSameRepositoryCount(databaseSizeBeforeUpdate);
     }
 
+    @Test
+    @Transactional
+    void createHolidayWithInvalidDate() throws Exception {
+        long databaseSizeBeforeCreate = getRepositoryCount();
+        holiday.monthNumber(2).dayNumber(30);
+
+        restHolidayMockMvc
+            .perform(post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(om.writeValueAsBytes(holiday)))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.dateinvalid"));
+
+        assertSameRepositoryCount(databaseSizeBeforeCreate);
+    }
+
+    @Test
+    @Transactional
+    void patchHolidayWithInvalidDayOfWeek() throws Exception {
+        // Initialize the database
+        insertedHoliday = holidayRepository.saveAndFlush(holiday.dayNumber(8));
+
+        Holiday partialUpdatedHoliday = new Holiday();
+        partialUpdatedHoliday.setId(holiday.getId());
+        partialUpdatedHoliday.holidayType(HolidayType.FIRST_DAY_OF_WEEK_IN_MONTH);
+
+        restHolidayMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, partialUpdatedHoliday.getId())
+                    .contentType("application/merge-patch+json")
+                    .content(om.writeValueAsBytes(partialUpdatedHoliday))
+            )
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.dateinvalid"));
+    }
+
     @Test
     @Transactional
     void deleteHoliday() throws Exception {
@@ -1,6 +1,7 @@
 package org.nimdaved.toolrent.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
 import static org.nimdaved.toolrent.domain.RentalAgreementAsserts.*;
 import static org.nimdaved.toolrent.web.rest.TestUtil.createUpdateProxyForBean;
@@ -18,6 +19,8 @@ import org.nimdaved.toolrent.IntegrationTest;
 import org.nimdaved.toolrent.domain.RentalAgreement;
 import org.nimdaved.toolrent.domain.enumeration.RentalAgreementStatus;
 import org.nimdaved.toolrent.repository.RentalAgreementRepository;
+import org.nimdaved.toolrent.service.dto.KeysetCursor;
+import org.nimdaved.toolrent.web.rest.util.KeysetPaginationUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.http.MediaType;
@@ -110,6 +113,36 @@ class RentalAgreementResourceIT {
             .andExpect(jsonPath("$.[*].status").value(hasItem(DEFAULT_STATUS.toString())));
     }
 
+    @Test
+    @Transactional
+    void getAllRentalAgreementsByKeyset() throws Exception {
+        // Initialize the database
+        var first = rentalAgreementRepository.saveAndFlush(createEntity());
+        var second = rentalAgreementRepository.saveAndFlush(createEntity());
+        var third = rentalAgreementRepository.saveAndFlush(createEntity());
+        var cursor = KeysetCursor.first(KeysetCursor.Order.ID).next(null, first.getId() - 1);
+
+        var nextCursor = restRentalAgreementMockMvc
+            .perform(get(ENTITY_API_URL + "?size=2&after=" + cursor.encode()))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(jsonPath("$.[*].id").value(contains(first.getId().intValue(), second.getId().intValue())))
+            .andReturn()
+            .getResponse()
+            .getHeader(KeysetPaginationUtil.NEXT_CURSOR_HEADER);
+        assertThat(KeysetCursor.decode(nextCursor)).isEqualTo(cursor.next(null, second.getId()));
+
+        restRentalAgreementMockMvc
+            .perform(get(ENTITY_API_URL + "?size=2&after=" + nextCursor))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].id").value(third.getId().intValue()));
+
+        restRentalAgreementMockMvc.perform(get(ENTITY_API_URL + "?scroll=id")).andExpect(status().isOk());
+        // agreements have no check-out date of their own to page by
+        restRentalAgreementMockMvc.perform(get(ENTITY_API_URL + "?scroll=checkOutDate")).andExpect(status().isBadRequest());
+        restRentalAgreementMockMvc.perform(get(ENTITY_API_URL + "?after=invalid")).andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     void getRentalAgreement() throws Exception {
@@ -0,0 +1,170 @@
+package org.nimdaved.toolrent.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nimdaved.toolrent.IntegrationTest;
+import org.nimdaved.toolrent.domain.Rental;
+import org.nimdaved.toolrent.domain.RentalAgreement;
+import org.nimdaved.toolrent.domain.Tool;
+import org.nimdaved.toolrent.domain.ToolInventory;
+import org.nimdaved.toolrent.domain.enumeration.RentalAgreementStatus;
+import org.nimdaved.toolrent.domain.enumeration.RentalStatus;
+import org.nimdaved.toolrent.domain.enumeration.ToolType;
+import org.nimdaved.toolrent.repository.ChargeRepository;
+import org.nimdaved.toolrent.repository.RentalAgreementRepository;
+import org.nimdaved.toolrent.repository.RentalRepository;
+import org.nimdaved.toolrent.repository.ToolInventoryRepository;
+import org.nimdaved.toolrent.repository.ToolRepository;
+import org.nimdaved.toolrent.service.dto.RentalRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests of the tool inventory counts updated by the {@link RentalResource} and {@link RentalAgreementResource}
+ * REST controllers through the conditional updates of {@link ToolInventoryRepository}.
+ * <p>
+ * The inventory is read back in the same transaction, so the counts asserted are those of the database and not those of
+ * entities left in the persistence context by the update statements.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+@Transactional
+class RentalInventoryIT {
+
+    private static final String RENTAL_API_URL = "/api/rentals";
+    private static final String AGREEMENT_PATH = "/api/rental-agreements/rental/";
+
+    @Autowired
+    private ObjectMapper om;
+
+    @Autowired
+    private MockMvc restMockMvc;
+
+    @Autowired
+    private ToolInventoryRepository toolInventoryRepository;
+
+    @Autowired
+    private ToolRepository toolRepository;
+
+    @Autowired
+    private ChargeRepository chargeRepository;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private RentalAgreementRepository rentalAgreementRepository;
+
+    private ToolInventory inventory;
+
+    private Tool tool;
+
+    @BeforeEach
+    void initTest() {
+        chargeRepository.saveAndFlush(ChargeResourceIT.createEntity().toolType(ToolType.LADDER).dailyCharge(new BigDecimal("1.99")));
+        inventory = toolInventoryRepository.saveAndFlush(
+            new ToolInventory().location("Inventory").stockCount(1).checkedOutCount(0).onHoldCount(0)
+        );
+        tool = toolRepository.saveAndFlush(new Tool().code("INVT").toolType(ToolType.LADDER).brand("Werner").toolInventory(inventory));
+    }
+
+    @Test
+    void updatesCountsConditionally() {
+        assertThat(toolInventoryRepository.incrementOnHoldCountIfAvailable(tool.getCode())).isOne();
+        // the inventory saved before the update is not served from the persistence context
+        assertCounts(0, 1);
+
+        // no item left to put on hold
+        assertThat(toolInventoryRepository.incrementOnHoldCountIfAvailable(tool.getCode())).isZero();
+        assertThat(toolInventoryRepository.decrementCheckedOutCount(tool.getCode())).isZero();
+        assertCounts(0, 1);
+
+        assertThat(toolInventoryRepository.moveOnHoldToCheckedOut(tool.getCode())).isOne();
+        assertCounts(1, 0);
+        assertThat(toolInventoryRepository.decrementOnHoldCount(tool.getCode())).isZero();
+        assertThat(toolInventoryRepository.decrementCheckedOutCount(tool.getCode())).isOne();
+        assertCounts(0, 0);
+    }
+
+    @Test
+    void keepsCountsThroughRentalLifecycle() throws Exception {
+        var location = createRental().andExpect(status().isSeeOther()).andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+        var rental = rentalRepository.findById(Long.valueOf(location.substring(AGREEMENT_PATH.length()))).orElseThrow();
+        assertCounts(0, 1);
+
+        // the only item is on hold
+        long rentalCount = rentalRepository.count();
+        createRental().andExpect(status().isBadRequest());
+        assertThat(rentalRepository.count()).isEqualTo(rentalCount);
+        assertCounts(0, 1);
+
+        var agreement = createAgreement(rental);
+        restMockMvc.perform(post("/api/rental-agreements/{id}/accept", agreement.getId())).andExpect(status().isAccepted());
+        assertThat(rentalRepository.findById(rental.getId()).orElseThrow().getStatus()).isEqualTo(RentalStatus.CHECKED_OUT);
+        assertCounts(1, 0);
+
+        restMockMvc.perform(post(RENTAL_API_URL + "/{id}/check-in", rental.getId())).andExpect(status().isAccepted());
+        assertThat(rentalRepository.findById(rental.getId()).orElseThrow().getStatus()).isEqualTo(RentalStatus.CHECKED_IN);
+        assertCounts(0, 0);
+    }
+
+    @Test
+    void conflictsWithInconsistentCounts() throws Exception {
+        // saved without putting the tool on hold
+        var created = rentalRepository.saveAndFlush(createRental(RentalStatus.CREATED));
+        var agreement = createAgreement(created);
+        restMockMvc.perform(post("/api/rental-agreements/{id}/accept", agreement.getId())).andExpect(status().isConflict());
+        assertCounts(0, 0);
+
+        var checkedOut = rentalRepository.saveAndFlush(createRental(RentalStatus.CHECKED_OUT));
+        restMockMvc.perform(post(RENTAL_API_URL + "/{id}/check-in", checkedOut.getId())).andExpect(status().isConflict());
+        assertCounts(0, 0);
+    }
+
+    private void assertCounts(int checkedOutCount, int onHoldCount) {
+        var counts = toolInventoryRepository.findById(inventory.getId()).orElseThrow();
+        assertThat(counts.getCheckedOutCount()).isEqualTo(checkedOutCount);
+        assertThat(counts.getOnHoldCount()).isEqualTo(onHoldCount);
+    }
+
+    private ResultActions createRental() throws Exception {
+        var rentalRequest = new RentalRequest();
+        rentalRequest.setToolCode(tool.getCode());
+        rentalRequest.setCheckOutDate(LocalDate.of(2026, 10, 19));
+        rentalRequest.setDayCount(1);
+        rentalRequest.setDiscountPercent(0);
+        return restMockMvc.perform(
+            post(RENTAL_API_URL).contentType(MediaType.APPLICATION_JSON).content(om.writeValueAsBytes(rentalRequest))
+        );
+    }
+
+    private Rental createRental(RentalStatus status) {
+        return new Rental()
+            .checkOutDate(LocalDate.of(2026, 10, 19))
+            .dayCount(1)
+            .discountPercent(0)
+            .status(status)
+            .chargeAmount(BigDecimal.ZERO)
+            .tool(tool);
+    }
+
+    private RentalAgreement createAgreement(Rental rental) {
+        return rentalAgreementRepository.saveAndFlush(
+            new RentalAgreement().agreement("agreement").status(RentalAgreementStatus.PENDING).rental(rental)
+        );
+    }
+}
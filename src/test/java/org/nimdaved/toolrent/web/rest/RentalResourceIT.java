@@ -1,6 +1,7 @@
 package org.nimdaved.toolrent.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
 import static org.nimdaved.toolrent.web.rest.TestUtil.sameNumber;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -10,6 +11,10 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.EntityManager;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.hibernate.SessionFactory;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,9 +22,12 @@ import org.nimdaved.toolrent.IntegrationTest;
 import org.nimdaved.toolrent.domain.Rental;
 import org.nimdaved.toolrent.domain.Tool;
 import org.nimdaved.toolrent.domain.enumeration.RentalStatus;
+import org.nimdaved.toolrent.repository.ChargeRepository;
 import org.nimdaved.toolrent.repository.RentalRepository;
 import org.nimdaved.toolrent.repository.ToolRepository;
+import org.nimdaved.toolrent.service.dto.KeysetCursor;
 import org.nimdaved.toolrent.service.dto.RentalRequest;
+import org.nimdaved.toolrent.web.rest.util.KeysetPaginationUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.http.MediaType;
@@ -65,6 +73,9 @@ class RentalResourceIT {
     @Autowired
     private ToolRepository toolRepository;
 
+    @Autowired
+    private ChargeRepository chargeRepository;
+
     private Rental rental;
 
     private Rental insertedRental;
@@ -179,6 +190,32 @@ class RentalResourceIT {
             .andExpect(jsonPath("$.[*].chargeAmount").value(hasItem(sameNumber(DEFAULT_CHARGE_AMOUNT))));
     }
 
+    @Test
+    @Transactional
+    void getAllRentalsFetchesToolsWithRentals() throws Exception {
+        // Initialize the database
+        for (int i = 0; i < 3; i++) {
+            rentalRepository.save(createEntity().tool(tool));
+        }
+        em.flush();
+        em.clear();
+
+        var statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            restRentalMockMvc
+                .perform(get(ENTITY_API_URL + "?sort=id,desc&size=100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[*].tool.brand").value(hasItem(tool.getBrand())));
+
+            // the page with its tools and customers, and the count
+            assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
     @Test
     @Transactional
     void getRental() throws Exception {
@@ -198,6 +235,177 @@ class RentalResourceIT {
             .andExpect(jsonPath("$.chargeAmount").value(sameNumber(DEFAULT_CHARGE_AMOUNT)));
     }
 
+    @Test
+    @Transactional
+    void quoteRentals() throws Exception {
+        chargeRepository.saveAndFlush(
+            ChargeResourceIT.createEntity()
+                .toolType(tool.getToolType())
+                .dailyCharge(new BigDecimal("1.99"))
+                .weekdayCharge(true)
+                .weekendCharge(true)
+        );
+
+        var unknownTool = createRentalRequest();
+        unknownTool.setToolCode("UNKNOWN");
+
+        long databaseSizeBeforeQuote = getRepositoryCount();
+
+        restRentalMockMvc
+            .perform(
+                post(ENTITY_API_URL + "/quotes")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(om.writeValueAsBytes(List.of(rentalRequest, unknownTool)))
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$[0].toolCode").value(tool.getCode()))
+            .andExpect(jsonPath("$[0].charges.chargedDays").value(DEFAULT_DAY_COUNT))
+            .andExpect(jsonPath("$[0].charges.chargedAmount").value(sameNumber(new BigDecimal("1.99"))))
+            .andExpect(jsonPath("$[1].charges").isEmpty())
+            .andExpect(jsonPath("$[1].error").isNotEmpty());
+
+        // Quotes do not create rentals
+        assertSameRepositoryCount(databaseSizeBeforeQuote);
+    }
+
+    @Test
+    @Transactional
+    void getAllRentalsByKeyset() throws Exception {
+        // Initialize the database
+        var first = rentalRepository.saveAndFlush(createEntity());
+        var second = rentalRepository.saveAndFlush(createEntity());
+        var third = rentalRepository.saveAndFlush(createEntity());
+        var cursor = KeysetCursor.first(KeysetCursor.Order.ID).next(null, first.getId() - 1);
+
+        var nextCursor = restRentalMockMvc
+            .perform(get(ENTITY_API_URL + "?size=2&after=" + cursor.encode()))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(header().exists(KeysetPaginationUtil.NEXT_CURSOR_HEADER))
+            .andExpect(jsonPath("$.[*].id").value(contains(first.getId().intValue(), second.getId().intValue())))
+            .andReturn()
+            .getResponse()
+            .getHeader(KeysetPaginationUtil.NEXT_CURSOR_HEADER);
+
+        restRentalMockMvc
+            .perform(get(ENTITY_API_URL + "?size=2&after=" + nextCursor))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].id").value(third.getId().intValue()));
+
+        restRentalMockMvc.perform(get(ENTITY_API_URL + "?after=invalid")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getAllRentalsByCheckOutDateKeyset() throws Exception {
+        // Initialize the database, the rentals of the same day are saved before the one of the earlier day
+        var checkOutDate = LocalDate.of(1960, 1, 2);
+        var sameDayFirst = rentalRepository.saveAndFlush(createEntity().checkOutDate(checkOutDate));
+        var sameDaySecond = rentalRepository.saveAndFlush(createEntity().checkOutDate(checkOutDate));
+        var earlier = rentalRepository.saveAndFlush(createEntity().checkOutDate(checkOutDate.minusDays(1)));
+
+        var nextCursor = restRentalMockMvc
+            .perform(get(ENTITY_API_URL + "?size=2&scroll=checkOutDate"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(jsonPath("$.[*].id").value(contains(earlier.getId().intValue(), sameDayFirst.getId().intValue())))
+            .andReturn()
+            .getResponse()
+            .getHeader(KeysetPaginationUtil.NEXT_CURSOR_HEADER);
+        assertThat(KeysetCursor.decode(nextCursor)).isEqualTo(
+            KeysetCursor.first(KeysetCursor.Order.CHECK_OUT_DATE).next(checkOutDate, sameDayFirst.getId())
+        );
+
+        // the page ends between rentals of the same day, the next one starts after the id of the cursor
+        restRentalMockMvc
+            .perform(get(ENTITY_API_URL + "?size=2&after=" + nextCursor))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].id").value(sameDaySecond.getId().intValue()))
+            .andExpect(jsonPath("$.[0].checkOutDate").value(checkOutDate.toString()));
+
+        restRentalMockMvc.perform(get(ENTITY_API_URL + "?scroll=tool")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getAllRentalsByCheckOutDateKeysetDeepPages() throws Exception {
+        // Initialize the database, with runs of rentals of the same day across page boundaries
+        var checkOutDate = LocalDate.of(1950, 1, 1);
+        List<Rental> rentals = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            rentals.add(rentalRepository.saveAndFlush(createEntity().checkOutDate(checkOutDate.plusDays(i % 4))));
+        }
+        var expected = rentals
+            .stream()
+            .sorted(Comparator.comparing(Rental::getCheckOutDate).thenComparing(Rental::getId))
+            .map(Rental::getId)
+            .toList();
+
+        List<Long> pagedIds = new ArrayList<>();
+        var cursor = KeysetCursor.first(KeysetCursor.Order.CHECK_OUT_DATE).next(checkOutDate.minusDays(1), Long.MAX_VALUE).encode();
+        while (cursor != null && pagedIds.size() < expected.size()) {
+            var response = restRentalMockMvc
+                .perform(get(ENTITY_API_URL + "?size=4&after=" + cursor))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+            om.readTree(response.getContentAsByteArray()).forEach(rental -> pagedIds.add(rental.get("id").asLong()));
+            cursor = response.getHeader(KeysetPaginationUtil.NEXT_CURSOR_HEADER);
+        }
+
+        assertThat(pagedIds).startsWith(expected.toArray(Long[]::new));
+    }
+
+    @Test
+    @Transactional
+    void exportRentals() throws Exception {
+        // Initialize the database
+        var checkOutDate = LocalDate.of(1971, 1, 1);
+        var first = rentalRepository.saveAndFlush(createEntity().checkOutDate(checkOutDate));
+        var second = rentalRepository.saveAndFlush(createEntity().checkOutDate(checkOutDate));
+        rentalRepository.saveAndFlush(createEntity().checkOutDate(checkOutDate.plusDays(1)));
+
+        var ndjson = restRentalMockMvc
+            .perform(get(ENTITY_API_URL + "/export?from=1971-01-01&to=1971-01-02"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"))
+            .andReturn()
+            .getResponse()
+            .getContentAsString()
+            .lines()
+            .toList();
+        assertThat(ndjson).hasSize(2);
+        assertThat(om.readTree(ndjson.get(0)).get("id").asLong()).isEqualTo(first.getId());
+        assertThat(om.readTree(ndjson.get(1)).get("id").asLong()).isEqualTo(second.getId());
+
+        var csv = restRentalMockMvc
+            .perform(get(ENTITY_API_URL + "/export?format=csv&from=1971-01-01&to=1971-01-02"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Content-Disposition", "attachment; filename=rentals.csv"))
+            .andReturn()
+            .getResponse()
+            .getContentAsString()
+            .lines()
+            .toList();
+        assertThat(csv).hasSize(3);
+        assertThat(csv.get(0)).startsWith("id,checkOutDate,");
+        assertThat(csv.get(1)).startsWith(first.getId() + ",1971-01-01,");
+
+        restRentalMockMvc.perform(get(ENTITY_API_URL + "/export?format=xml")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void checkinRequiresCheckedOutRental() throws Exception {
+        // Initialize the database
+        insertedRental = rentalRepository.saveAndFlush(rental);
+
+        restRentalMockMvc.perform(post(ENTITY_API_URL_ID + "/check-in", rental.getId())).andExpect(status().isBadRequest());
+
+        assertThat(rentalRepository.findById(rental.getId())).get().extracting(Rental::getStatus).isEqualTo(RentalStatus.CREATED);
+    }
+
     @Test
     @Transactional
     void getNonExistingRental() throws Exception {
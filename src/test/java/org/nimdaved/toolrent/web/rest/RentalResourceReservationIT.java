@@ -0,0 +1,133 @@
+package org.nimdaved.toolrent.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+import org.nimdaved.toolrent.IntegrationTest;
+import org.nimdaved.toolrent.domain.Tool;
+import org.nimdaved.toolrent.domain.ToolInventory;
+import org.nimdaved.toolrent.domain.enumeration.ToolType;
+import org.nimdaved.toolrent.repository.ChargeRepository;
+import org.nimdaved.toolrent.repository.RentalRepository;
+import org.nimdaved.toolrent.repository.ToolInventoryRepository;
+import org.nimdaved.toolrent.repository.ToolRepository;
+import org.nimdaved.toolrent.service.dto.RentalRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests of rentals by tool type for the {@link RentalResource} REST controller, with the
+ * {@link org.nimdaved.toolrent.service.ToolReservationLimiter} enabled and all tools mapped onto one stripe.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+@TestPropertySource(
+    properties = {
+        "application.reservation.enabled=true",
+        "application.reservation.stripes=1",
+        "application.reservation.permits-per-stripe=1",
+        "application.reservation.wait-timeout=PT0.1S",
+    }
+)
+@Transactional
+class RentalResourceReservationIT {
+
+    private static final String ENTITY_API_URL = "/api/rentals";
+
+    @Autowired
+    private ObjectMapper om;
+
+    @Autowired
+    private MockMvc restRentalMockMvc;
+
+    @SpyBean
+    private ToolInventoryRepository toolInventoryRepository;
+
+    @Autowired
+    private ToolRepository toolRepository;
+
+    @Autowired
+    private ChargeRepository chargeRepository;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    @Test
+    void createRentalsOfToolType() throws Exception {
+        chargeRepository.saveAndFlush(ChargeResourceIT.createEntity().toolType(ToolType.JACKHUMMER).dailyCharge(new BigDecimal("2.99")));
+        // the most available tool is the first candidate, but taken by a concurrent rental
+        var taken = createTool("RSVA", 3);
+        var available = createTool("RSVB", 2);
+        doReturn(0).when(toolInventoryRepository).incrementOnHoldCountIfAvailable(taken.getCode());
+        long databaseSizeBefore = rentalRepository.count();
+
+        // the next candidate shares the stripe of the taken one, it is admitted once the taken one gave its permit back
+        createRental().andExpect(status().isSeeOther());
+        // a second rental in the same transaction reuses the permit the transaction holds
+        createRental().andExpect(status().isSeeOther());
+
+        em.clear();
+        assertThat(rentalRepository.count()).isEqualTo(databaseSizeBefore + 2);
+        assertThat(toolInventoryRepository.findById(available.getToolInventory().getId()).orElseThrow().getOnHoldCount()).isEqualTo(2);
+        assertThat(toolInventoryRepository.findById(taken.getToolInventory().getId()).orElseThrow().getOnHoldCount()).isZero();
+
+        // the available tool has no items left, the taken one is still skipped
+        createRental().andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void rejectsToolCodeWithToolType() throws Exception {
+        var tool = createTool("RSVC", 1);
+        var rentalRequest = rentalRequest();
+        rentalRequest.setToolCode(tool.getCode());
+        long databaseSizeBefore = rentalRepository.count();
+
+        restRentalMockMvc
+            .perform(post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(om.writeValueAsBytes(rentalRequest)))
+            .andExpect(status().isBadRequest());
+
+        em.clear();
+        assertThat(rentalRepository.count()).isEqualTo(databaseSizeBefore);
+        assertThat(toolInventoryRepository.findById(tool.getToolInventory().getId()).orElseThrow().getOnHoldCount()).isZero();
+    }
+
+    private Tool createTool(String code, int stockCount) {
+        var inventory = toolInventoryRepository.saveAndFlush(
+            new ToolInventory().location("Reservation").stockCount(stockCount).checkedOutCount(0).onHoldCount(0)
+        );
+        return toolRepository.saveAndFlush(new Tool().code(code).toolType(ToolType.JACKHUMMER).brand("DeWalt").toolInventory(inventory));
+    }
+
+    private RentalRequest rentalRequest() {
+        var rentalRequest = new RentalRequest();
+        rentalRequest.setToolType(ToolType.JACKHUMMER);
+        rentalRequest.setCheckOutDate(LocalDate.of(2026, 10, 19));
+        rentalRequest.setDayCount(1);
+        rentalRequest.setDiscountPercent(0);
+        return rentalRequest;
+    }
+
+    private ResultActions createRental() throws Exception {
+        return restRentalMockMvc.perform(
+            post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(om.writeValueAsBytes(rentalRequest()))
+        );
+    }
+}
@@ -1,6 +1,7 @@
 package org.nimdaved.toolrent.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
 import static org.nimdaved.toolrent.domain.ToolAsserts.*;
 import static org.nimdaved.toolrent.web.rest.TestUtil.createUpdateProxyForBean;
@@ -178,6 +179,34 @@ class ToolResourceIT {
             .andExpect(jsonPath("$.[*].brand").value(hasItem(DEFAULT_BRAND)));
     }
 
+    @Test
+    @Transactional
+    void getAvailableTools() throws Exception {
+        // Initialize the database
+        var location = "Search " + UUID.randomUUID().toString().substring(0, 8);
+        var inventory = ToolInventoryResourceIT.createEntity().location(location).stockCount(2).checkedOutCount(1);
+        var soldOut = ToolInventoryResourceIT.createEntity().location(location).stockCount(2).checkedOutCount(1).onHoldCount(1);
+        em.persist(inventory);
+        em.persist(soldOut);
+        var available = toolRepository.save(createEntity().toolInventory(inventory));
+        toolRepository.save(createUpdatedEntity().toolInventory(inventory));
+        toolRepository.save(createEntity().toolInventory(soldOut));
+        em.flush();
+        em.clear();
+
+        restToolMockMvc
+            .perform(get(ENTITY_API_URL + "/available?location=" + location + "&toolType=" + DEFAULT_TOOL_TYPE))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "1"))
+            .andExpect(jsonPath("$.[*].code").value(contains(available.getCode())))
+            .andExpect(jsonPath("$.[0].toolInventory.availableCount").value(1));
+
+        restToolMockMvc
+            .perform(get(ENTITY_API_URL + "/available?location=" + location + "&minAvailable=2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").isEmpty());
+    }
+
     @Test
     @Transactional
     void getTool() throws Exception {